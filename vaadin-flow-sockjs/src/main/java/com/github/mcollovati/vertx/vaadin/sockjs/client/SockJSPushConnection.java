@@ -46,6 +46,12 @@ import elemental.json.JsonObject;
 
 public class SockJSPushConnection implements PushConnection {
 
+    /**
+     * Transport reported when connected through a plain WebSocket, without
+     * SockJS.
+     */
+    private static final String NATIVE_WEBSOCKET_TRANSPORT = "native-websocket";
+
     private final Registry registry;
     private SockJS socket;
     private SockJSConfiguration config;
@@ -81,7 +87,7 @@ public class SockJSPushConnection implements PushConnection {
         // Always debug for now
         config.setStringValue("logLevel", "debug");
 
-        getPushConfiguration().getParameters().forEach((value, key) -> {
+        getPushConfiguration().getParameters().forEach((key, value) -> {
             if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
                 config.setBooleanValue(key, value.equalsIgnoreCase("true"));
             } else {
@@ -161,7 +167,7 @@ public class SockJSPushConnection implements PushConnection {
             return false;
         }
 
-        if (!"websocket".equals(transport)) {
+        if (!"websocket".equals(transport) && !NATIVE_WEBSOCKET_TRANSPORT.equals(transport)) {
             // If we are not using websockets, we want to send XHRs
             return false;
         }
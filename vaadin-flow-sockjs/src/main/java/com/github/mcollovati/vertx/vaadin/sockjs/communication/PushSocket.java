@@ -23,7 +23,9 @@
 package com.github.mcollovati.vertx.vaadin.sockjs.communication;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 public interface PushSocket extends Serializable {
 
@@ -38,4 +40,38 @@ public interface PushSocket extends Serializable {
     boolean isConnected();
 
     boolean isClosed();
+
+    /**
+     * Checks if messages should not be sent to the socket, because the client
+     * is not consuming them as fast as they are produced.
+     *
+     * @return {@literal true} if the socket is throttled, otherwise {@literal false}.
+     */
+    default boolean isThrottled() {
+        return false;
+    }
+
+    /**
+     * Runs a task as soon as the socket is no longer throttled, or immediately
+     * if it is not throttled. Tasks may never be executed if the socket is
+     * disconnected in the meantime.
+     *
+     * @param task the task to run.
+     */
+    default void whenWritable(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Runs a task after the given delay.
+     * <p>
+     * The task is not executed holding any lock; implementations bound to an
+     * event loop may override this method to use their own timers.
+     *
+     * @param delay the delay, in milliseconds.
+     * @param task  the task to run.
+     */
+    default void schedule(long delay, Runnable task) {
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(task);
+    }
 }
@@ -25,11 +25,13 @@ package com.github.mcollovati.vertx.vaadin.sockjs.communication;
 import java.io.Reader;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.communication.PushConnection;
 import com.vaadin.flow.server.communication.UidlWriter;
+import com.vaadin.flow.shared.communication.PushMode;
 import elemental.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,12 +42,36 @@ public class SockJSPushConnection implements PushConnection {
     private static final long serialVersionUID = -1336533816978562477L;
 
     private final int uiId;
+    private final long coalescingWindow;
     private PushSocket socket;
     private State state = State.DISCONNECTED;
     private transient CompletableFuture<?> outgoingMessage;
+    // coalescing state, guarded by the session lock
+    private transient long lastPushTime;
+    private transient boolean windowOpen;
+    private transient boolean pushPending;
+    private transient boolean flushScheduled;
 
     public SockJSPushConnection(UI ui) {
+        this(ui, 0);
+    }
+
+    /**
+     * Creates a push connection for the given UI that coalesces asynchronous
+     * pushes.
+     * <p>
+     * After a message has been sent, asynchronous pushes requested within
+     * {@code coalescingWindow} milliseconds are deferred to the end of the
+     * window and sent as a single message. Responses to client requests are
+     * never deferred.
+     *
+     * @param ui               the UI.
+     * @param coalescingWindow the coalescing window in milliseconds, or 0 to
+     *                         send every push immediately.
+     */
+    public SockJSPushConnection(UI ui, long coalescingWindow) {
         uiId = ui.getUIId();
+        this.coalescingWindow = Math.max(0, coalescingWindow);
     }
 
     @Override
@@ -68,20 +94,106 @@ public class SockJSPushConnection implements PushConnection {
             } else {
                 state = State.RESPONSE_PENDING;
             }
+        } else if (async && coalesce()) {
+            logger.trace("Push for UI {} deferred to the end of the coalescing window", uiId);
+        } else if (async && throttle()) {
+            logger.trace("Push for UI {} deferred until the client catches up", uiId);
         } else {
             try {
                 UI ui = VaadinSession.getCurrent().getUIById(uiId);
-                JsonObject response = new UidlWriter().createUidl(ui, async);
-                sendMessage("for(;;);[" + response.toJson() + "]");
+                sendMessage(createMessage(ui, async));
             } catch (Exception e) {
                 throw new PushException("Push failed", e);
             }
+            pushPending = false;
+            if (coalescingWindow > 0) {
+                lastPushTime = System.nanoTime();
+                windowOpen = true;
+            }
+        }
+    }
+
+    /*
+     * Defers the push if a message has been sent within the coalescing window,
+     * scheduling a flush at the end of the window if not yet done.
+     */
+    private boolean coalesce() {
+        if (!windowOpen) {
+            return false;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(coalescingWindow) - (System.nanoTime() - lastPushTime);
+        if (remaining <= 0) {
+            windowOpen = false;
+            return false;
+        }
+        pushPending = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            VaadinSession session = VaadinSession.getCurrent();
+            long delay = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+            socket.schedule(delay, () -> session.access(this::flushPending));
+        }
+        return true;
+    }
+
+    /*
+     * Defers the push while the socket is throttled; pending changes are sent
+     * as a single message once the client has consumed the queued ones.
+     */
+    private boolean throttle() {
+        if (!socket.isThrottled()) {
+            return false;
+        }
+        pushPending = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            VaadinSession session = VaadinSession.getCurrent();
+            socket.whenWritable(() -> session.access(this::flushPending));
+        }
+        return true;
+    }
+
+    private void flushPending() {
+        flushScheduled = false;
+        windowOpen = false;
+        if (pushPending) {
+            UI ui = VaadinSession.getCurrent().getUIById(uiId);
+            // with automatic push mode, pending changes are pushed as soon as
+            // the session is unlocked
+            if (ui != null && ui.getPushConfiguration().getPushMode() != PushMode.AUTOMATIC) {
+                push(true);
+            }
         }
     }
 
+    String createMessage(UI ui, boolean async) {
+        JsonObject response = new UidlWriter().createUidl(ui, async);
+        return "for(;;);[" + response.toJson() + "]";
+    }
+
     private void sendMessage(String message) {
         logger.debug("Sending push message {}", message);
-        outgoingMessage = socket.send(message).toCompletableFuture();
+        PushSocket target = socket;
+        CompletableFuture<?> previous = outgoingMessage;
+        if (previous == null || previous.isDone()) {
+            outgoingMessage = target.send(message).toCompletableFuture();
+        } else {
+            // keep messages in order, even if the previous one failed
+            outgoingMessage = previous.handle((unused, error) -> null)
+                    .thenCompose(unused -> target.send(message).thenApply(result -> null));
+        }
+        VaadinSession session = VaadinSession.getCurrent();
+        outgoingMessage.whenComplete((unused, error) -> {
+            if (error != null && session != null && !target.isConnected()) {
+                // the message could not be delivered because the socket is
+                // gone, the client resynchronizes when it reconnects
+                session.access(() -> {
+                    if (socket == target) {
+                        connectionLost();
+                    }
+                });
+            }
+        });
     }
 
     protected Reader receiveMessage(Reader data) {
@@ -99,9 +211,11 @@ public class SockJSPushConnection implements PushConnection {
             return;
         }
 
-        Optional.of(outgoingMessage)
+        PushSocket target = socket;
+        Optional.ofNullable(outgoingMessage)
+                .<CompletableFuture<?>>map(message -> message.handle((unused, error) -> null))
                 .orElseGet(() -> CompletableFuture.completedFuture(null))
-                .thenCompose(unused -> socket.close())
+                .thenCompose(unused -> target.close())
                 .thenRun(this::connectionLost);
     }
 
@@ -119,6 +233,9 @@ public class SockJSPushConnection implements PushConnection {
         }
 
         this.socket = socket;
+        // flushes scheduled on the previous socket may never happen
+        flushScheduled = false;
+        windowOpen = false;
         State oldState = state;
         state = State.CONNECTED;
 
@@ -92,9 +92,187 @@ window.vaadinPush = window.vaadinPush || {};
         return this.sock ? this.sock.readyState : SockJSImpl.CONNECTING;
     };
 
+  // Plain WebSocket connection, without SockJS framing. If the connection
+  // cannot be established at all, it falls back to SockJS.
+  var NATIVE_WEBSOCKET_PATH = '/native';
+  var toWebSocketUrl = function(url, compression) {
+      var location = new URL(url, window.location.href);
+      location.protocol = location.protocol === 'https:' ? 'wss:' : 'ws:';
+      location.pathname = location.pathname.replace(/\/$/, '') + NATIVE_WEBSOCKET_PATH;
+      if (compression) {
+          location.searchParams.set('v-compress', 'deflate');
+      }
+      return location.toString();
+  };
+  var concatBytes = function(first, second) {
+      var result = new Uint8Array(first.length + second.length);
+      result.set(first, 0);
+      result.set(second, first.length);
+      return result;
+  };
+  // Inflates the messages of a connection, compressed by the server with a
+  // single deflate context. Each message is prefixed by its uncompressed
+  // length and ends with a sync flush, so it can be decoded as soon as all
+  // its bytes have been inflated.
+  var PushInflater = function(onMessage) {
+      var self = this;
+      var stream = new DecompressionStream('deflate-raw');
+      var reader = stream.readable.getReader();
+      var decoder = new TextDecoder('utf-8');
+      self.writer = stream.writable.getWriter();
+      self.lengths = [];
+      self.inflated = new Uint8Array(0);
+      var pump = function() {
+          reader.read().then(function(result) {
+              if (result.done) {
+                  return;
+              }
+              self.inflated = concatBytes(self.inflated, result.value);
+              while (self.lengths.length && self.inflated.length >= self.lengths[0]) {
+                  var length = self.lengths.shift();
+                  var message = decoder.decode(self.inflated.subarray(0, length));
+                  self.inflated = self.inflated.slice(length);
+                  onMessage(message);
+              }
+              pump();
+          });
+      };
+      pump();
+  };
+  PushInflater.prototype.inflate = function(data) {
+      this.lengths.push(new DataView(data).getUint32(0));
+      this.writer.write(new Uint8Array(data, 4));
+  };
+  var NativeWebSocketWrapper = function(url, options) {
+    var self = this;
+
+    options = options || {};
+    self.reconnectTimerID = null;
+    self.reconnectEnabled = false;
+    self.reconnectAttempts = 0;
+    self.firstMessage = true;
+    self.established = false;
+    self.fallback = null;
+    self.maxReconnectAttempts = options.maxReconnectAttempts || Infinity;
+    self.reconnectInterval = options.reconnectInterval || 5000;
+    self.decoder = window.TextDecoder ? new TextDecoder('utf-8') : null;
+    self.compression = !!(options.compression && window.DecompressionStream);
+
+    var switchToSockJS = function() {
+        var fallback = new SockJSWrapper(url, options);
+        fallback.enableReconnect(self.reconnectEnabled);
+        fallback.onopen = self.onopen;
+        fallback.onmessage = self.onmessage;
+        fallback.onclose = self.onclose;
+        fallback.onerror = self.onerror;
+        fallback.onreconnect = self.onreconnect;
+        fallback.onreopen = self.onreopen;
+        self.fallback = fallback;
+    };
+
+    var handleMessage = function(data) {
+        if (self.firstMessage) {
+            self.firstMessage = false;
+            self.established = true;
+            self.onopen && self.onopen();
+        } else {
+            self.onmessage && self.onmessage({ data: data });
+        }
+    };
+
+    var setupWebSocketConnection = function() {
+        // the server uses a new deflate context for every connection
+        var inflater = self.compression ? new PushInflater(handleMessage) : null;
+        self.sock = new WebSocket(toWebSocketUrl(url, self.compression));
+        self.sock.binaryType = 'arraybuffer';
+        self.sock.onopen = function() {
+            self.firstMessage = true;
+            if (self.reconnectTimerID) {
+              self.reconnectAttempts = 0;
+              self.onreopen && self.onreopen();
+            }
+        };
+        self.sock.onclose = function (e) {
+            if (!self.established) {
+                switchToSockJS();
+            } else if (self.reconnectEnabled) {
+              if (self.reconnectAttempts < self.maxReconnectAttempts) {
+                self.onreconnect && self.onreconnect();
+                self.sock = null;
+                self.reconnectTimerID = setTimeout(setupWebSocketConnection, self.reconnectInterval);
+                ++self.reconnectAttempts;
+              } else {
+                var ev = new Event('reconnectionError');
+                ev.transport = self.getTransport();
+                self.onerror && self.onerror(ev);
+              }
+            } else {
+                self.onclose && self.onclose(e);
+            }
+        };
+        self.sock.onmessage = function(e) {
+            var data = e.data;
+            if (typeof data === 'string') {
+                handleMessage(data);
+            } else if (inflater) {
+                inflater.inflate(data);
+            } else {
+                // binary frame, with UTF-8 encoded message
+                handleMessage(self.decoder.decode(new Uint8Array(data)));
+            }
+        };
+        self.sock.onerror = function(e) {
+            // errors before the connection is established are followed by
+            // a close event, that triggers the fallback
+            if (self.established) {
+                self.onerror && self.onerror(e);
+            }
+        };
+    };
+
+    setupWebSocketConnection();
+  };
+
+    NativeWebSocketWrapper.prototype.close = function () {
+        if (this.fallback) {
+            return this.fallback.close();
+        }
+        this.enableReconnect(false);
+        this.sock && this.sock.close();
+    };
+    NativeWebSocketWrapper.prototype.send = function(message) {
+        if (this.fallback) {
+            this.fallback.send(message);
+        } else if (this.sock) {
+            this.sock.send(message);
+        } else {
+            throw new Error('WebSocket not initialized');
+        }
+    };
+    NativeWebSocketWrapper.prototype.enableReconnect = function (enable) {
+        if (this.fallback) {
+            return this.fallback.enableReconnect(enable);
+        }
+        SockJSWrapper.prototype.enableReconnect.call(this, enable);
+    };
+    NativeWebSocketWrapper.prototype.getTransport = function () {
+        if (this.fallback) {
+            return this.fallback.getTransport();
+        }
+        return 'native-websocket';
+    }
+    NativeWebSocketWrapper.prototype.getReadyState = function () {
+        if (this.fallback) {
+            return this.fallback.getReadyState();
+        }
+        return this.sock ? this.sock.readyState : WebSocket.CONNECTING;
+    };
+
   this.SockJS = {
     connect: function(config) {
-        var sock = new SockJSWrapper(config.url, config);
+        var sock = config.nativeWebSocket && window.WebSocket && window.URL
+            ? new NativeWebSocketWrapper(config.url, config)
+            : new SockJSWrapper(config.url, config);
         sock.enableReconnect(parseInt(config.reconnectInterval) > 0);
         sock.onopen = config.onOpen;
         sock.onmessage = config.onMessage;
@@ -24,6 +24,7 @@ package com.github.mcollovati.vertx.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
 
 import io.vertx.core.buffer.Buffer;
 
@@ -40,4 +41,24 @@ public class BufferInputStreamAdapter extends InputStream {
     public int read() throws IOException {
         return (position < buffer.length()) ? buffer.getByte(position++) & 0xff : -1;
     }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= buffer.length()) {
+            return -1;
+        }
+        int bytes = Math.min(len, buffer.length() - position);
+        buffer.getBytes(position, position + bytes, b, off);
+        position += bytes;
+        return bytes;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return buffer.length() - position;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on a delegate executor, serially for tasks submitted with the
+ * same key and concurrently for tasks with different keys.
+ * <p>
+ * The number of tasks waiting or running for a key is bounded: when the limit
+ * is reached new tasks for that key are rejected, without affecting other
+ * keys. The state kept for a key is discarded as soon as it has no more
+ * pending tasks.
+ */
+public class KeyedSerialExecutor<K> {
+
+    private final Executor delegate;
+    private final int maxPending;
+    private final ConcurrentMap<K, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new executor.
+     *
+     * @param delegate   the executor running the tasks.
+     * @param maxPending the maximum number of tasks waiting or running for a key.
+     */
+    public KeyedSerialExecutor(Executor delegate, int maxPending) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Max pending tasks must be greater than zero");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Submits a task for the given key.
+     *
+     * @param key  the key the task is bound to.
+     * @param task the task to execute.
+     * @return {@literal true} if the task has been accepted, {@literal false}
+     *         if too many tasks are pending for the key.
+     */
+    public boolean execute(K key, Runnable task) {
+        Objects.requireNonNull(task);
+        boolean[] accepted = new boolean[1];
+        Lane lane = lanes.compute(key, (k, current) -> {
+            Lane l = current != null ? current : new Lane(new SerialExecutor(delegate));
+            if (l.pending < maxPending) {
+                l.pending++;
+                accepted[0] = true;
+            }
+            return l;
+        });
+        if (!accepted[0]) {
+            return false;
+        }
+        try {
+            lane.executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    completed(key);
+                }
+            });
+        } catch (RuntimeException ex) {
+            completed(key);
+            throw ex;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of tasks waiting or running for the given key.
+     *
+     * @param key the key.
+     * @return the number of pending tasks for the key.
+     */
+    public int pending(K key) {
+        Lane lane = lanes.get(key);
+        return lane != null ? lane.pending : 0;
+    }
+
+    private void completed(K key) {
+        lanes.computeIfPresent(key, (k, lane) -> --lane.pending == 0 ? null : lane);
+    }
+
+    private static final class Lane {
+        private final SerialExecutor executor;
+        // guarded by the map entry lock
+        private int pending;
+
+        private Lane(SerialExecutor executor) {
+            this.executor = executor;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * An {@link InputStream} that reads from a Vert.x {@link ReadStream}.
+ * <p>
+ * The stream is put in fetch mode and a single buffer is requested each time
+ * the data already received has been consumed, so at most one chunk is held
+ * in memory regardless of the total size of the data. If the read stream has
+ * not been paused before, data emitted before the creation of this input
+ * stream is lost.
+ * <p>
+ * Since reads block until data is available, this stream must never be used
+ * on an event loop thread. Closing the input stream discards the data not yet
+ * read.
+ */
+public class ReadStreamInputStream extends InputStream {
+
+    private static final Object END = new Object();
+
+    private final ReadStream<Buffer> stream;
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private Buffer current;
+    private int position;
+    private boolean ended;
+    private boolean closed;
+
+    public ReadStreamInputStream(ReadStream<Buffer> stream) {
+        this.stream = Objects.requireNonNull(stream);
+        stream.pause();
+        stream.handler(received::add);
+        stream.exceptionHandler(received::add);
+        stream.endHandler(unused -> received.add(END));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.getByte(position++) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int bytes = Math.min(len, current.length() - position);
+        current.getBytes(position, position + bytes, b, off);
+        position += bytes;
+        return bytes;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return current == null ? 0 : current.length() - position;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            current = null;
+            received.clear();
+            if (!ended) {
+                // drop remaining data
+                stream.handler(null);
+                stream.resume();
+            }
+        }
+    }
+
+    private boolean ensureData() throws IOException {
+        ensureOpen();
+        while (current == null || position == current.length()) {
+            if (ended) {
+                return false;
+            }
+            current = null;
+            position = 0;
+            Object next = received.poll();
+            if (next == null) {
+                stream.fetch(1);
+                next = take();
+            }
+            if (next == END) {
+                ended = true;
+            } else if (next instanceof Throwable) {
+                ended = true;
+                throw new IOException((Throwable) next);
+            } else {
+                current = (Buffer) next;
+            }
+        }
+        return true;
+    }
+
+    private Object take() throws IOException {
+        try {
+            return received.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for data");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * An {@link OutputStream} that writes to a Vert.x {@link WriteStream},
+ * honoring its back-pressure.
+ * <p>
+ * Data is sent to the stream in chunks of at most {@code chunkSize} bytes.
+ * When the write queue of the target stream is full, the calling thread is
+ * blocked until the stream is drained, so the amount of memory held for
+ * pending writes stays bounded regardless of the total size of the data.
+ * <p>
+ * Since it may block, this stream must never be used on an event loop
+ * thread. Closing the output stream does not end the target stream.
+ */
+public class WriteStreamOutputStream extends OutputStream {
+
+    private static final long DRAIN_CHECK_INTERVAL_MS = 1000;
+
+    private final WriteStream<Buffer> stream;
+    private final BooleanSupplier streamClosed;
+    private final int chunkSize;
+    private byte[] chunk;
+    private int count;
+    private boolean closed;
+
+    public WriteStreamOutputStream(WriteStream<Buffer> stream, int chunkSize) {
+        this(stream, () -> false, chunkSize);
+    }
+
+    public WriteStreamOutputStream(HttpServerResponse response, int chunkSize) {
+        this(response, response::closed, chunkSize);
+    }
+
+    private WriteStreamOutputStream(WriteStream<Buffer> stream, BooleanSupplier streamClosed, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+        this.stream = Objects.requireNonNull(stream);
+        this.streamClosed = streamClosed;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (chunk == null) {
+            chunk = new byte[chunkSize];
+        }
+        chunk[count++] = (byte) b;
+        if (count == chunkSize) {
+            writeChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (chunk == null) {
+                chunk = new byte[chunkSize];
+            }
+            int bytes = Math.min(len, chunkSize - count);
+            System.arraycopy(b, off, chunk, count, bytes);
+            count += bytes;
+            off += bytes;
+            len -= bytes;
+            if (count == chunkSize) {
+                writeChunk();
+            }
+        }
+    }
+
+    /**
+     * Sends pending data to the target stream, waiting for the stream write
+     * queue to be drained if it is full.
+     *
+     * @throws IOException if the target stream has been closed or the thread
+     *                     is interrupted while waiting.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeChunk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                writeChunk();
+            } finally {
+                closed = true;
+                chunk = null;
+            }
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        awaitWritable();
+        // the chunk is handed over to the stream as is; a new one will be
+        // allocated for the next write, since the stream writes asynchronously
+        stream.write(Buffer.buffer(Unpooled.wrappedBuffer(chunk, 0, count)));
+        chunk = null;
+        count = 0;
+    }
+
+    private void awaitWritable() throws IOException {
+        while (stream.writeQueueFull()) {
+            if (streamClosed.getAsBoolean()) {
+                throw new IOException("Stream has been closed");
+            }
+            CompletableFuture<Void> drained = new CompletableFuture<>();
+            stream.drainHandler(unused -> drained.complete(null));
+            // queue may have been drained before the handler was set
+            if (!stream.writeQueueFull()) {
+                return;
+            }
+            try {
+                drained.get(DRAIN_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check again if stream is still open
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for stream to drain");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.vaadin.flow.server.VaadinSession;
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the purge of sessions pending access queues on a blocking
+ * executor, so that {@code UI.access} commands and the session lock never
+ * run on an event loop thread.
+ * <p>
+ * At most one purge per session is scheduled at any time: requests received
+ * while a purge is waiting to be executed are ignored, since the scheduled
+ * purge will drain the whole queue.
+ */
+final class AccessQueuePurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessQueuePurger.class);
+
+    private final Executor executor;
+    private final Consumer<VaadinSession> purge;
+    private final Set<VaadinSession> scheduled = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong maxTime = new AtomicLong();
+    private final AtomicLong eventLoopBlockedTime = new AtomicLong();
+
+    /**
+     * Creates a new purger.
+     *
+     * @param executor the executor running the purges.
+     * @param purge    the function that purges the access queue of a session.
+     */
+    AccessQueuePurger(Executor executor, Consumer<VaadinSession> purge) {
+        this.executor = Objects.requireNonNull(executor);
+        this.purge = Objects.requireNonNull(purge);
+    }
+
+    /**
+     * Schedules the purge of the access queue of the given session, unless
+     * one is already waiting to be executed.
+     *
+     * @param session the session whose access queue should be purged.
+     */
+    void schedule(VaadinSession session) {
+        requested.incrementAndGet();
+        if (!scheduled.add(session)) {
+            deduplicated.incrementAndGet();
+            return;
+        }
+        try {
+            executor.execute(() -> run(session));
+        } catch (RejectedExecutionException ex) {
+            // executor has been shut down, commands must be run anyway
+            logger.debug("Cannot schedule access queue purge, running it on the calling thread", ex);
+            run(session);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the purge metrics.
+     * <p>
+     * Times are in ms; {@code eventLoopBlockedTime} is the time spent purging
+     * access queues on event loop threads, that is expected to be zero.
+     *
+     * @return the purge metrics.
+     */
+    JsonObject metrics() {
+        return new JsonObject()
+                .put("scheduled", scheduled.size())
+                .put("requested", requested.get())
+                .put("deduplicated", deduplicated.get())
+                .put("executed", executed.get())
+                .put("failed", failed.get())
+                .put("totalTime", TimeUnit.NANOSECONDS.toMillis(totalTime.get()))
+                .put("maxTime", TimeUnit.NANOSECONDS.toMillis(maxTime.get()))
+                .put("eventLoopBlockedTime", TimeUnit.NANOSECONDS.toMillis(eventLoopBlockedTime.get()));
+    }
+
+    private void run(VaadinSession session) {
+        // removed before purging, so that commands enqueued while the purge
+        // is running schedule a new one
+        scheduled.remove(session);
+        long start = System.nanoTime();
+        try {
+            purge.accept(session);
+        } catch (RuntimeException ex) {
+            failed.incrementAndGet();
+            logger.error("Error purging access queue of session {}", session, ex);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            executed.incrementAndGet();
+            totalTime.addAndGet(elapsed);
+            maxTime.accumulateAndGet(elapsed, Math::max);
+            if (Context.isOnEventLoopThread()) {
+                eventLoopBlockedTime.addAndGet(elapsed);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Size bounded, in-memory cache of the static resources served by
+ * {@link VertxStaticFileServer}.
+ * <p>
+ * Entries are keyed by request path and hold the resource contents along
+ * with the precompressed variants, if available. When the total weight of
+ * the cached contents exceeds the configured budget, entries are evicted in
+ * least-recently-used order.
+ */
+class StaticResourceCache {
+
+    private final long maxSize;
+    private final long maxEntrySize;
+    private final LinkedHashMap<String, CachedResource> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize      the maximum total weight, in bytes, of the cached entries
+     * @param maxEntrySize the maximum size, in bytes, of a single cached resource
+     */
+    StaticResourceCache(long maxSize, long maxEntrySize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxSize, maxEntrySize);
+    }
+
+    /**
+     * Gets the maximum size, in bytes, of a resource that can be cached.
+     *
+     * @return the maximum size of a cacheable resource.
+     */
+    long maxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Gets the total weight, in bytes, of the cached entries.
+     *
+     * @return the total weight of the cached entries.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized CachedResource get(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Adds an entry to the cache, evicting the least recently used entries if
+     * the size budget is exceeded.
+     * <p>
+     * Entries heavier than the maximum entry size are ignored.
+     *
+     * @param path     the request path
+     * @param resource the resource to cache
+     * @return {@code true} if the resource has been cached, otherwise {@code false}
+     */
+    synchronized boolean put(String path, CachedResource resource) {
+        if (resource.weight() > maxEntrySize) {
+            return false;
+        }
+        CachedResource previous = entries.put(path, resource);
+        if (previous != null) {
+            size -= previous.weight();
+        }
+        size += resource.weight();
+        Iterator<Map.Entry<String, CachedResource>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<String, CachedResource> eldest = it.next();
+            if (eldest.getValue() != resource) {
+                size -= eldest.getValue().weight();
+                it.remove();
+            }
+        }
+        return true;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * A cached static resource.
+     */
+    static final class CachedResource {
+        private final Buffer content;
+        private final Buffer brotliContent;
+        private final Buffer gzipContent;
+        private final long lastModified;
+        private final String contentType;
+        private volatile String etag;
+        private volatile String brotliETag;
+        private volatile String gzipETag;
+
+        CachedResource(
+                Buffer content, Buffer brotliContent, Buffer gzipContent, long lastModified, String contentType) {
+            this.content = content;
+            this.brotliContent = brotliContent;
+            this.gzipContent = gzipContent;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+
+        Buffer content() {
+            return content;
+        }
+
+        Buffer brotliContent() {
+            return brotliContent;
+        }
+
+        Buffer gzipContent() {
+            return gzipContent;
+        }
+
+        /**
+         * Gets the last modification timestamp of the resource, without
+         * milliseconds.
+         *
+         * @return the last modification timestamp, or -1 if unknown.
+         */
+        long lastModified() {
+            return lastModified;
+        }
+
+        String contentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the strong entity tag of the uncompressed content, computing it
+         * on first access.
+         *
+         * @return the quoted entity tag.
+         */
+        String etag() {
+            if (etag == null) {
+                etag = StaticResourceETagIndex.computeETag(content);
+            }
+            return etag;
+        }
+
+        String brotliETag() {
+            if (brotliETag == null && brotliContent != null) {
+                brotliETag = StaticResourceETagIndex.computeETag(brotliContent);
+            }
+            return brotliETag;
+        }
+
+        String gzipETag() {
+            if (gzipETag == null && gzipContent != null) {
+                gzipETag = StaticResourceETagIndex.computeETag(gzipContent);
+            }
+            return gzipETag;
+        }
+
+        long weight() {
+            return length(content) + length(brotliContent) + length(gzipContent);
+        }
+
+        private static long length(Buffer buffer) {
+            return buffer != null ? buffer.length() : 0;
+        }
+    }
+}
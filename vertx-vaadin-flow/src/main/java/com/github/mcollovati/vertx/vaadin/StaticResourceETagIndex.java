@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ResourceList;
+import io.github.classgraph.ScanResult;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.vaadin.flow.server.Constants.VAADIN_WEBAPP_RESOURCES;
+
+/**
+ * Index of strong entity tags for the static resources packaged with the
+ * application.
+ * <p>
+ * Entity tags are computed from the content of the resources found on the
+ * classpath under {@code META-INF/VAADIN/webapp} (e.g. the production bundle
+ * in {@code VAADIN/build}) and {@code META-INF/resources}, so they do not
+ * change after a redeploy unless the resource content actually changed.
+ * <p>
+ * The index is meant to be built once at startup, since resources never
+ * change in production mode.
+ */
+class StaticResourceETagIndex {
+
+    private static final String META_INF_RESOURCES = "META-INF/resources/";
+    private static final String[] INDEXED_PATHS = {VAADIN_WEBAPP_RESOURCES, META_INF_RESOURCES};
+
+    private final Map<String, List<Entry>> entries;
+
+    StaticResourceETagIndex(Map<String, List<Entry>> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Gets the entity tag for the resource served for the given request path.
+     * <p>
+     * The tag is returned only if the resolved resource URL refers to the
+     * indexed classpath resource. If the same resource is available in
+     * multiple classpath entries with different contents, no tag is returned,
+     * since it cannot be known which one will be served.
+     *
+     * @param filenameWithPath the requested file name
+     * @param resourceUrl      the URL of the resource that will be served
+     * @return the quoted entity tag, or {@code null} if the resource is not
+     * indexed.
+     */
+    String get(String filenameWithPath, URL resourceUrl) {
+        List<Entry> candidates = entries.get(filenameWithPath);
+        if (candidates == null || resourceUrl == null) {
+            return null;
+        }
+        String url = resourceUrl.toString();
+        String etag = null;
+        for (Entry entry : candidates) {
+            if (url.endsWith(entry.resourcePath)) {
+                if (etag != null && !etag.equals(entry.etag)) {
+                    return null;
+                }
+                etag = entry.etag;
+            }
+        }
+        return etag;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Scans the classpath and builds the index on a worker thread, hashing
+     * resources in parallel.
+     *
+     * @param vertx the Vert.x instance
+     * @return a future that completes with the index.
+     */
+    static Future<StaticResourceETagIndex> build(Vertx vertx) {
+        return vertx.executeBlocking(
+                promise -> {
+                    long start = System.nanoTime();
+                    StaticResourceETagIndex index = scan();
+                    getLogger()
+                            .debug(
+                                    "Static resources ETag index built in {} ms ({} entries)",
+                                    (System.nanoTime() - start) / 1_000_000,
+                                    index.size());
+                    promise.complete(index);
+                },
+                false);
+    }
+
+    private static StaticResourceETagIndex scan() {
+        Map<String, List<Entry>> entries = new ConcurrentHashMap<>();
+        ClassGraph classGraph = new ClassGraph().acceptPaths(INDEXED_PATHS).removeTemporaryFilesAfterScan();
+        try (ScanResult scanResult = classGraph.scan()) {
+            ResourceList resources = scanResult.getAllResources().nonClassFilesOnly();
+            resources.parallelStream().forEach(resource -> {
+                String resourcePath = resource.getPath();
+                String filenameWithPath = toRequestPath(resourcePath);
+                if (filenameWithPath != null) {
+                    try (Resource res = resource) {
+                        String etag = computeETag(res.load());
+                        entries.computeIfAbsent(filenameWithPath, unused -> new CopyOnWriteArrayList<>())
+                                .add(new Entry(resourcePath, etag));
+                    } catch (IOException e) {
+                        getLogger().debug("Cannot compute ETag for resource {}", resourcePath, e);
+                    }
+                }
+            });
+        }
+        return new StaticResourceETagIndex(entries);
+    }
+
+    private static String toRequestPath(String resourcePath) {
+        for (String prefix : INDEXED_PATHS) {
+            if (resourcePath.startsWith(prefix)) {
+                return "/" + resourcePath.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    static String computeETag(Buffer content) {
+        return computeETag(content.getBytes());
+    }
+
+    /**
+     * Computes a strong entity tag for the given content.
+     *
+     * @param content the resource content
+     * @return the quoted entity tag
+     */
+    static String computeETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Checks if the {@code If-None-Match} header value matches one of the
+     * given entity tags, using weak comparison as mandated by RFC 7232.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header value
+     * @param etags       the entity tags of the available representations
+     * @return the matching entity tag, or {@code null} if none of the tags
+     * matches
+     */
+    static String findMatch(String ifNoneMatch, String... etags) {
+        for (String token : ifNoneMatch.split(",")) {
+            String candidate = token.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            for (String etag : etags) {
+                if (etag != null && ("*".equals(candidate) || etag.equals(candidate))) {
+                    return etag;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(StaticResourceETagIndex.class);
+    }
+
+    static final class Entry {
+        private final String resourcePath;
+        private final String etag;
+
+        Entry(String resourcePath, String etag) {
+            this.resourcePath = resourcePath;
+            this.etag = etag;
+        }
+    }
+}
@@ -22,9 +22,11 @@
  */
 package com.github.mcollovati.vertx.vaadin;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -36,12 +38,20 @@ import com.vaadin.flow.server.VaadinContext;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.mcollovati.vertx.vaadin.sockjs.communication.SlowConsumerPolicy;
+import com.github.mcollovati.vertx.web.serialization.SerializationSupport;
 
 import static com.vaadin.flow.server.InitParameters.SERVLET_PARAMETER_PRODUCTION_MODE;
 import static io.vertx.ext.web.handler.SessionHandler.DEFAULT_SESSION_TIMEOUT;
 
 public final class VaadinOptions {
 
+    private static final Logger logger = LoggerFactory.getLogger(VaadinOptions.class);
+    private static final int DEFAULT_SESSION_QUEUE_MAX_PENDING = 50;
+
     private final JsonObject config;
 
     public VaadinOptions() {
@@ -98,6 +108,10 @@ public final class VaadinOptions {
         return config.getLong("sessionTimeout", DEFAULT_SESSION_TIMEOUT);
     }
 
+    public JsonObject sessionStoreOptions() {
+        return config.getJsonObject("sessionStore", new JsonObject());
+    }
+
     public Optional<String> serviceName() {
         return Optional.ofNullable(config.getString("serviceName"));
     }
@@ -109,6 +123,33 @@ public final class VaadinOptions {
                 .collect(Collectors.toList());
     }
 
+    public boolean virtualThreadsEnabled() {
+        return getBooleanProperty("virtualThreads.enabled", false);
+    }
+
+    public boolean sessionQueueEnabled() {
+        return getBooleanProperty("sessionQueue.enabled", false);
+    }
+
+    public int sessionQueueMaxPending() {
+        return Math.max(1, config.getInteger("sessionQueue.maxPending", DEFAULT_SESSION_QUEUE_MAX_PENDING));
+    }
+
+    public int uploadParallelism() {
+        return Math.max(1, config.getInteger("upload.parallelism", 1));
+    }
+
+    public String serializationCodec() {
+        return config.getString("serialization.codec", SerializationSupport.JDK_CODEC);
+    }
+
+    public List<String> serializationRegisteredClasses() {
+        return config.getJsonArray("serialization.registeredClasses", new JsonArray()).stream()
+                .filter(String.class::isInstance)
+                .map(String.class::cast)
+                .collect(Collectors.toList());
+    }
+
     @SuppressWarnings("unchecked")
     public Properties asProperties() {
         Properties initParameters = new Properties();
@@ -140,10 +181,48 @@ public final class VaadinOptions {
         return new VertxVaadinConfig(config, context);
     }
 
-    long sockJSHeartbeatInterval() {
+    public long sockJSHeartbeatInterval() {
         return config.getLong("sockJS.heartbeatInterval", 25L * 1000);
     }
 
+    public long pushCoalescingWindow() {
+        return Math.max(0, config.getLong("push.coalescingWindow", 0L));
+    }
+
+    public boolean pushNativeWebSocket() {
+        return getBooleanProperty("push.nativeWebSocket", false);
+    }
+
+    public boolean pushBinaryFrames() {
+        return getBooleanProperty("push.binaryFrames", false);
+    }
+
+    public boolean pushCompression() {
+        return getBooleanProperty("push.compression", false);
+    }
+
+    public boolean pushClustered() {
+        return getBooleanProperty("push.clustered", false);
+    }
+
+    public int pushWriteQueueMaxSize() {
+        return Math.max(0, config.getInteger("push.writeQueueMaxSize", 0));
+    }
+
+    public SlowConsumerPolicy pushSlowConsumerPolicy() {
+        String policy = config.getString("push.slowConsumerPolicy", SlowConsumerPolicy.COALESCE.name());
+        try {
+            return SlowConsumerPolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            logger.warn(
+                    "Invalid push.slowConsumerPolicy '{}', falling back to {}. Allowed values are {}",
+                    policy,
+                    SlowConsumerPolicy.COALESCE,
+                    Arrays.toString(SlowConsumerPolicy.values()));
+            return SlowConsumerPolicy.COALESCE;
+        }
+    }
+
     public boolean supportsSockJS() {
         return getBooleanProperty("sockJSSupport", true);
     }
@@ -26,12 +26,14 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystems;
@@ -73,6 +75,8 @@ import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.mcollovati.vertx.support.WriteStreamOutputStream;
+
 import static com.vaadin.flow.server.Constants.VAADIN_BUILD_FILES_PATH;
 import static com.vaadin.flow.server.Constants.VAADIN_MAPPING;
 import static com.vaadin.flow.server.Constants.VAADIN_WEBAPP_RESOURCES;
@@ -83,6 +87,25 @@ import static com.vaadin.flow.server.Constants.VAADIN_WEBAPP_RESOURCES;
 class VertxStaticFileServer implements Handler<RoutingContext> {
 
     static final String PROPERTY_FIX_INCORRECT_WEBJAR_PATHS = Constants.VAADIN_PREFIX + "fixIncorrectWebjarPaths";
+    /**
+     * Maximum size, in bytes, of the in-memory static resource cache. The
+     * cache is used only in production mode and is disabled by default.
+     */
+    static final String PROPERTY_RESOURCE_CACHE_SIZE = Constants.VAADIN_PREFIX + "staticResourceCache.maxSize";
+    /**
+     * Maximum size, in bytes, of a single resource stored into the in-memory
+     * static resource cache, including its precompressed variants.
+     */
+    static final String PROPERTY_RESOURCE_CACHE_MAX_ENTRY_SIZE =
+            Constants.VAADIN_PREFIX + "staticResourceCache.maxEntrySize";
+
+    /**
+     * Enables strong entity tags, computed from resource contents, for static
+     * resources in production mode. Enabled by default.
+     */
+    static final String PROPERTY_RESOURCE_ETAGS = Constants.VAADIN_PREFIX + "staticResourceETags";
+
+    private static final long DEFAULT_RESOURCE_CACHE_MAX_ENTRY_SIZE = 2 * 1024 * 1024;
     private static final Pattern INCORRECT_WEBJAR_PATH_REGEX = Pattern.compile("^/frontend[-\\w/]*/webjars/");
     // Matches paths to theme files referenced from link tags (e.g. styles
     // .css or document.css)
@@ -94,6 +117,9 @@ class VertxStaticFileServer implements Handler<RoutingContext> {
     private final DevModeHandler devModeHandler;
     private final StaticFileServer vaadinStaticFileServer;
     private ResponseWriter responseWriter;
+    private final StaticResourceCache resourceCache;
+    private final boolean etagsEnabled;
+    private volatile StaticResourceETagIndex etagIndex;
 
     // Mapped uri is for the jar file
     static final Map<URI, Integer> openFileSystems = new HashMap<>();
@@ -111,6 +137,52 @@ class VertxStaticFileServer implements Handler<RoutingContext> {
         responseWriter = new ResponseWriter(deploymentConfiguration);
         this.devModeHandler =
                 DevModeHandlerManager.getDevModeHandler(vaadinService).orElse(null);
+        this.resourceCache = createResourceCache(deploymentConfiguration);
+        this.etagsEnabled = deploymentConfiguration.isProductionMode()
+                && deploymentConfiguration.getBooleanProperty(PROPERTY_RESOURCE_ETAGS, true);
+        if (etagsEnabled) {
+            // Until the index is ready, resources are served without ETag
+            StaticResourceETagIndex.build(vaadinService.getVertx())
+                    .onSuccess(this::etagIndex)
+                    .onFailure(error -> getLogger().warn("Cannot build static resources ETag index", error));
+        }
+    }
+
+    // Package protected for testing purposes
+    void etagIndex(StaticResourceETagIndex etagIndex) {
+        this.etagIndex = etagIndex;
+        responseWriter.etagIndex(etagIndex);
+    }
+
+    private static StaticResourceCache createResourceCache(DeploymentConfiguration deploymentConfiguration) {
+        // Resources never change in production, so cached entries do not
+        // need to be revalidated
+        if (!deploymentConfiguration.isProductionMode()) {
+            return null;
+        }
+        long maxSize = getLongProperty(deploymentConfiguration, PROPERTY_RESOURCE_CACHE_SIZE, 0);
+        if (maxSize <= 0) {
+            return null;
+        }
+        long maxEntrySize = getLongProperty(
+                deploymentConfiguration,
+                PROPERTY_RESOURCE_CACHE_MAX_ENTRY_SIZE,
+                DEFAULT_RESOURCE_CACHE_MAX_ENTRY_SIZE);
+        getLogger().debug("Static resource cache enabled (max size: {}, max entry size: {})", maxSize, maxEntrySize);
+        return new StaticResourceCache(maxSize, maxEntrySize);
+    }
+
+    private static long getLongProperty(DeploymentConfiguration deploymentConfiguration, String name, long defValue) {
+        String value = deploymentConfiguration.getStringProperty(name, null);
+        if (value == null || value.isBlank()) {
+            return defValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            getLogger().warn("Invalid value '{}' for property {}. Using default {}", value, name, defValue);
+            return defValue;
+        }
     }
 
     public boolean serveStaticResource(RoutingContext routingContext) throws IOException {
@@ -129,6 +201,10 @@ class VertxStaticFileServer implements Handler<RoutingContext> {
             return true;
         }
 
+        if (resourceCache != null && serveCachedResource(filenameWithPath, routingContext)) {
+            return true;
+        }
+
         URL resourceUrl = null;
         if (deploymentConfiguration.getMode() == Mode.DEVELOPMENT_BUNDLE) {
             if (!"/index.html".equals(filenameWithPath)) {
@@ -187,12 +263,36 @@ class VertxStaticFileServer implements Handler<RoutingContext> {
 
         // There is a resource!
 
+        if (resourceCache != null && routingContext.request().getHeader("Range") == null) {
+            StaticResourceCache.CachedResource cachedResource = cacheResource(filenameWithPath, resourceUrl);
+            if (cachedResource != null) {
+                writeCachedResource(filenameWithPath, cachedResource, routingContext);
+                return true;
+            }
+        }
+
         // Intentionally writing cache headers also for 304 responses
         HttpServerResponse response = routingContext.response();
         writeCacheHeaders(filenameWithPath, response);
 
         long timestamp = writeModificationTimestamp(resourceUrl, routingContext);
-        if (browserHasNewestVersion(routingContext.request(), timestamp)) {
+        StaticResourceETagIndex index = etagIndex;
+        String etag = index != null ? index.get(filenameWithPath, resourceUrl) : null;
+        String ifNoneMatch = routingContext.request().getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (etag != null && ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since
+            String matchingETag = StaticResourceETagIndex.findMatch(
+                    ifNoneMatch,
+                    etag,
+                    responseWriter.isBrotliEnabled() ? compressedVariantETag(index, filenameWithPath + ".br") : null,
+                    compressedVariantETag(index, filenameWithPath + ".gz"));
+            if (matchingETag != null) {
+                response.putHeader(HttpHeaders.ETAG, matchingETag);
+                response.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+                routingContext.end();
+                return true;
+            }
+        } else if (browserHasNewestVersion(routingContext.request(), timestamp)) {
             // Browser is up to date, nothing further to do than set the
             // response code
             response.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
@@ -200,23 +300,161 @@ class VertxStaticFileServer implements Handler<RoutingContext> {
             return true;
         }
         responseWriter.writeResponseContents(filenameWithPath, resourceUrl, routingContext);
-        routingContext.end();
         return true;
     }
 
+    private String compressedVariantETag(StaticResourceETagIndex index, String filenameWithPath) {
+        URL url = responseWriter.findCompressedResource(filenameWithPath);
+        return url != null ? index.get(filenameWithPath, url) : null;
+    }
+
     static final String UNSAFE_PATH_ERROR_MESSAGE_PATTERN = "Blocked attempt to access file: {}";
 
     @Override
     public void handle(RoutingContext routingContext) {
+        if (resourceCache != null && serveCachedResource(getRequestFilename(routingContext), routingContext)) {
+            return;
+        }
+        // Resource lookup may hit the classpath or read JAR entries, so it
+        // must not run on the event loop; requests do not need to be ordered
+        routingContext
+                .vertx()
+                .<Boolean>executeBlocking(
+                        promise -> {
+                            try {
+                                promise.complete(serveStaticResource(routingContext));
+                            } catch (IOException e) {
+                                promise.fail(e);
+                            }
+                        },
+                        false,
+                        result -> {
+                            if (result.failed()) {
+                                routingContext.fail(result.cause());
+                            } else if (!result.result()) {
+                                routingContext.next();
+                            }
+                        });
+    }
+
+    /**
+     * Serves the requested resource from the in-memory cache, if available.
+     * <p>
+     * Range requests are never served from the cache.
+     *
+     * @param filenameWithPath the name and path of the requested file
+     * @param routingContext   the routing context
+     * @return {@code true} if the resource has been served from the cache,
+     * otherwise {@code false}
+     */
+    private boolean serveCachedResource(String filenameWithPath, RoutingContext routingContext) {
+        if (routingContext.request().getHeader("Range") != null) {
+            return false;
+        }
+        StaticResourceCache.CachedResource cachedResource = resourceCache.get(filenameWithPath);
+        if (cachedResource == null) {
+            return false;
+        }
+        writeCachedResource(filenameWithPath, cachedResource, routingContext);
+        return true;
+    }
+
+    private void writeCachedResource(
+            String filenameWithPath, StaticResourceCache.CachedResource cachedResource, RoutingContext routingContext) {
+        // Intentionally writing cache headers also for 304 responses
+        HttpServerResponse response = routingContext.response();
+        writeCacheHeaders(filenameWithPath, response);
+
+        long timestamp = cachedResource.lastModified();
+        if (timestamp >= 0) {
+            response.putHeader(HttpHeaders.LAST_MODIFIED, HttpUtils.formatDateHeader(timestamp));
+        }
+        String ifNoneMatch = etagsEnabled ? routingContext.request().getHeader(HttpHeaders.IF_NONE_MATCH) : null;
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since
+            String matchingETag = StaticResourceETagIndex.findMatch(
+                    ifNoneMatch,
+                    cachedResource.etag(),
+                    responseWriter.isBrotliEnabled() ? cachedResource.brotliETag() : null,
+                    cachedResource.gzipETag());
+            if (matchingETag != null) {
+                response.putHeader(HttpHeaders.ETAG, matchingETag);
+                response.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+                routingContext.end();
+                return;
+            }
+        } else if (browserHasNewestVersion(routingContext.request(), timestamp)) {
+            response.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+            routingContext.end();
+            return;
+        }
+        responseWriter.writeCachedContents(cachedResource, etagsEnabled, routingContext);
+    }
+
+    /**
+     * Reads the contents of the given resource, and of its precompressed
+     * variants, and stores them into the in-memory cache.
+     *
+     * @param filenameWithPath the name and path of the requested file
+     * @param resourceUrl      the URL of the resource
+     * @return the cached resource, or {@code null} if the resource cannot be
+     * cached.
+     */
+    private StaticResourceCache.CachedResource cacheResource(String filenameWithPath, URL resourceUrl) {
+        long maxEntrySize = resourceCache.maxEntrySize();
         try {
-            if (!serveStaticResource(routingContext)) {
-                routingContext.next();
+            URLConnection connection = resourceUrl.openConnection();
+            long lastModifiedTime = connection.getLastModified();
+            // Remove milliseconds to avoid comparison problems; 0 means that
+            // the modification time is not known
+            lastModifiedTime = lastModifiedTime > 0 ? lastModifiedTime - lastModifiedTime % 1000 : -1;
+            Buffer content;
+            try (InputStream dataStream = connection.getInputStream()) {
+                if (connection.getContentLengthLong() > maxEntrySize) {
+                    return null;
+                }
+                content = readContent(dataStream, maxEntrySize);
+            }
+            if (content == null) {
+                return null;
+            }
+            Buffer brotliContent = responseWriter.isBrotliEnabled()
+                    ? readCompressedContent(filenameWithPath + ".br", maxEntrySize)
+                    : null;
+            Buffer gzipContent = readCompressedContent(filenameWithPath + ".gz", maxEntrySize);
+            StaticResourceCache.CachedResource cachedResource = new StaticResourceCache.CachedResource(
+                    content, brotliContent, gzipContent, lastModifiedTime, HttpUtils.getMimeType(filenameWithPath));
+            if (etagsEnabled) {
+                // compute tags here, to avoid hashing on the event loop
+                cachedResource.etag();
+                cachedResource.brotliETag();
+                cachedResource.gzipETag();
+            }
+            if (resourceCache.put(filenameWithPath, cachedResource)) {
+                return cachedResource;
             }
         } catch (IOException e) {
-            routingContext.fail(e);
+            getLogger().debug("Cannot cache static resource {}", filenameWithPath, e);
+        }
+        return null;
+    }
+
+    private Buffer readCompressedContent(String filenameWithPath, long maxLength) throws IOException {
+        URL url = responseWriter.findCompressedResource(filenameWithPath);
+        if (url == null) {
+            return null;
+        }
+        try (InputStream dataStream = url.openStream()) {
+            return readContent(dataStream, maxLength);
         }
     }
 
+    private static Buffer readContent(InputStream dataStream, long maxLength) throws IOException {
+        int limit = (int) Math.min(maxLength, Integer.MAX_VALUE - 8);
+        byte[] data = dataStream.readNBytes(limit + 1);
+        return data.length > limit ? null : Buffer.buffer(data);
+    }
+
     /**
      * Returns the (decoded) requested file name, relative to the context path.
      * <p>
@@ -636,6 +874,7 @@ class ResponseWriter implements Serializable {
 
     private final int bufferSize;
     private final boolean brotliEnabled;
+    private transient volatile StaticResourceETagIndex etagIndex;
 
 
     /**
@@ -654,7 +893,12 @@ class ResponseWriter implements Serializable {
 
     /**
      * Writes the contents and content type (if available) of the given
-     * resourceUrl to the response.
+     * resourceUrl to the response and completes it.
+     * <p>
+     * Resources resolved to a regular file on the filesystem are transferred
+     * with {@link HttpServerResponse#sendFile(String, Handler)}, so that the
+     * contents are never copied through the heap; other resources (e.g.
+     * embedded in a JAR) are streamed from their {@link URLConnection}.
      * <p>
      * WARNING: note that this should not be used for a {@code resourceUrl} that
      * represents a directory! For security reasons, the directory contents
@@ -673,70 +917,176 @@ class ResponseWriter implements Serializable {
             throws IOException {
         writeContentType(filenameWithPath, routingContext);
 
-        URL url = null;
-        URLConnection connection = null;
-        InputStream dataStream = null;
-
         HttpServerRequest request = routingContext.request();
         HttpServerResponse response = routingContext.response();
+        URL url = null;
+        String servedFilenameWithPath = filenameWithPath;
         if (brotliEnabled && acceptsBrotliResource(request)) {
-            String brotliFilenameWithPath = filenameWithPath + ".br";
-            try {
-                url = getResource(brotliFilenameWithPath);
-                if (url != null) {
-                    connection = url.openConnection();
-                    dataStream = connection.getInputStream();
-                    response.putHeader(HttpHeaders.CONTENT_ENCODING, "br");
-                }
-            } catch (Exception e) {
-                getLogger().debug("Unexpected exception looking for Brotli resource {}", brotliFilenameWithPath, e);
+            servedFilenameWithPath = filenameWithPath + ".br";
+            url = findCompressedResource(servedFilenameWithPath);
+            if (url != null) {
+                response.putHeader(HttpHeaders.CONTENT_ENCODING, "br");
             }
         }
 
-        if (dataStream == null && acceptsGzippedResource(request)) {
+        if (url == null && acceptsGzippedResource(request)) {
             // try to serve a gzipped version if available
-            String gzippedFilenameWithPath = filenameWithPath + ".gz";
-            try {
-                url = getResource(gzippedFilenameWithPath);
-                if (url != null) {
-                    connection = url.openConnection();
-                    dataStream = connection.getInputStream();
-                    response.putHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
-                }
-            } catch (Exception e) {
-                getLogger().debug("Unexpected exception looking for gzipped resource {}", gzippedFilenameWithPath, e);
+            servedFilenameWithPath = filenameWithPath + ".gz";
+            url = findCompressedResource(servedFilenameWithPath);
+            if (url != null) {
+                response.putHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
             }
         }
 
-        if (dataStream == null) {
+        if (url == null) {
             // compressed resource not available, get non compressed
             url = resourceUrl;
-            connection = resourceUrl.openConnection();
-            dataStream = connection.getInputStream();
+            servedFilenameWithPath = filenameWithPath;
         } else {
             response.putHeader(HttpHeaders.VARY, "Accept-Encoding");
         }
+        writeETag(servedFilenameWithPath, url, response);
 
-        try {
-            String range = request.getHeader("Range");
-            if (range != null) {
-                closeStream(dataStream);
-                dataStream = null;
-                writeRangeContents(range, response, url);
-            } else {
-                final long contentLength = connection.getContentLengthLong();
-                if (0 <= contentLength) {
-                    setContentLength(response, contentLength);
+        String range = request.getHeader("Range");
+        if (range != null) {
+            try {
+                if (writeRangeContents(range, response, url)) {
+                    return;
                 }
-                writeStream(response, dataStream, Long.MAX_VALUE);
+            } catch (IOException e) {
+                getLogger().debug("Error writing static file to user", e);
+            }
+            routingContext.end();
+            return;
+        }
+
+        File file = toRegularFile(url);
+        if (file != null) {
+            sendFile(file, response);
+            return;
+        }
+
+        URLConnection connection = url.openConnection();
+        InputStream dataStream = connection.getInputStream();
+        try {
+            final long contentLength = connection.getContentLengthLong();
+            if (0 <= contentLength) {
+                setContentLength(response, contentLength);
+            }
+            try (OutputStream outputStream = new WriteStreamOutputStream(response, bufferSize)) {
+                writeStream(outputStream, dataStream, Long.MAX_VALUE);
             }
         } catch (IOException e) {
             getLogger().debug("Error writing static file to user", e);
         } finally {
-            if (dataStream != null) {
-                closeStream(dataStream);
-            }
+            closeStream(dataStream);
         }
+        routingContext.end();
+    }
+
+    /**
+     * Sets the index used to look up the entity tags of the served resources.
+     *
+     * @param etagIndex the entity tags index
+     */
+    void etagIndex(StaticResourceETagIndex etagIndex) {
+        this.etagIndex = etagIndex;
+    }
+
+    private void writeETag(String filenameWithPath, URL url, HttpServerResponse response) {
+        StaticResourceETagIndex index = etagIndex;
+        String etag = index != null ? index.get(filenameWithPath, url) : null;
+        if (etag != null) {
+            response.putHeader(HttpHeaders.ETAG, etag);
+        }
+    }
+
+    /**
+     * Writes the contents of a cached resource to the response and completes
+     * it, choosing the best precompressed variant accepted by the browser.
+     *
+     * @param cachedResource the cached resource
+     * @param writeETag      whether the entity tag of the served content
+     *                       should be written
+     * @param routingContext the routing context
+     */
+    void writeCachedContents(
+            StaticResourceCache.CachedResource cachedResource, boolean writeETag, RoutingContext routingContext) {
+        HttpServerRequest request = routingContext.request();
+        HttpServerResponse response = routingContext.response();
+        if (cachedResource.contentType() != null) {
+            response.putHeader(HttpHeaders.CONTENT_TYPE, cachedResource.contentType());
+        }
+        Buffer content = null;
+        String etag = null;
+        if (brotliEnabled && cachedResource.brotliContent() != null && acceptsBrotliResource(request)) {
+            content = cachedResource.brotliContent();
+            etag = writeETag ? cachedResource.brotliETag() : null;
+            response.putHeader(HttpHeaders.CONTENT_ENCODING, "br");
+        } else if (cachedResource.gzipContent() != null && acceptsGzippedResource(request)) {
+            content = cachedResource.gzipContent();
+            etag = writeETag ? cachedResource.gzipETag() : null;
+            response.putHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (content == null) {
+            content = cachedResource.content();
+            etag = writeETag ? cachedResource.etag() : null;
+        } else {
+            response.putHeader(HttpHeaders.VARY, "Accept-Encoding");
+        }
+        if (etag != null) {
+            response.putHeader(HttpHeaders.ETAG, etag);
+        }
+        routingContext.end(content);
+    }
+
+    boolean isBrotliEnabled() {
+        return brotliEnabled;
+    }
+
+    URL findCompressedResource(String filenameWithPath) {
+        try {
+            return getResource(filenameWithPath);
+        } catch (Exception e) {
+            getLogger().debug("Unexpected exception looking for compressed resource {}", filenameWithPath, e);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the filesystem file for the given resource URL, if the resource
+     * is a regular file that can be transferred with zero-copy.
+     *
+     * @param url the resource URL
+     * @return the file for the resource, or {@code null} if the resource is
+     * not a regular file on the filesystem
+     */
+    private static File toRegularFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void sendFile(File file, HttpServerResponse response) {
+        response.sendFile(file.getAbsolutePath(), ar -> {
+            if (ar.failed()) {
+                getLogger().debug("Error sending static file {} to user", file, ar.cause());
+            }
+        });
+    }
+
+    private void sendFile(File file, long offset, long length, HttpServerResponse response) {
+        response.sendFile(file.getAbsolutePath(), offset, length, ar -> {
+            if (ar.failed()) {
+                getLogger().debug("Error sending static file {} range to user", file, ar.cause());
+            }
+        });
     }
 
     private void closeStream(Closeable stream) {
@@ -755,8 +1105,15 @@ class ResponseWriter implements Serializable {
      * response code is 206, otherwise it is 416. See e.g.
      * https://developer.mozilla.org/en-US/docs/Web/HTTP/Range_requests for
      * protocol details.
+     * <p>
+     * A single range of a resource on the filesystem is transferred with
+     * {@link HttpServerResponse#sendFile(String, long, long, Handler)}.
+     *
+     * @return {@code true} if the response has been completed, otherwise
+     * {@code false}
      */
-    private void writeRangeContents(String range, HttpServerResponse response, URL resourceURL) throws IOException {
+    private boolean writeRangeContents(String range, HttpServerResponse response, URL resourceURL)
+            throws IOException {
         response.putHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 
         URLConnection connection = resourceURL.openConnection();
@@ -765,7 +1122,7 @@ class ResponseWriter implements Serializable {
         if (!headerMatcher.matches()) {
             response.putHeader(HttpHeaders.CONTENT_LENGTH, "0");
             response.setStatusCode(416); // Range Not Satisfiable
-            return;
+            return false;
         }
         String byteRanges = headerMatcher.group(1);
 
@@ -780,7 +1137,7 @@ class ResponseWriter implements Serializable {
                 response.putHeader(HttpHeaders.CONTENT_LENGTH, "0");
                 response.setStatusCode(416); // Range Not Satisfiable
                 getLogger().info("received a malformed range: '{}'", rangeMatcher.group());
-                return;
+                return false;
             }
             long start = startGroup.isEmpty() ? 0L : Long.parseLong(startGroup);
             long end = endGroup.isEmpty() ? Long.MAX_VALUE : Long.parseLong(endGroup);
@@ -789,7 +1146,7 @@ class ResponseWriter implements Serializable {
                 getLogger().info("received an illegal range '{}' for resource '{}'", rangeMatcher.group(), resourceURL);
                 response.putHeader(HttpHeaders.CONTENT_LENGTH, "0");
                 response.setStatusCode(416);
-                return;
+                return false;
             }
             ranges.push(new Pair<>(start, end));
 
@@ -816,17 +1173,23 @@ class ResponseWriter implements Serializable {
             setContentLength(response, end - start + 1);
             response.putHeader(HttpHeaders.CONTENT_RANGE, createContentRangeHeader(start, end, resourceLength));
 
+            File file = toRegularFile(resourceURL);
+            if (file != null) {
+                sendFile(file, start, end - start + 1, response);
+                return true;
+            }
             final InputStream dataStream = connection.getInputStream();
-            try {
+            try (OutputStream outputStream = new WriteStreamOutputStream(response, bufferSize)) {
                 long skipped = dataStream.skip(start);
                 assert (skipped == start);
-                writeStream(response, dataStream, end - start + 1);
+                writeStream(outputStream, dataStream, end - start + 1);
             } finally {
                 closeStream(dataStream);
             }
         } else {
             writeMultipartRangeContents(ranges, connection, response, resourceURL);
         }
+        return false;
     }
 
     /**
@@ -844,17 +1207,19 @@ class ResponseWriter implements Serializable {
         long position = 0L;
         String mimeType = response.headers().get(HttpHeaders.CONTENT_TYPE);
         InputStream dataStream = connection.getInputStream();
-        try {
+        try (OutputStream outputStream = new WriteStreamOutputStream(response, bufferSize)) {
             for (Pair<Long, Long> rangePair : ranges) {
-                response.write(String.format("\r\n--%s\r\n", partBoundary));
+                writeString(outputStream, String.format("\r\n--%s\r\n", partBoundary));
                 long start = rangePair.getFirst();
                 long end = rangePair.getSecond();
                 if (mimeType != null) {
-                    response.write(String.format("Content-Type: %s\r\n", mimeType));
+                    writeString(outputStream, String.format("Content-Type: %s\r\n", mimeType));
                 }
-                response.write(String.format(
-                        "Content-Range: %s\r\n\r\n",
-                        createContentRangeHeader(start, end, connection.getContentLengthLong())));
+                writeString(
+                        outputStream,
+                        String.format(
+                                "Content-Range: %s\r\n\r\n",
+                                createContentRangeHeader(start, end, connection.getContentLengthLong())));
 
                 if (position > start) {
                     // out-of-sequence range -> open new stream to the file
@@ -866,13 +1231,17 @@ class ResponseWriter implements Serializable {
                 }
                 long skipped = dataStream.skip(start - position);
                 assert (skipped == start - position);
-                writeStream(response, dataStream, end - start + 1);
+                writeStream(outputStream, dataStream, end - start + 1);
                 position = end + 1;
             }
+            writeString(outputStream, String.format("\r\n--%s", partBoundary));
         } finally {
             closeStream(dataStream);
         }
-        response.write(String.format("\r\n--%s", partBoundary));
+    }
+
+    private static void writeString(OutputStream outputStream, String value) throws IOException {
+        outputStream.write(value.getBytes(StandardCharsets.UTF_8));
     }
 
     private String createContentRangeHeader(long start, long end, long size) {
@@ -942,7 +1311,14 @@ class ResponseWriter implements Serializable {
         return true;
     }
 
-    private void writeStream(HttpServerResponse response, InputStream dataStream, long count) throws IOException {
+    /**
+     * Copies at most {@code count} bytes from the given input stream.
+     * <p>
+     * The output stream is expected to apply the response back-pressure, so
+     * that the content is never fully buffered in memory, even for slow
+     * clients.
+     */
+    private void writeStream(OutputStream outputStream, InputStream dataStream, long count) throws IOException {
 
         final byte[] buffer = new byte[bufferSize];
 
@@ -950,9 +1326,7 @@ class ResponseWriter implements Serializable {
         int bytes;
         while (bytesTotal < count
                 && (bytes = dataStream.read(buffer, 0, (int) Long.min(bufferSize, count - bytesTotal))) >= 0) {
-            Buffer bf = Buffer.buffer(bufferSize);
-            bf.appendBytes(buffer, 0, bytes);
-            response.write(bf);
+            outputStream.write(buffer, 0, bytes);
             bytesTotal += bytes;
         }
     }
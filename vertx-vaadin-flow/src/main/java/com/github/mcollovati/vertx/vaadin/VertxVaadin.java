@@ -24,14 +24,18 @@ package com.github.mcollovati.vertx.vaadin;
 
 import jakarta.servlet.ServletContext;
 import java.lang.invoke.MethodHandles;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import com.vaadin.base.devserver.ViteHandler;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.internal.ApplicationClassLoaderAccess;
 import com.vaadin.flow.internal.CurrentInstance;
@@ -42,6 +46,7 @@ import com.vaadin.flow.server.Constants;
 import com.vaadin.flow.server.VaadinContext;
 import com.vaadin.flow.server.VaadinServlet;
 import com.vaadin.flow.server.WrappedSession;
+import com.vaadin.flow.server.communication.StreamRequestHandler;
 import com.vaadin.flow.shared.ApplicationConstants;
 import com.vaadin.flow.shared.Registration;
 import io.vertx.core.Handler;
@@ -52,9 +57,13 @@ import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.eventbus.MessageProducer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.Session;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.handler.StaticHandler;
@@ -64,7 +73,9 @@ import org.slf4j.LoggerFactory;
 
 import com.github.mcollovati.vertx.Sync;
 import com.github.mcollovati.vertx.http.HttpReverseProxy;
+import com.github.mcollovati.vertx.support.KeyedSerialExecutor;
 import com.github.mcollovati.vertx.support.StartupContext;
+import com.github.mcollovati.vertx.support.VirtualThreads;
 import com.github.mcollovati.vertx.vaadin.communication.VertxDebugWindowConnection;
 import com.github.mcollovati.vertx.vaadin.connect.VaadinConnectHandler;
 import com.github.mcollovati.vertx.vaadin.devserver.DevServerWebSocketProxy;
@@ -89,8 +100,14 @@ public class VertxVaadin {
 
     private DevServerWebSocketProxy devServerWebSocketProxy;
 
+    private SockJSPushHandler pushHandler;
+
     private final ExtendedSessionStore sessionStore;
 
+    private final ExecutorService virtualThreadExecutor;
+
+    private final KeyedSerialExecutor<String> sessionQueue;
+
     static {
         String version = "0.0.0";
         Properties properties = new Properties();
@@ -116,8 +133,19 @@ public class VertxVaadin {
 
             if (config.supportsSockJS()) {
                 logger.trace("Configuring SockJS Push connection");
-                service.addUIInitListener(event ->
-                        event.getUI().getInternals().setPushConnection(new SockJSPushConnection(event.getUI())));
+                long coalescingWindow = config.pushCoalescingWindow();
+                boolean nativeWebSocket = config.pushNativeWebSocket();
+                boolean compression = nativeWebSocket && config.pushCompression();
+                service.addUIInitListener(event -> {
+                    UI ui = event.getUI();
+                    ui.getInternals().setPushConnection(new SockJSPushConnection(ui, coalescingWindow));
+                    if (nativeWebSocket) {
+                        ui.getPushConfiguration().setParameter(SockJSPushHandler.NATIVE_WEBSOCKET_PARAMETER, "true");
+                    }
+                    if (compression) {
+                        ui.getPushConfiguration().setParameter(SockJSPushHandler.COMPRESSION_PARAMETER, "true");
+                    }
+                });
             }
 
             logger.trace("Setup WebJar server");
@@ -127,6 +155,8 @@ public class VertxVaadin {
                 throw new VertxException("Cannot initialize Vaadin service", ex);
             }
 
+            virtualThreadExecutor = createVirtualThreadExecutor();
+            sessionQueue = createSessionQueue();
             this.sessionStore = withSessionExpirationHandler(service, sessionStore.orElseGet(this::createSessionStore));
             configureSessionStore();
             vaadinRouter = Router.router(vertx);
@@ -189,6 +219,63 @@ public class VertxVaadin {
         return function.apply(startupContext);
     }
 
+    private ExecutorService createVirtualThreadExecutor() {
+        if (!config.virtualThreadsEnabled()) {
+            return null;
+        }
+        ExecutorService executor = VirtualThreads.newExecutor().orElse(null);
+        if (executor == null) {
+            logger.warn("Virtual threads are not supported by the running JVM, Vaadin requests will be "
+                    + "handled by the worker pool");
+            return null;
+        }
+        logger.info("Vaadin requests will be handled by virtual threads");
+        service.addServiceDestroyListener(event -> executor.shutdown());
+        return executor;
+    }
+
+    private KeyedSerialExecutor<String> createSessionQueue() {
+        if (!config.sessionQueueEnabled()) {
+            return null;
+        }
+        Executor executor = virtualThreadExecutor != null ? virtualThreadExecutor : this::executeOnWorker;
+        logger.info(
+                "Vaadin requests will be serialized per session, with at most {} pending requests",
+                config.sessionQueueMaxPending());
+        return new KeyedSerialExecutor<>(executor, config.sessionQueueMaxPending());
+    }
+
+    private void executeOnWorker(Runnable task) {
+        // tasks ordering is handled by the caller, there is no need to
+        // serialize blocking code on the calling context
+        vertx.executeBlocking(
+                promise -> {
+                    task.run();
+                    promise.complete();
+                },
+                false);
+    }
+
+    /**
+     * Gets the executor running Vaadin requests, push and endpoint calls on
+     * virtual threads, if enabled by configuration and supported by the JVM.
+     *
+     * @return the virtual threads executor, or an empty optional if tasks are
+     *         executed by the Vert.x worker pool.
+     */
+    Optional<Executor> virtualThreadExecutor() {
+        return Optional.ofNullable(virtualThreadExecutor);
+    }
+
+    /**
+     * Gets a snapshot of the push sockets metrics.
+     *
+     * @return the push metrics, empty if push over SockJS is not supported.
+     */
+    JsonObject pushMetrics() {
+        return pushHandler != null ? pushHandler.metrics() : new JsonObject();
+    }
+
     VertxVaadinContext newVaadinContext() {
         return (VertxVaadinContext) startupContext.getVaadinContext();
     }
@@ -247,11 +334,24 @@ public class VertxVaadin {
 
     protected ExtendedSessionStore createSessionStore() {
         if (vertx.isClustered()) {
-            return NearCacheSessionStore.create(vertx);
+            return NearCacheSessionStore.create(vertx, sessionStoreOptions());
         }
         return ExtendedLocalSessionStore.create(vertx);
     }
 
+    // serialization settings are scoped to the store, so that instances with
+    // different configurations do not affect each other
+    private JsonObject sessionStoreOptions() {
+        JsonObject options = config.sessionStoreOptions().copy();
+        if (!options.containsKey("serializationCodec")) {
+            options.put("serializationCodec", config.serializationCodec());
+        }
+        if (!options.containsKey("serializationRegisteredClasses")) {
+            options.put("serializationRegisteredClasses", new JsonArray(config.serializationRegisteredClasses()));
+        }
+        return options;
+    }
+
     private void initRouters() {
         logger.debug("Initializing router");
         String sessionCookieName = sessionCookieName();
@@ -274,7 +374,26 @@ public class VertxVaadin {
                 .setStatusCode(302)
                 .end());
 
-        vaadinRouter.route().handler(BodyHandler.create());
+        DevModeHandler devModeHandler =
+                DevModeHandlerManager.getDevModeHandler(service).orElse(null);
+        boolean devServerProxy = devModeHandler != null && devModeHandler.getPort() >= 0;
+
+        // Buffer the body only for requests that need the whole content up front
+        // (multipart uploads, push transports and dev-server proxy); other Vaadin
+        // requests are paused here and the body is streamed when it is read.
+        // Routes that do not read the body, such as static resources, leave it
+        // paused, so it is discarded once the response has been sent.
+        BodyHandler bodyHandler = BodyHandler.create().setDeleteUploadedFilesOnEnd(true);
+        vaadinRouter.route().handler(ctx -> {
+            if (devServerProxy || requiresBufferedBody(ctx.request())) {
+                bodyHandler.handle(ctx);
+            } else {
+                ctx.request().pause();
+                ctx.put(VertxVaadinRequest.STREAMING_BODY, Boolean.TRUE);
+                ctx.addBodyEndHandler(unused -> discardUnreadBody(ctx.request()));
+                ctx.next();
+            }
+        });
 
         // Disable SessionHandler for /VAADIN/ static resources
         vaadinRouter
@@ -288,9 +407,7 @@ public class VertxVaadin {
                 .handler(ctx ->
                         ctx.response().sendFile(pushJavascript + ctx.request().getParam("suffix")));
 
-        DevModeHandler devModeHandler =
-                DevModeHandlerManager.getDevModeHandler(service).orElse(null);
-        if (devModeHandler != null && devModeHandler.getPort() >= 0) {
+        if (devServerProxy) {
             logger.info("Starting DevModeHandler proxy");
             HttpReverseProxy proxy = HttpReverseProxy.create(vertx, devModeHandler);
             vaadinRouter.routeWithRegex("^/themes\\/[\\s\\S]+?\\/").handler(proxy::forward);
@@ -308,11 +425,60 @@ public class VertxVaadin {
         VertxStaticFileServer staticFileServer = new VertxStaticFileServer(service);
         vaadinRouter.route("/*").handler(staticFileServer);
         vaadinRouter.routeWithRegex("/.+").handler(StaticHandler.create("META-INF/resources"));
-        vaadinRouter.route("/*").blockingHandler(this::handleVaadinRequest);
+        if (sessionQueue != null) {
+            vaadinRouter.route("/*").handler(this::dispatchVaadinRequest);
+        } else if (virtualThreadExecutor != null) {
+            vaadinRouter.route("/*").handler(ctx -> virtualThreadExecutor.execute(() -> handleVaadinRequest(ctx)));
+        } else {
+            vaadinRouter.route("/*").blockingHandler(this::handleVaadinRequest);
+        }
 
         serviceInitialized(vaadinRouter);
     }
 
+    private static void discardUnreadBody(HttpServerRequest request) {
+        if (!request.isEnded()) {
+            request.handler(null);
+            request.resume();
+        }
+    }
+
+    private static boolean requiresBufferedBody(HttpServerRequest request) {
+        String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+        return (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/"))
+                || ApplicationConstants.REQUEST_TYPE_PUSH.equals(
+                        request.getParam(ApplicationConstants.REQUEST_TYPE_PARAMETER));
+    }
+
+    /*
+     * Requests of the same session are handled one at a time, so that they do
+     * not hold threads just waiting for the session lock. Requests of different
+     * sessions, as well as downloads and uploads that do not need the lock for
+     * their whole duration, run concurrently.
+     */
+    private void dispatchVaadinRequest(RoutingContext routingContext) {
+        Session session = routingContext.session();
+        Runnable task = () -> handleVaadinRequest(routingContext);
+        if (session == null || isStreamRequest(routingContext)) {
+            if (virtualThreadExecutor != null) {
+                virtualThreadExecutor.execute(task);
+            } else {
+                executeOnWorker(task);
+            }
+        } else if (!sessionQueue.execute(session.id(), task)) {
+            logger.debug(
+                    "Too many pending requests for session {}, rejecting {}",
+                    session.id(),
+                    routingContext.request().uri());
+            HttpServerResponse response = routingContext.response();
+            response.setStatusCode(503).putHeader("Retry-After", "1").end();
+        }
+    }
+
+    private static boolean isStreamRequest(RoutingContext routingContext) {
+        return HttpUtils.pathInfo(routingContext).startsWith("/" + StreamRequestHandler.DYN_RES_PREFIX);
+    }
+
     private void handleVaadinRequest(RoutingContext routingContext) {
         CurrentInstance.clearAll();
         VertxVaadinRequest request = new VertxVaadinRequest(service, routingContext);
@@ -322,10 +488,19 @@ public class VertxVaadin {
             service.handleRequest(request, response);
             logger.trace(
                     "Vaadin request completed: {}", routingContext.request().uri());
-            response.end();
+            if (!response.isAborted()) {
+                response.end();
+            }
         } catch (Exception ex) {
             logger.error("Error processing request {}", routingContext.request().uri(), ex);
-            routingContext.fail(ex);
+            if (!response.isAborted()) {
+                routingContext.fail(ex);
+            }
+        } finally {
+            // content is left in the pooled buffer if the response has not
+            // been ended, for example on failures
+            response.discard();
+            request.discardUnreadBody();
         }
     }
 
@@ -346,21 +521,27 @@ public class VertxVaadin {
 
             SockJSHandlerOptions options = new SockJSHandlerOptions()
                     .setRegisterWriteHandler(true)
+                    // other nodes push through the socket send address, that acknowledges
+                    // delivery, so write handlers are never needed cluster-wide
+                    .setLocalWriteHandler(true)
                     .setSessionTimeout(config.sessionTimeout())
                     .setHeartbeatInterval(config.sockJSHeartbeatInterval());
             SockJSHandler sockJSHandler = SockJSHandler.create(vertx, options);
 
-            SockJSPushHandler pushHandler = new SockJSPushHandler(service, sessionHandler, sockJSHandler);
+            pushHandler = new SockJSPushHandler(service, sessionHandler, sockJSHandler, sessionStore);
 
             String pushPath = config.pushURL().replaceFirst("/$", "") + "/*";
             logger.debug("Setup PUSH communication on {}", pushPath);
 
+            boolean nativeWebSocket = config.pushNativeWebSocket();
             vaadinRouter.route(pushPath).handler(rc -> {
-                if (ApplicationConstants.REQUEST_TYPE_PUSH.equals(
+                if (!ApplicationConstants.REQUEST_TYPE_PUSH.equals(
                         rc.request().getParam(ApplicationConstants.REQUEST_TYPE_PARAMETER))) {
-                    pushHandler.handle(rc);
-                } else {
                     rc.next();
+                } else if (nativeWebSocket && rc.request().path().endsWith(SockJSPushHandler.NATIVE_WEBSOCKET_PATH)) {
+                    pushHandler.handleWebSocket(rc);
+                } else {
+                    pushHandler.handle(rc);
                 }
             });
         } else {
@@ -23,12 +23,14 @@
 package com.github.mcollovati.vertx.vaadin;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -53,6 +55,8 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
 import com.github.mcollovati.vertx.Sync;
+import com.github.mcollovati.vertx.support.BufferInputStreamAdapter;
+import com.github.mcollovati.vertx.support.ReadStreamInputStream;
 import com.github.mcollovati.vertx.web.ExtendedSession;
 
 import static java.util.stream.Collectors.toList;
@@ -67,9 +71,16 @@ public class VertxVaadinRequest implements VaadinRequest {
     private static final Pattern CHARSET_PATTERN =
             Pattern.compile("^.*(?<=charset=)([^;]+)(?:;.*$|$)", Pattern.CASE_INSENSITIVE);
 
+    /**
+     * Routing context key marking requests whose body has not been buffered and
+     * must be read as a stream from the paused {@link HttpServerRequest}.
+     */
+    public static final String STREAMING_BODY = VertxVaadinRequest.class.getName() + ".streamingBody";
+
     private final VertxVaadinService service;
     private final RoutingContext routingContext;
     private final HttpServerRequest request;
+    private InputStream inputStream;
 
     public VertxVaadinRequest(VertxVaadinService service, RoutingContext routingContext) {
         this.service = service;
@@ -106,12 +117,63 @@ public class VertxVaadinRequest implements VaadinRequest {
 
     @Override
     public int getContentLength() {
-        return routingContext.getBody().length();
+        if (!isStreamingBody()) {
+            return routingContext.getBody().length();
+        }
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        try {
+            return contentLength != null ? Integer.parseInt(contentLength) : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
     }
 
+    /**
+     * Gets the request body as a stream.
+     * <p>
+     * If the request has been marked with {@link #STREAMING_BODY} data is read
+     * directly from the underlying {@link HttpServerRequest}, that is expected
+     * to be paused until this method is called; the body can then be read only
+     * once and the returned stream blocks waiting for data, so it must not be
+     * consumed on an event loop thread. Otherwise the stream reads the content
+     * buffered by a {@link io.vertx.ext.web.handler.BodyHandler}.
+     *
+     * @return the request body as a stream.
+     * @throws IOException if an I/O error occurs.
+     */
     @Override
     public InputStream getInputStream() throws IOException {
-        return new ByteArrayInputStream(routingContext.getBody().getBytes());
+        if (!isStreamingBody()) {
+            return new BufferInputStreamAdapter(routingContext.getBody());
+        }
+        if (inputStream == null) {
+            inputStream = request.isEnded()
+                    ? InputStream.nullInputStream()
+                    : new ReadStreamInputStream(request);
+        }
+        return inputStream;
+    }
+
+    private boolean isStreamingBody() {
+        return Boolean.TRUE.equals(routingContext.get(STREAMING_BODY));
+    }
+
+    /**
+     * Drops the part of a streaming body that has not been read, resuming the
+     * paused request so that the connection can be reused.
+     */
+    void discardUnreadBody() {
+        if (isStreamingBody() && !request.isEnded()) {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+            request.handler(null);
+            request.resume();
+        }
     }
 
     @Override
@@ -275,7 +337,12 @@ public class VertxVaadinRequest implements VaadinRequest {
 
     @Override
     public BufferedReader getReader() throws IOException {
-        return new BufferedReader(new StringReader(routingContext.getBodyAsString()));
+        if (!isStreamingBody()) {
+            return new BufferedReader(new StringReader(routingContext.getBodyAsString()));
+        }
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
     }
 
     @Override
@@ -26,12 +26,18 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.nio.CharBuffer;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 
 import com.vaadin.flow.server.VaadinResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerResponse;
@@ -39,6 +45,8 @@ import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.mcollovati.vertx.support.WriteStreamOutputStream;
+
 /**
  * Created by marco on 16/07/16.
  */
@@ -46,12 +54,17 @@ public class VertxVaadinResponse implements VaadinResponse {
 
     private static final Logger logger = LoggerFactory.getLogger(VertxVaadinResponse.class);
 
+    static final int STREAMING_CHUNK_SIZE = 32 * 1024;
+    private static final int INITIAL_BUFFER_CAPACITY = 8 * 1024;
+
     private final RoutingContext routingContext;
     private final HttpServerResponse response;
     private final VertxVaadinService service;
-    private Buffer outBuffer = Buffer.buffer();
+    private ByteBuf outBuffer;
+    private char pendingHighSurrogate;
     private boolean useOOS = false;
     private boolean useWriter = false;
+    private volatile boolean aborted;
 
     public VertxVaadinResponse(VertxVaadinService service, RoutingContext routingContext) {
         this.routingContext = routingContext;
@@ -95,7 +108,13 @@ public class VertxVaadinResponse implements VaadinResponse {
         return new OutputStream() {
             @Override
             public void write(int b) {
-                outBuffer.appendByte((byte) b);
+                outBuffer().writeByte(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                Objects.checkFromIndexSize(off, len, b.length);
+                outBuffer().writeBytes(b, off, len);
             }
 
             @Override
@@ -110,6 +129,80 @@ public class VertxVaadinResponse implements VaadinResponse {
         };
     }
 
+    /**
+     * Gets an output stream that sends data to the client while it is written,
+     * instead of buffering the whole content until the response is closed.
+     * <p>
+     * Data is written to the response in chunks of bounded size; when the
+     * response write queue is full the calling thread is blocked until it is
+     * drained, so memory usage does not depend on the size of the content.
+     * Unless a {@literal Content-Length} header has been set, the response is
+     * sent with chunked transfer encoding. Closing the stream ends the response.
+     * <p>
+     * The returned stream may block, so it must not be used on an event loop
+     * thread.
+     *
+     * @return a streaming output stream for the response.
+     */
+    public OutputStream getStreamingOutputStream() {
+        if (useWriter) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        useOOS = true;
+        if (!response.isChunked() && !response.headers().contains(HttpHeaders.CONTENT_LENGTH)) {
+            response.setChunked(true);
+        }
+        if (outBuffer != null && outBuffer.isReadable()) {
+            ByteBuf content = takeOutBuffer();
+            response.write(Buffer.buffer(content), ar -> release(content));
+        }
+        return new WriteStreamOutputStream(response, STREAMING_CHUNK_SIZE) {
+            @Override
+            public void close() throws IOException {
+                if (aborted) {
+                    // the connection has been reset, pending data can only be dropped
+                    return;
+                }
+                try {
+                    super.close();
+                } finally {
+                    if (!aborted && !response.ended()) {
+                        response.end();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets whether the response status and headers have already been sent to
+     * the client.
+     *
+     * @return {@literal true} if the response head has been written.
+     */
+    public boolean isCommitted() {
+        return response.headWritten();
+    }
+
+    /**
+     * Aborts a response whose content has been only partially sent, closing
+     * the connection so that the client does not consider it complete.
+     */
+    public void abort() {
+        aborted = true;
+        response.reset();
+    }
+
+    /**
+     * Gets whether the response has been aborted.
+     *
+     * @return {@literal true} if {@link #abort()} has been called.
+     * @see #abort()
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
     @Override
     public PrintWriter getWriter() {
         if (useOOS) {
@@ -119,7 +212,12 @@ public class VertxVaadinResponse implements VaadinResponse {
         return new PrintWriter(new Writer() {
             @Override
             public void write(char[] cbuf, int off, int len) {
-                outBuffer.appendString(new String(cbuf, off, len));
+                writeChars(CharBuffer.wrap(cbuf, off, len));
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+                writeChars(CharBuffer.wrap(str, off, off + len));
             }
 
             @Override
@@ -134,17 +232,83 @@ public class VertxVaadinResponse implements VaadinResponse {
         });
     }
 
+    /**
+     * Gets the buffer collecting the response content, allocating it from the
+     * pooled allocator if needed.
+     */
+    private ByteBuf outBuffer() {
+        if (outBuffer == null) {
+            outBuffer = PooledByteBufAllocator.DEFAULT.buffer(INITIAL_BUFFER_CAPACITY);
+        }
+        return outBuffer;
+    }
+
+    /**
+     * Encodes characters as UTF-8 directly into the content buffer.
+     * <p>
+     * A high surrogate at the end of the sequence is kept until the next
+     * write, so that a surrogate pair split across writes is encoded
+     * correctly.
+     */
+    private void writeChars(CharSequence chars) {
+        int start = 0;
+        int end = chars.length();
+        if (end == 0) {
+            return;
+        }
+        ByteBuf buffer = outBuffer();
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(chars.charAt(0))) {
+                ByteBufUtil.writeUtf8(buffer, CharBuffer.wrap(new char[] {high, chars.charAt(0)}));
+                start = 1;
+            } else {
+                ByteBufUtil.writeUtf8(buffer, String.valueOf(high));
+            }
+        }
+        if (end > start && Character.isHighSurrogate(chars.charAt(end - 1))) {
+            pendingHighSurrogate = chars.charAt(end - 1);
+            end--;
+        }
+        ByteBufUtil.writeUtf8(buffer, chars, start, end);
+    }
+
+    /**
+     * Detaches the collected content, to hand it over to the response.
+     * <p>
+     * Content is not copied: the pooled buffer is passed to the response as
+     * is and released once written, and a new one is allocated for further
+     * writes.
+     */
+    private ByteBuf takeOutBuffer() {
+        if (pendingHighSurrogate != 0) {
+            ByteBufUtil.writeUtf8(outBuffer(), String.valueOf(pendingHighSurrogate));
+            pendingHighSurrogate = 0;
+        }
+        ByteBuf content = outBuffer != null ? outBuffer : Unpooled.EMPTY_BUFFER;
+        outBuffer = null;
+        return content;
+    }
+
+    private static void release(ByteBuf content) {
+        // buffers wrapped by Vert.x are not released by the transport
+        if (content.refCnt() > 0) {
+            content.release();
+        }
+    }
+
     private void doFlush() {
-        Buffer copy = outBuffer.copy();
-        outBuffer = Buffer.buffer();
+        ByteBuf content = takeOutBuffer();
         if (!response.isChunked()) {
             response.setChunked(true);
         }
-        response.write(copy);
+        response.write(Buffer.buffer(content), ar -> release(content));
     }
 
     private void doClose() {
-        response.end(outBuffer);
+        ByteBuf content = takeOutBuffer();
+        response.end(Buffer.buffer(content), ar -> release(content));
     }
 
     @Override
@@ -175,13 +339,31 @@ public class VertxVaadinResponse implements VaadinResponse {
     /**
      * Ends the response.
      * <p>
-     * Does nothing if response is already endend or if it is chunked.
+     * Does nothing if response is already endend, aborted or if it is chunked.
      */
     public void end() {
         // if (!response.ended() && !response.isChunked()) {
-        if (!response.ended()) {
-            response.end(outBuffer);
+        if (!response.ended() && !aborted) {
+            doClose();
+        } else if (outBuffer != null) {
+            release(takeOutBuffer());
+        }
+    }
+
+    /**
+     * Releases content collected but not written to the response, for
+     * example when request handling failed before the response was ended.
+     */
+    void discard() {
+        if (outBuffer != null) {
+            release(takeOutBuffer());
         }
+        pendingHighSurrogate = 0;
+    }
+
+    // content collected and not yet written to the response
+    ByteBuf pendingContent() {
+        return outBuffer;
     }
 
     private static void doSetCacheTime(VaadinResponse response, long milliseconds) {
@@ -29,6 +29,7 @@ import java.net.URL;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.internal.DevModeHandler;
@@ -48,17 +49,19 @@ import com.vaadin.flow.server.communication.IndexHtmlRequestHandler;
 import com.vaadin.flow.server.communication.WebComponentProvider;
 import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
 import com.vaadin.flow.shared.ApplicationConstants;
-import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.file.FileSystem;
 import io.vertx.core.file.impl.FileResolverImpl;
 import io.vertx.core.http.impl.MimeMapping;
 import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.spi.file.FileResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.mcollovati.vertx.support.BufferInputStreamAdapter;
+import com.github.mcollovati.vertx.vaadin.communication.PushBroadcaster;
 import com.github.mcollovati.vertx.vaadin.communication.RequestHandlerReplacements;
 import com.github.mcollovati.vertx.vaadin.communication.VertxIndexHtmlRequestHandler;
 
@@ -68,9 +71,16 @@ import com.github.mcollovati.vertx.vaadin.communication.VertxIndexHtmlRequestHan
 public class VertxVaadinService extends VaadinService {
 
     private static final Logger logger = LoggerFactory.getLogger(VertxVaadinService.class);
+    private static final String ACCESS_QUEUE_WORKER_POOL_NAME = "vaadin.access.worker";
+    private static final String PUSH_WORKER_POOL_NAME = "vaadin.push.worker";
+    private static final String UPLOAD_WORKER_POOL_NAME = "vaadin.upload.worker";
 
     private final transient VertxVaadin vertxVaadin;
     private final ServiceContextUriResolver contextResolver = new ServiceContextUriResolver();
+    private transient AccessQueuePurger accessQueuePurger;
+    private transient PushBroadcaster pushBroadcaster;
+    private transient Executor pushExecutor;
+    private transient WorkerExecutor uploadExecutor;
 
     public VertxVaadinService(VertxVaadin vertxVaadin, DeploymentConfiguration deploymentConfiguration) {
         super(deploymentConfiguration);
@@ -89,15 +99,135 @@ public class VertxVaadinService extends VaadinService {
         return vertxVaadin.config();
     }
 
+    /**
+     * Gets the executor to be used to run blocking Vaadin tasks on virtual
+     * threads, if enabled.
+     *
+     * @return the virtual threads executor, or an empty optional if blocking
+     *         tasks must be executed by the Vert.x worker pool.
+     * @see VaadinOptions#virtualThreadsEnabled()
+     */
+    public Optional<Executor> getVirtualThreadExecutor() {
+        return vertxVaadin.virtualThreadExecutor();
+    }
+
     public ServletContext getServletContext() {
         return vertxVaadin.servletContext();
     }
 
+    /**
+     * Purges the access queue of the session on a worker thread, or on a
+     * virtual thread if enabled, since pending commands run application code
+     * holding the session lock and must never block an event loop.
+     *
+     * @param session the session whose access queue should be purged.
+     */
     @Override
     public void ensureAccessQueuePurged(VaadinSession session) {
-        Context context = getVertx().getOrCreateContext();
-        // Ensure commands are executed in vertx context
-        context.runOnContext(ev -> super.ensureAccessQueuePurged(session));
+        accessQueuePurger().schedule(session);
+    }
+
+    /**
+     * Gets a snapshot of the metrics of access queue purges.
+     * <p>
+     * Times are in ms. {@code eventLoopBlockedTime} reports the time spent
+     * running access queue commands on event loop threads.
+     *
+     * @return the access queue purge metrics.
+     */
+    public JsonObject getAccessQueueMetrics() {
+        return accessQueuePurger().metrics();
+    }
+
+    /**
+     * Gets a snapshot of the metrics about push connections, such as the
+     * number of sockets currently throttled because clients are not consuming
+     * messages fast enough.
+     *
+     * @return the push metrics.
+     * @see VaadinOptions#pushSlowConsumerPolicy()
+     */
+    public JsonObject getPushMetrics() {
+        return vertxVaadin.pushMetrics();
+    }
+
+    /**
+     * Checks whether push messages are routed through the clustered event
+     * bus, so that UIs can be pushed to from any node, regardless of the node
+     * holding the push connection.
+     *
+     * @return {@literal true} if clustered push is enabled by configuration
+     *         and Vert.x is running in cluster mode.
+     * @see VaadinOptions#pushClustered()
+     */
+    public boolean isClusteredPush() {
+        return getVaadinOptions().pushClustered() && getVertx().isClustered();
+    }
+
+    /**
+     * Gets the broadcaster that delivers messages to UIs subscribed on any
+     * node of the cluster.
+     *
+     * @return the push broadcaster.
+     */
+    public synchronized PushBroadcaster getPushBroadcaster() {
+        if (pushBroadcaster == null) {
+            pushBroadcaster = new PushBroadcaster(getVertx());
+            addServiceDestroyListener(event -> pushBroadcaster.close());
+        }
+        return pushBroadcaster;
+    }
+
+    /**
+     * Gets the executor handling incoming push messages, on virtual threads
+     * if enabled, otherwise on a dedicated worker pool, since handling a
+     * message runs RPC handlers holding the session lock and must never
+     * block an event loop.
+     *
+     * @return the push messages executor.
+     */
+    public synchronized Executor getPushExecutor() {
+        if (pushExecutor == null) {
+            pushExecutor = getVirtualThreadExecutor().orElseGet(() -> createWorkerExecutor(PUSH_WORKER_POOL_NAME));
+        }
+        return pushExecutor;
+    }
+
+    /**
+     * Gets the worker pool streaming the files of a multipart upload in
+     * parallel, bounded by {@link VaadinOptions#uploadParallelism()}.
+     * The pool is closed when the service is destroyed.
+     *
+     * @return the upload worker pool.
+     */
+    public synchronized WorkerExecutor getUploadExecutor() {
+        if (uploadExecutor == null) {
+            WorkerExecutor worker = getVertx()
+                    .createSharedWorkerExecutor(UPLOAD_WORKER_POOL_NAME, getVaadinOptions().uploadParallelism());
+            addServiceDestroyListener(event -> worker.close());
+            uploadExecutor = worker;
+        }
+        return uploadExecutor;
+    }
+
+    private synchronized AccessQueuePurger accessQueuePurger() {
+        if (accessQueuePurger == null) {
+            Executor executor =
+                    getVirtualThreadExecutor().orElseGet(() -> createWorkerExecutor(ACCESS_QUEUE_WORKER_POOL_NAME));
+            accessQueuePurger = new AccessQueuePurger(executor, super::ensureAccessQueuePurged);
+        }
+        return accessQueuePurger;
+    }
+
+    private Executor createWorkerExecutor(String poolName) {
+        WorkerExecutor worker = getVertx().createSharedWorkerExecutor(poolName);
+        addServiceDestroyListener(event -> worker.close());
+        return task -> worker.executeBlocking(
+                promise -> {
+                    task.run();
+                    promise.complete();
+                },
+                false);
     }
 
     @Override
@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.communication;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.shared.Registration;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers messages to the UIs subscribed to a topic, on every node of the
+ * cluster.
+ * <p>
+ * A broadcast message is published once on the event bus and, on each node,
+ * handed to the local subscribers through {@link UI#access(com.vaadin.flow.server.Command)},
+ * so that the resulting UI changes are pushed to the clients. In cluster mode
+ * the message must be of a type the event bus can encode, such as
+ * {@link String}, {@link io.vertx.core.json.JsonObject} or
+ * {@link io.vertx.core.buffer.Buffer}.
+ * <p>
+ * Subscriptions are removed automatically when the UI is detached.
+ */
+public class PushBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushBroadcaster.class);
+    private static final String ADDRESS = PushBroadcaster.class.getName();
+    private static final String TOPIC_HEADER = "topic";
+
+    private final Vertx vertx;
+    private final ConcurrentMap<String, Set<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+    private final MessageConsumer<Object> consumer;
+
+    public PushBroadcaster(Vertx vertx) {
+        this.vertx = Objects.requireNonNull(vertx);
+        consumer = vertx.eventBus().consumer(ADDRESS, this::deliver);
+    }
+
+    /**
+     * Subscribes the UI to messages broadcast on the given topic.
+     * <p>
+     * The listener is invoked holding the UI session lock.
+     *
+     * @param ui       the subscribing UI.
+     * @param topic    the topic.
+     * @param listener the listener receiving the messages.
+     * @param <T>      the type of the messages.
+     * @return a registration to remove the subscription.
+     */
+    public <T> Registration subscribe(UI ui, String topic, SerializableConsumer<T> listener) {
+        Objects.requireNonNull(topic);
+        Subscription<T> subscription = new Subscription<>(ui, listener);
+        subscriptions.compute(topic, (key, current) -> {
+            Set<Subscription<?>> topicSubscriptions = current != null ? current : ConcurrentHashMap.newKeySet();
+            topicSubscriptions.add(subscription);
+            return topicSubscriptions;
+        });
+        Registration detachRegistration = ui.addDetachListener(event -> unsubscribe(topic, subscription));
+        return () -> {
+            detachRegistration.remove();
+            unsubscribe(topic, subscription);
+        };
+    }
+
+    /**
+     * Sends a message to all the UIs subscribed to the topic, on any node.
+     *
+     * @param topic   the topic.
+     * @param message the message.
+     */
+    public void broadcast(String topic, Object message) {
+        vertx.eventBus().publish(ADDRESS, message, new DeliveryOptions().addHeader(TOPIC_HEADER, topic));
+    }
+
+    /**
+     * Gets the number of subscriptions to the topic on this node.
+     *
+     * @param topic the topic.
+     * @return the number of local subscriptions.
+     */
+    public int subscriptions(String topic) {
+        Set<Subscription<?>> topicSubscriptions = subscriptions.get(topic);
+        return topicSubscriptions != null ? topicSubscriptions.size() : 0;
+    }
+
+    /**
+     * Stops receiving broadcast messages and removes all subscriptions.
+     */
+    public void close() {
+        consumer.unregister();
+        subscriptions.clear();
+    }
+
+    private void deliver(Message<Object> message) {
+        String topic = message.headers().get(TOPIC_HEADER);
+        Set<Subscription<?>> topicSubscriptions = topic != null ? subscriptions.get(topic) : null;
+        if (topicSubscriptions == null) {
+            return;
+        }
+        Object body = message.body();
+        for (Subscription<?> subscription : topicSubscriptions) {
+            try {
+                subscription.deliver(body);
+            } catch (UIDetachedException ex) {
+                unsubscribe(topic, subscription);
+            } catch (RuntimeException ex) {
+                logger.error("Cannot deliver message on topic {}", topic, ex);
+            }
+        }
+    }
+
+    private void unsubscribe(String topic, Subscription<?> subscription) {
+        subscriptions.computeIfPresent(topic, (key, current) -> {
+            current.remove(subscription);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    private static final class Subscription<T> {
+        private final UI ui;
+        private final SerializableConsumer<T> listener;
+
+        private Subscription(UI ui, SerializableConsumer<T> listener) {
+            this.ui = Objects.requireNonNull(ui);
+            this.listener = Objects.requireNonNull(listener);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(Object message) {
+            ui.access(() -> listener.accept((T) message));
+        }
+    }
+}
@@ -31,11 +31,23 @@ import java.io.PrintWriter;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.internal.CurrentInstance;
 import com.vaadin.flow.internal.StateNode;
+import com.vaadin.flow.server.Command;
 import com.vaadin.flow.server.ErrorEvent;
 import com.vaadin.flow.server.NoInputStreamException;
 import com.vaadin.flow.server.NoOutputStreamException;
@@ -51,14 +63,19 @@ import com.vaadin.flow.server.communication.streaming.StreamingErrorEventImpl;
 import com.vaadin.flow.server.communication.streaming.StreamingProgressEventImpl;
 import com.vaadin.flow.server.communication.streaming.StreamingStartEventImpl;
 import com.vaadin.flow.shared.ApplicationConstants;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.file.AsyncFile;
 import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.ext.web.FileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.mcollovati.vertx.support.BufferInputStreamAdapter;
+import com.github.mcollovati.vertx.support.ReadStreamInputStream;
 import com.github.mcollovati.vertx.vaadin.VertxVaadinRequest;
+import com.github.mcollovati.vertx.vaadin.VertxVaadinService;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -69,7 +86,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 public class StreamReceiverHandler implements Serializable {
 
-    private static final int MAX_UPLOAD_BUFFER_SIZE = 4 * 1024;
+    private static final int MIN_UPLOAD_BUFFER_SIZE = 8 * 1024;
+    private static final int DEFAULT_UPLOAD_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_UPLOAD_BUFFER_SIZE = 256 * 1024;
+    private static final long MIN_EVENTS_FLUSH_INTERVAL_MS = 50;
 
     /* Minimum interval which will be used for streaming progress events. */
     public static final int DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS = 500;
@@ -175,32 +195,117 @@ public class StreamReceiverHandler implements Serializable {
             throws IOException {
 
         long contentLength = getContentLength(request);
-        FileSystem fileSystem =
-                ((VertxVaadinRequest) request).getService().getVertx().fileSystem();
+        VertxVaadinService service = ((VertxVaadinRequest) request).getService();
+        FileSystem fileSystem = service.getVertx().fileSystem();
+        int parallelism = service.getVaadinOptions().uploadParallelism();
         try {
-            uploads.forEach(item -> handleStream(session, fileSystem, streamReceiver, owner, contentLength, item));
+            if (parallelism > 1 && uploads.size() > 1) {
+                handleStreamsInParallel(session, service, fileSystem, streamReceiver, owner, contentLength, uploads);
+            } else {
+                UploadEvents events = new UploadEvents(session);
+                uploads.forEach(
+                        item -> handleStream(session, events, fileSystem, streamReceiver, owner, contentLength, item));
+            }
         } catch (Exception e) {
             getLogger().warn("File upload failed.", e);
         }
         sendUploadResponse(response);
     }
 
+    /**
+     * Streams the uploaded files concurrently on the service upload worker
+     * pool, bounded by the configured parallelism.
+     * <p>
+     * Completion and failure notifications are collected and
+     * delivered in batches by the calling thread, so that the session is
+     * locked once per flush interval instead of once per event of every
+     * file.
+     */
+    private void handleStreamsInParallel(
+            VaadinSession session,
+            VertxVaadinService service,
+            FileSystem fileSystem,
+            StreamReceiver streamReceiver,
+            StateNode owner,
+            long contentLength,
+            Collection<FileUpload> uploads) {
+        WorkerExecutor executor = service.getUploadExecutor();
+        BatchedUploadEvents events = new BatchedUploadEvents(session);
+        Map<Class<?>, CurrentInstance> instances = CurrentInstance.getInstances();
+        @SuppressWarnings("rawtypes")
+        List<Future> results = new ArrayList<>(uploads.size());
+        for (FileUpload item : uploads) {
+            results.add(executor.executeBlocking(
+                    promise -> {
+                        CurrentInstance.restoreInstances(instances);
+                        try {
+                            handleStream(session, events, fileSystem, streamReceiver, owner, contentLength, item);
+                            promise.complete();
+                        } finally {
+                            CurrentInstance.clearAll();
+                        }
+                    },
+                    false));
+        }
+        CompletableFuture<?> completed =
+                CompositeFuture.join(results).toCompletionStage().toCompletableFuture();
+        long flushInterval = Math.max(getProgressEventInterval(), MIN_EVENTS_FLUSH_INTERVAL_MS);
+        try {
+            while (true) {
+                try {
+                    completed.get(flushInterval, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    events.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            getLogger().warn("File upload failed.", e.getCause());
+        } finally {
+            events.flush();
+        }
+    }
+
     private void handleStream(
             VaadinSession session,
+            UploadEvents events,
             FileSystem fileSystem,
             StreamReceiver streamReceiver,
             StateNode owner,
             long contentLength,
             FileUpload item) {
         String name = item.fileName();
-        Buffer buffer = fileSystem.readFileBlocking(item.uploadedFileName());
-        InputStream stream = new BufferInputStreamAdapter(buffer);
-        try {
+        // the uploaded file is streamed from disk in chunks, so memory usage
+        // does not depend on the size of the file
+        AsyncFile file = fileSystem.openBlocking(item.uploadedFileName(), new OpenOptions().setRead(true));
+        file.setReadBufferSize(uploadBufferSize(item.size()));
+        try (ReadStreamInputStream stream = new ReadStreamInputStream(file)) {
             handleFileUploadValidationAndData(
-                    session, stream, streamReceiver, name, item.contentType(), contentLength, owner);
+                    session, events, stream, streamReceiver, name, item.contentType(), contentLength, owner);
         } catch (UploadException e) {
-            session.getErrorHandler().error(new ErrorEvent(e));
+            events.dispatch(() -> session.getErrorHandler().error(new ErrorEvent(e)));
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Gets the size of the buffer used to copy uploaded data to the receiver,
+     * growing with the expected length of the content to reduce the number of
+     * copies for large files while keeping it small for tiny ones.
+     *
+     * @param contentLength the expected length of the content, or a negative
+     *                      value if unknown.
+     * @return the size of the copy buffer.
+     */
+    static int uploadBufferSize(long contentLength) {
+        if (contentLength < 0) {
+            return DEFAULT_UPLOAD_BUFFER_SIZE;
         }
+        long size = Long.highestOneBit(Math.max(contentLength / 16, 1));
+        return (int) Math.max(MIN_UPLOAD_BUFFER_SIZE, Math.min(MAX_UPLOAD_BUFFER_SIZE, size));
     }
 
     /**
@@ -237,7 +342,14 @@ public class StreamReceiverHandler implements Serializable {
 
         try {
             handleFileUploadValidationAndData(
-                    session, stream, streamReceiver, filename, mimeType, contentLength, owner);
+                    session,
+                    new UploadEvents(session),
+                    stream,
+                    streamReceiver,
+                    filename,
+                    mimeType,
+                    contentLength,
+                    owner);
         } catch (UploadException e) {
             session.getErrorHandler().error(new ErrorEvent(e));
         }
@@ -246,6 +358,7 @@ public class StreamReceiverHandler implements Serializable {
 
     private void handleFileUploadValidationAndData(
             VaadinSession session,
+            UploadEvents events,
             InputStream inputStream,
             StreamReceiver streamReceiver,
             String filename,
@@ -269,17 +382,12 @@ public class StreamReceiverHandler implements Serializable {
             // Store ui reference so we can do cleanup even if node is
             // detached in some event handler
             boolean forgetVariable =
-                    streamToReceiver(session, inputStream, streamReceiver, filename, mimeType, contentLength);
+                    streamToReceiver(session, events, inputStream, streamReceiver, filename, mimeType, contentLength);
             if (forgetVariable) {
-                cleanStreamVariable(session, streamReceiver);
+                events.dispatch(() -> session.getResourceRegistry().unregisterResource(streamReceiver));
             }
         } catch (Exception e) {
-            session.lock();
-            try {
-                session.getErrorHandler().error(new ErrorEvent(e));
-            } finally {
-                session.unlock();
-            }
+            events.dispatch(() -> session.getErrorHandler().error(new ErrorEvent(e)));
         }
     }
 
@@ -325,17 +433,9 @@ public class StreamReceiverHandler implements Serializable {
         }
     }
 
-    private void cleanStreamVariable(VaadinSession session, StreamReceiver streamReceiver) {
-        session.lock();
-        try {
-            session.getResourceRegistry().unregisterResource(streamReceiver);
-        } finally {
-            session.unlock();
-        }
-    }
-
     private final boolean streamToReceiver(
             VaadinSession session,
+            UploadEvents events,
             final InputStream in,
             StreamReceiver streamReceiver,
             String filename,
@@ -349,6 +449,7 @@ public class StreamReceiverHandler implements Serializable {
 
         OutputStream out = null;
         long totalBytes = 0;
+        ProgressTracker progress = null;
         StreamingStartEventImpl startedEvent = new StreamingStartEventImpl(filename, type, contentLength);
         try {
             boolean listenProgress;
@@ -371,21 +472,21 @@ public class StreamReceiverHandler implements Serializable {
                 throw new NoInputStreamException();
             }
 
-            final byte[] buffer = new byte[MAX_UPLOAD_BUFFER_SIZE];
-            long lastStreamingEvent = 0;
+            if (listenProgress) {
+                progress = new ProgressTracker(
+                        session, streamVariable, filename, type, contentLength, getProgressEventInterval());
+            }
+
+            final byte[] buffer = new byte[uploadBufferSize(contentLength)];
             int bytesReadToBuffer;
             do {
                 bytesReadToBuffer = in.read(buffer);
                 if (bytesReadToBuffer > 0) {
                     out.write(buffer, 0, bytesReadToBuffer);
                     totalBytes += bytesReadToBuffer;
-                }
-                if (listenProgress) {
-                    StreamingProgressEventImpl progressEvent =
-                            new StreamingProgressEventImpl(filename, type, contentLength, totalBytes);
-
-                    lastStreamingEvent = updateProgress(
-                            session, streamVariable, progressEvent, lastStreamingEvent, bytesReadToBuffer);
+                    if (progress != null) {
+                        progress.bytesReceived(bytesReadToBuffer);
+                    }
                 }
                 if (streamVariable.isInterrupted()) {
                     throw new UploadInterruptedException();
@@ -395,62 +496,40 @@ public class StreamReceiverHandler implements Serializable {
             // upload successful
             out.close();
             StreamVariable.StreamingEndEvent event = new StreamingEndEventImpl(filename, type, totalBytes);
-            session.lock();
-            try {
-                streamVariable.streamingFinished(event);
-            } finally {
-                session.unlock();
+            if (progress != null) {
+                // the final progress event is delivered along with the end
+                // event, so that pending updates cannot follow it
+                StreamingProgressEventImpl progressEvent = progress.close();
+                events.dispatch(() -> streamVariable.onProgress(progressEvent));
             }
+            events.dispatch(() -> streamVariable.streamingFinished(event));
 
         } catch (UploadInterruptedException e) {
             // Download interrupted by application code
+            closeProgress(progress);
             tryToCloseStream(out);
             StreamVariable.StreamingErrorEvent event =
                     new StreamingErrorEventImpl(filename, type, contentLength, totalBytes, e);
-            session.lock();
-            try {
-                streamVariable.streamingFailed(event);
-            } finally {
-                session.unlock();
-            }
+            events.dispatch(() -> streamVariable.streamingFailed(event));
             // Note, we are not throwing interrupted exception forward as it is
             // not a terminal level error like all other exception.
         } catch (final Exception e) {
+            closeProgress(progress);
             tryToCloseStream(out);
-            session.lock();
-            try {
-                StreamVariable.StreamingErrorEvent event =
-                        new StreamingErrorEventImpl(filename, type, contentLength, totalBytes, e);
-                streamVariable.streamingFailed(event);
-                // throw exception for terminal to be handled (to be passed to
-                // terminalErrorHandler)
-                throw new UploadException(e);
-            } finally {
-                session.unlock();
-            }
+            StreamVariable.StreamingErrorEvent event =
+                    new StreamingErrorEventImpl(filename, type, contentLength, totalBytes, e);
+            events.dispatch(() -> streamVariable.streamingFailed(event));
+            // throw exception for terminal to be handled (to be passed to
+            // terminalErrorHandler)
+            throw new UploadException(e);
         }
         return startedEvent.isDisposed();
     }
 
-    private long updateProgress(
-            VaadinSession session,
-            StreamVariable streamVariable,
-            StreamingProgressEventImpl progressEvent,
-            long lastStreamingEvent,
-            int bytesReadToBuffer) {
-        long now = System.currentTimeMillis();
-        // to avoid excessive session locking and event storms,
-        // events are sent in intervals, or at the end of the file.
-        if (lastStreamingEvent + getProgressEventInterval() <= now || bytesReadToBuffer <= 0) {
-            session.lock();
-            try {
-                streamVariable.onProgress(progressEvent);
-            } finally {
-                session.unlock();
-            }
-            return now;
+    private static void closeProgress(ProgressTracker progress) {
+        if (progress != null) {
+            progress.close();
         }
-        return lastStreamingEvent;
     }
 
     /**
@@ -466,6 +545,136 @@ public class StreamReceiverHandler implements Serializable {
         }
     }
 
+    /**
+     * Accounts the bytes received for an upload and publishes progress events
+     * without blocking the uploading thread on the session lock.
+     * <p>
+     * To avoid excessive session locking and event storms, events are sent in
+     * intervals through {@link VaadinSession#access(Command)}. At most one
+     * event is pending at any time and it reports the bytes received when it
+     * runs, so updates produced while the session is busy are coalesced.
+     * Pending events are dropped once the tracker is closed, so they never
+     * follow the end of the upload.
+     */
+    static final class ProgressTracker {
+
+        private final VaadinSession session;
+        private final StreamVariable streamVariable;
+        private final String filename;
+        private final String type;
+        private final long contentLength;
+        private final long interval;
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private volatile boolean closed;
+        // only accessed by the uploading thread
+        private long lastPublished;
+
+        ProgressTracker(
+                VaadinSession session,
+                StreamVariable streamVariable,
+                String filename,
+                String type,
+                long contentLength,
+                long interval) {
+            this.session = session;
+            this.streamVariable = streamVariable;
+            this.filename = filename;
+            this.type = type;
+            this.contentLength = contentLength;
+            this.interval = interval;
+        }
+
+        void bytesReceived(int count) {
+            bytes.addAndGet(count);
+            long now = System.currentTimeMillis();
+            if (lastPublished + interval <= now && pending.compareAndSet(false, true)) {
+                lastPublished = now;
+                session.access(this::publish);
+            }
+        }
+
+        /**
+         * Stops publishing progress events.
+         *
+         * @return an event reporting the bytes received so far.
+         */
+        StreamingProgressEventImpl close() {
+            closed = true;
+            return event();
+        }
+
+        private void publish() {
+            pending.set(false);
+            if (!closed) {
+                streamVariable.onProgress(event());
+            }
+        }
+
+        private StreamingProgressEventImpl event() {
+            return new StreamingProgressEventImpl(filename, type, contentLength, bytes.get());
+        }
+    }
+
+    /**
+     * Delivers upload notifications to the application, holding the session
+     * lock while each of them runs.
+     */
+    private static class UploadEvents {
+
+        final VaadinSession session;
+
+        UploadEvents(VaadinSession session) {
+            this.session = session;
+        }
+
+        void dispatch(Command event) {
+            session.lock();
+            try {
+                event.execute();
+            } finally {
+                session.unlock();
+            }
+        }
+    }
+
+    /**
+     * Collects upload notifications from multiple threads, to deliver them in
+     * order with a single session lock acquisition on {@link #flush()}.
+     */
+    private static final class BatchedUploadEvents extends UploadEvents {
+
+        private final Queue<Command> pending = new ConcurrentLinkedQueue<>();
+
+        BatchedUploadEvents(VaadinSession session) {
+            super(session);
+        }
+
+        @Override
+        void dispatch(Command event) {
+            pending.add(event);
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            session.lock();
+            try {
+                Command event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        event.execute();
+                    } catch (RuntimeException e) {
+                        session.getErrorHandler().error(new ErrorEvent(e));
+                    }
+                }
+            } finally {
+                session.unlock();
+            }
+        }
+    }
+
     private static Logger getLogger() {
         return LoggerFactory.getLogger(StreamReceiverHandler.class.getName());
     }
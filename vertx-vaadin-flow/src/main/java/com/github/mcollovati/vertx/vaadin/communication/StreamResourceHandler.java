@@ -35,6 +35,7 @@ import com.vaadin.flow.server.VaadinResponse;
 import com.vaadin.flow.server.VaadinSession;
 
 import com.github.mcollovati.vertx.vaadin.VertxVaadinRequest;
+import com.github.mcollovati.vertx.vaadin.VertxVaadinResponse;
 
 /**
  * Handles {@link StreamResource} instances registered in {@link VaadinSession}.
@@ -73,11 +74,25 @@ public class StreamResourceHandler implements Serializable {
         } finally {
             session.unlock();
         }
-        try (OutputStream outputStream = response.getOutputStream()) {
+        // generated content is streamed to the client, so that large
+        // downloads are not held in memory
+        OutputStream outputStream = response instanceof VertxVaadinResponse vertxResponse
+                ? vertxResponse.getStreamingOutputStream()
+                : response.getOutputStream();
+        try {
             writer.accept(outputStream, session);
         } catch (Exception exception) {
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            if (response instanceof VertxVaadinResponse vertxResponse && vertxResponse.isCommitted()) {
+                // part of the content has already been sent, the client must
+                // not see the download as completed
+                vertxResponse.abort();
+            } else {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
             throw exception;
+        } finally {
+            // does not write anything if the response has been aborted
+            outputStream.close();
         }
     }
 }
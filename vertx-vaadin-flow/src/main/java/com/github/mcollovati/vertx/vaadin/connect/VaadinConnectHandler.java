@@ -22,6 +22,9 @@
  */
 package com.github.mcollovati.vertx.vaadin.connect;
 
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
 import com.vaadin.flow.internal.CurrentInstance;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
@@ -93,18 +96,32 @@ public class VaadinConnectHandler {
         router.post("/:endpoint/:method")
                 .consumes("application/json")
                 .produces("application/json")
-                .handler(ctx -> {
-                    if (vaadinService != null) {
-                        VaadinService.setCurrent(vaadinService);
-                        CurrentInstance.set(VaadinRequest.class, new VertxVaadinRequest(vaadinService, ctx));
-                    }
-                    try {
-                        handle(ctx);
-                    } finally {
-                        if (vaadinService != null) {
-                            CurrentInstance.clearAll();
-                        }
-                    }
-                });
+                .handler(this::dispatch);
+    }
+
+    private void dispatch(RoutingContext routingContext) {
+        Optional<Executor> executor = Optional.ofNullable(vaadinService)
+                .flatMap(VertxVaadinService::getVirtualThreadExecutor);
+        if (executor.isPresent()) {
+            executor.get().execute(() -> handleWithCurrentInstances(routingContext));
+        } else {
+            handleWithCurrentInstances(routingContext);
+        }
+    }
+
+    private void handleWithCurrentInstances(RoutingContext ctx) {
+        if (vaadinService != null) {
+            VaadinService.setCurrent(vaadinService);
+            CurrentInstance.set(VaadinRequest.class, new VertxVaadinRequest(vaadinService, ctx));
+        }
+        try {
+            handle(ctx);
+        } catch (RuntimeException ex) {
+            ctx.fail(ex);
+        } finally {
+            if (vaadinService != null) {
+                CurrentInstance.clearAll();
+            }
+        }
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.util.zip.Deflater;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Compresses push messages of a connection with a persistent deflate
+ * context, so that content repeated across messages (node ids, feature keys,
+ * the UIDL envelope) is encoded as back-references to previous messages.
+ * <p>
+ * Each message is encoded as a 4 bytes big-endian uncompressed length,
+ * followed by raw deflate data terminated by a sync flush, so that the client
+ * can inflate it as soon as it is received, keeping a single inflate stream
+ * for the whole connection.
+ * <p>
+ * The deflate context takes about 256KB of native memory per connection and
+ * must be released by calling {@link #end()}.
+ */
+final class PushDeflater {
+
+    private static final int OUTPUT_CHUNK_SIZE = 8 * 1024;
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final PushMetrics metrics;
+    private final byte[] chunk = new byte[OUTPUT_CHUNK_SIZE];
+    private boolean ended;
+
+    PushDeflater(PushMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compresses a message.
+     *
+     * @param message the message to compress.
+     * @return the compressed message, prefixed with its uncompressed length.
+     * @throws IllegalStateException if the deflater has been released.
+     */
+    synchronized Buffer compress(Buffer message) {
+        if (ended) {
+            throw new IllegalStateException("Deflater has been released");
+        }
+        byte[] input = message.getBytes();
+        deflater.setInput(input);
+        Buffer frame = Buffer.buffer(input.length / 4 + 16).appendInt(input.length);
+        int count;
+        do {
+            count = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+            frame.appendBytes(chunk, 0, count);
+        } while (count == chunk.length);
+        metrics.messageCompressed(input.length, frame.length());
+        return frame;
+    }
+
+    /**
+     * Releases the deflate context.
+     */
+    synchronized void end() {
+        if (!ended) {
+            ended = true;
+            deflater.end();
+        }
+    }
+}
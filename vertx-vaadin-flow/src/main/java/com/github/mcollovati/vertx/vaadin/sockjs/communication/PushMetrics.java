@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Counters about push sockets.
+ */
+final class PushMetrics {
+
+    private final AtomicLong throttledSockets = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong compressedMessages = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong sessionLookups = new AtomicLong();
+    private final AtomicLong boundMessages = new AtomicLong();
+
+    void socketThrottled() {
+        throttledSockets.incrementAndGet();
+        throttled.incrementAndGet();
+    }
+
+    void socketDrained() {
+        throttledSockets.decrementAndGet();
+    }
+
+    void slowConsumerDisconnected() {
+        slowConsumerDisconnects.incrementAndGet();
+    }
+
+    void messageCompressed(long originalSize, long compressedSize) {
+        compressedMessages.incrementAndGet();
+        uncompressedBytes.addAndGet(originalSize);
+        compressedBytes.addAndGet(compressedSize);
+    }
+
+    void sessionLookup() {
+        sessionLookups.incrementAndGet();
+    }
+
+    void boundMessage() {
+        boundMessages.incrementAndGet();
+    }
+
+    /**
+     * Gets a snapshot of the metrics.
+     * <p>
+     * {@code throttledSockets} is the number of sockets whose write queue is
+     * currently full, {@code throttled} the number of times a socket write
+     * queue has been found full. Compression counters report the size, in
+     * bytes, of compressed push messages before and after compression.
+     * {@code sessionLookups} counts incoming messages that went through the
+     * session store, {@code boundMessages} the ones that reused the session
+     * bound to the socket.
+     *
+     * @param connectedSockets number of currently connected sockets.
+     * @return the push metrics.
+     */
+    JsonObject toJson(int connectedSockets) {
+        return new JsonObject()
+                .put("connectedSockets", connectedSockets)
+                .put("throttledSockets", throttledSockets.get())
+                .put("throttled", throttled.get())
+                .put("slowConsumerDisconnects", slowConsumerDisconnects.get())
+                .put("compressedMessages", compressedMessages.get())
+                .put("uncompressedBytes", uncompressedBytes.get())
+                .put("compressedBytes", compressedBytes.get())
+                .put("savedBytes", uncompressedBytes.get() - compressedBytes.get())
+                .put("sessionLookups", sessionLookups.get())
+                .put("boundMessages", boundMessages.get());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+/**
+ * Defines how push sockets behave when the client does not consume messages
+ * as fast as they are produced, that is when the socket write queue is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Messages are always written, letting the write queue grow unbounded.
+     */
+    NONE,
+
+    /**
+     * Asynchronous pushes are deferred until the write queue is drained;
+     * pending changes are then sent as a single message with the latest UI
+     * state.
+     */
+    COALESCE,
+
+    /**
+     * The connection is closed, so that the client reconnects and
+     * resynchronizes its state.
+     */
+    DISCONNECT
+}
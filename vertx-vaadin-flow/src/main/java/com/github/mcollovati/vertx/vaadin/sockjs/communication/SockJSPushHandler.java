@@ -30,13 +30,16 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 
 import com.vaadin.flow.component.UI;
@@ -50,16 +53,22 @@ import com.vaadin.flow.server.SystemMessages;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.VaadinSessionState;
 import com.vaadin.flow.server.communication.PushConnection;
 import com.vaadin.flow.server.communication.ServerRpcHandler;
 import com.vaadin.flow.shared.ApplicationConstants;
 import com.vaadin.flow.shared.communication.PushMode;
 import elemental.json.JsonException;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.http.Cookie;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
@@ -80,13 +89,17 @@ import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.handler.sockjs.SockJSHandler;
 import io.vertx.ext.web.handler.sockjs.SockJSSocket;
 import io.vertx.ext.web.impl.RoutingContextInternal;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.SessionStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.mcollovati.vertx.http.HttpServerResponseWrapper;
+import com.github.mcollovati.vertx.support.SerialExecutor;
 import com.github.mcollovati.vertx.vaadin.VertxVaadinRequest;
 import com.github.mcollovati.vertx.vaadin.VertxVaadinService;
 import com.github.mcollovati.vertx.vaadin.communication.VertxDebugWindowConnection;
+import com.github.mcollovati.vertx.web.sstore.ExtendedLocalSessionStore;
 
 /**
  * Handles incoming push connections and messages and dispatches them to the
@@ -97,6 +110,35 @@ import com.github.mcollovati.vertx.vaadin.communication.VertxDebugWindowConnecti
 public class SockJSPushHandler implements Handler<RoutingContext> {
 
     private static final Logger logger = LoggerFactory.getLogger(SockJSPushHandler.class);
+    private static final String CLOSE_SOCKET_ADDRESS = SockJSPushHandler.class.getName() + ".close";
+    private static final String SEND_SOCKET_ADDRESS = SockJSPushHandler.class.getName() + ".send.";
+
+    /**
+     * Path, relative to the push URL, of push connections over plain
+     * WebSocket.
+     */
+    public static final String NATIVE_WEBSOCKET_PATH = "/native";
+
+    /**
+     * Push configuration parameter telling the client to connect through a
+     * plain WebSocket, falling back to SockJS if the connection cannot be
+     * established.
+     */
+    public static final String NATIVE_WEBSOCKET_PARAMETER = "nativeWebSocket";
+
+    /**
+     * Push configuration parameter telling the client that messages on plain
+     * WebSocket connections can be compressed, if it supports inflating them.
+     */
+    public static final String COMPRESSION_PARAMETER = "compression";
+
+    /**
+     * Query parameter sent by the client on plain WebSocket connections to
+     * request compressed messages.
+     */
+    static final String COMPRESSION_REQUEST_PARAMETER = "v-compress";
+
+    private static final String DEFLATE_COMPRESSION = "deflate";
 
     /**
      * Callback used when we receive a UIDL request through Atmosphere. If the
@@ -150,8 +192,18 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
     private final Router router;
     private final SessionHandler sessionHandler;
     private final LocalMap<String, SockJSSocket> connectedSocketsLocalMap;
-    private final Set<String> debugWindowHandlers = new HashSet<>();
+    // updated on the socket context, read by callbacks running on workers
+    private final Set<String> debugWindowHandlers = ConcurrentHashMap.newKeySet();
     private final VertxDebugWindowConnection debugWindow;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int writeQueueMaxSize;
+    private final PushMetrics metrics = new PushMetrics();
+    private final boolean clusteredPush;
+    private final boolean sessionBinding;
+    private final SessionStore writeBackStore;
+    private final boolean binaryFrames;
+    private final boolean compression;
+    private final long heartbeatInterval;
 
     /**
      * Callback used when we receive a request to establish a push channel for a
@@ -182,11 +234,67 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
     };
 
     public SockJSPushHandler(VertxVaadinService service, SessionHandler sessionHandler, SockJSHandler sockJSHandler) {
+        this(service, sessionHandler, sockJSHandler, null);
+    }
+
+    /**
+     * Creates a push handler.
+     * <p>
+     * If a session store is given, the HTTP session and the UI resolved for
+     * the first message of a socket are reused for the following ones,
+     * without looking up the session store. Since bound messages do not go
+     * through the session handler, the HTTP session is written back to the
+     * store after they have been handled, unless the store holds the session
+     * instances in memory, as local session stores do.
+     *
+     * @param service        the Vaadin service.
+     * @param sessionHandler the handler used to look up HTTP sessions.
+     * @param sockJSHandler  the SockJS handler.
+     * @param sessionStore   the store of the HTTP sessions, or {@literal null} to disable session binding.
+     */
+    public SockJSPushHandler(
+            VertxVaadinService service,
+            SessionHandler sessionHandler,
+            SockJSHandler sockJSHandler,
+            SessionStore sessionStore) {
         this.service = service;
+        this.sessionBinding = sessionStore != null;
+        this.writeBackStore =
+                sessionStore instanceof LocalSessionStore || sessionStore instanceof ExtendedLocalSessionStore
+                        ? null
+                        : sessionStore;
         this.sessionHandler = sessionHandler;
         connectedSocketsLocalMap = socketsMap(service.getVertx());
         router = sockJSHandler.socketHandler(this::onConnect);
         debugWindow = service.getContext().getAttribute(VertxDebugWindowConnection.class);
+        slowConsumerPolicy = service.getVaadinOptions().pushSlowConsumerPolicy();
+        writeQueueMaxSize = service.getVaadinOptions().pushWriteQueueMaxSize();
+        clusteredPush = service.isClusteredPush();
+        binaryFrames = service.getVaadinOptions().pushBinaryFrames();
+        compression = service.getVaadinOptions().pushCompression();
+        heartbeatInterval = service.getVaadinOptions().sockJSHeartbeatInterval();
+        if (clusteredPush) {
+            // sockets bound to this node may be closed by connections living
+            // in sessions handled by other nodes
+            MessageConsumer<String> consumer =
+                    service.getVertx().eventBus().consumer(CLOSE_SOCKET_ADDRESS, message -> {
+                        SockJSSocket socket = connectedSocketsLocalMap.get(message.body());
+                        if (socket != null) {
+                            socket.close();
+                        }
+                    });
+            service.addServiceDestroyListener(event -> consumer.unregister());
+        }
+    }
+
+    /**
+     * Gets a snapshot of the metrics about push sockets handled by this
+     * instance.
+     *
+     * @return the push metrics.
+     */
+    public JsonObject metrics() {
+        return metrics.toJson(connectedSocketsLocalMap.size());
     }
 
     private void onConnect(SockJSSocket sockJSSocket) {
@@ -194,8 +302,16 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
 
         String uuid = sockJSSocket.writeHandlerID();
         connectedSocketsLocalMap.put(uuid, asSharable(sockJSSocket));
+        if (writeQueueMaxSize > 0) {
+            sockJSSocket.setWriteQueueMaxSize(writeQueueMaxSize);
+        }
 
-        PushSocket socket = new PushSocketImpl(sockJSSocket);
+        PushSocketImpl socket = new PushSocketImpl(
+                sockJSSocket,
+                new SerialExecutor(service.getPushExecutor()),
+                slowConsumerPolicy,
+                metrics,
+                clusteredPush);
         initSocket(sockJSSocket, routingContext, socket);
 
         if (isDebugWindowConnection(routingContext)) {
@@ -221,17 +337,32 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
                 && routingContext.queryParams().contains(ApplicationConstants.DEBUG_WINDOW_CONNECTION);
     }
 
-    private void initSocket(SockJSSocket sockJSSocket, RoutingContext routingContext, PushSocket socket) {
-        sockJSSocket.handler(data -> sessionHandler.handle(
-                new SockJSRoutingContext(routingContext, rc -> onMessage(new PushEvent(socket, rc, data)))));
-        sockJSSocket.endHandler(unused -> sessionHandler.handle(
-                new SockJSRoutingContext(routingContext, rc -> onDisconnect(new PushEvent(socket, rc, null)))));
+    private void initSocket(SockJSSocket sockJSSocket, RoutingContext routingContext, PushSocketImpl socket) {
+        sockJSSocket.handler(data -> {
+            SessionBinding binding = socket.binding();
+            if (binding != null) {
+                metrics.boundMessage();
+                onMessage(new PushEvent(socket, binding.frameContext(routingContext), data, binding));
+            } else {
+                // messages received while the session is being looked up
+                // take the same path, to preserve ordering
+                metrics.sessionLookup();
+                socket.lookupStarted();
+                sessionHandler.handle(new SockJSRoutingContext(routingContext, rc -> {
+                    socket.lookupCompleted();
+                    return onMessage(new PushEvent(socket, rc, data));
+                }));
+            }
+        });
+        sockJSSocket.endHandler(unused -> sessionHandler.handle(new SockJSRoutingContext(
+                routingContext, rc -> socket.dispatch(() -> onDisconnect(new PushEvent(socket, rc, null))))));
         sockJSSocket.exceptionHandler(t -> sessionHandler.handle(new SockJSRoutingContext(
-                routingContext, rc -> onError(new PushEvent(socket, routingContext, null), t))));
+                routingContext, rc -> socket.dispatch(() -> onError(new PushEvent(socket, routingContext, null), t)))));
     }
 
     private void onDisconnect(PushEvent ev) {
         connectedSocketsLocalMap.remove(ev.socket.getUUID());
+        ((PushSocketImpl) ev.socket).release();
         boolean isDebugWindow = debugWindowHandlers.remove(ev.socket.getUUID());
         if (!ev.socket.isClosed()) {
             if (isDebugWindow) {
@@ -253,14 +384,41 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         }
     }
 
-    private void onMessage(PushEvent event) {
+    private CompletableFuture<Void> onMessage(PushEvent event) {
         boolean isDebugWindow = debugWindowHandlers.contains(event.socket.getUUID());
         if (isDebugWindow) {
             String message = event.message().map(Buffer::toString).orElse("");
             debugWindow.onMessage(event.socket.getUUID(), message);
-        } else {
-            callWithUi(event, receiveCallback);
+            return CompletableFuture.completedFuture(null);
         }
+        return callWithUi(event, receiveCallback);
+    }
+
+    /**
+     * Handles a push connection request over a plain WebSocket, without
+     * SockJS.
+     *
+     * @param routingContext the routing context of the WebSocket upgrade request.
+     */
+    public void handleWebSocket(RoutingContext routingContext) {
+        boolean compress = compression
+                && DEFLATE_COMPRESSION.equals(routingContext.request().getParam(COMPRESSION_REQUEST_PARAMETER));
+        routingContext.request().toWebSocket().onComplete(ar -> {
+            if (ar.succeeded()) {
+                onConnect(new WebSocketSockJSSocket(
+                        service.getVertx(),
+                        ar.result(),
+                        routingContext,
+                        binaryFrames,
+                        heartbeatInterval,
+                        compress ? new PushDeflater(metrics) : null));
+            } else {
+                logger.debug("Cannot establish WebSocket push connection", ar.cause());
+                if (!routingContext.response().ended()) {
+                    routingContext.fail(400, ar.cause());
+                }
+            }
+        });
     }
 
     @Override
@@ -273,17 +431,23 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         }
     }
 
-    private void callWithUi(final PushEvent event, final PushEventCallback callback) {
+    private CompletableFuture<Void> callWithUi(final PushEvent event, final PushEventCallback callback) {
+        return ((PushSocketImpl) event.socket).dispatch(() -> doCallWithUi(event, callback));
+    }
+
+    private void doCallWithUi(final PushEvent event, final PushEventCallback callback) {
 
         PushSocket socket = event.socket;
         RoutingContext routingContext = event.routingContext;
-        VertxVaadinRequest vaadinRequest = new VertxVaadinRequest(service, routingContext);
+        SessionBinding binding = event.binding;
+        VertxVaadinRequest vaadinRequest =
+                binding != null ? binding.frameRequest(service) : new VertxVaadinRequest(service, routingContext);
         VaadinSession session = null;
 
         service.requestStart(vaadinRequest, null);
         try {
             try {
-                session = service.findVaadinSession(vaadinRequest);
+                session = findVaadinSession(binding, vaadinRequest);
                 assert VaadinSession.getCurrent() == session;
             } catch (SessionExpiredException e) {
                 sendNotificationAndDisconnect(socket, VaadinService.createSessionExpiredJSON(true));
@@ -293,13 +457,18 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
             UI ui = null;
             session.lock();
             try {
-                ui = service.findUI(vaadinRequest);
+                ui = findUI(binding, session, vaadinRequest);
                 assert UI.getCurrent() == ui;
 
                 if (ui == null) {
                     sendNotificationAndDisconnect(socket, VaadinService.createUINotFoundJSON(true));
                 } else {
                     callback.run(event, ui);
+                    if (binding != null) {
+                        writeBack(binding);
+                    } else if (sessionBinding && !socket.isClosed()) {
+                        bind((PushSocketImpl) socket, routingContext, session, ui);
+                    }
                 }
             } catch (final IOException e) {
                 callErrorHandler(session, e);
@@ -336,6 +505,58 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         }
     }
 
+    private VaadinSession findVaadinSession(SessionBinding binding, VertxVaadinRequest vaadinRequest)
+            throws SessionExpiredException {
+        if (binding == null) {
+            return service.findVaadinSession(vaadinRequest);
+        }
+        VaadinSession.setCurrent(binding.vaadinSession);
+        return binding.vaadinSession;
+    }
+
+    // must be called with the session locked
+    private UI findUI(SessionBinding binding, VaadinSession session, VertxVaadinRequest vaadinRequest) {
+        if (binding == null) {
+            return service.findUI(vaadinRequest);
+        }
+        UI ui = binding.ui();
+        if (ui != null) {
+            UI.setCurrent(ui);
+        }
+        return ui;
+    }
+
+    private static void bind(PushSocketImpl socket, RoutingContext routingContext, VaadinSession session, UI ui) {
+        Session httpSession = routingContext.session();
+        if (httpSession != null) {
+            socket.bind(new SessionBinding(httpSession, session, ui));
+        }
+    }
+
+    // Bound messages do not go through the session handler, so the session
+    // is written back to the store while the Vaadin session is still locked;
+    // writes requested while one is in flight are coalesced.
+    private void writeBack(SessionBinding binding) {
+        if (writeBackStore != null && binding.writeRequested()) {
+            writeBoundSession(binding);
+        }
+    }
+
+    private void writeBoundSession(SessionBinding binding) {
+        Session httpSession = binding.httpSession;
+        httpSession.setAccessed();
+        writeBackStore.put(httpSession).onComplete(ar -> {
+            boolean requestedAgain = binding.writeCompleted();
+            if (ar.failed()) {
+                // following messages look the session up again
+                logger.debug("Cannot write back HTTP session bound to push socket", ar.cause());
+                binding.invalidate();
+            } else if (requestedAgain) {
+                writeBoundSession(binding);
+            }
+        });
+    }
+
     private PushSocket getOpenedPushConnection(PushSocket socket, UI ui) {
         PushSocket errorSocket = socket;
         if (ui != null && ui.getInternals().getPushConnection() != null) {
@@ -463,10 +684,18 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         return session;
     }
 
-    private static LocalMap<String, SockJSSocket> socketsMap(Vertx vertx) {
+    static LocalMap<String, SockJSSocket> socketsMap(Vertx vertx) {
         return vertx.sharedData().getLocalMap(SockJSPushHandler.class.getName() + ".push-sockets");
     }
 
+    /**
+     * Gets the event bus address used by other nodes to send messages to the
+     * socket with the given id.
+     */
+    static String sendAddress(String socketUUID) {
+        return SEND_SOCKET_ADDRESS + socketUUID;
+    }
+
     /**
      * Checks whether a given push id matches the session's push id.
      *
@@ -523,15 +752,121 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         void run(PushEvent event, UI ui) throws IOException;
     }
 
-    private static class PushSocketImpl implements PushSocket {
+    static class PushSocketImpl implements PushSocket {
+
+        private static final PushMetrics DETACHED_METRICS = new PushMetrics();
 
         private final String socketUUID;
         private final String remoteAddress;
+        private final transient Context context;
+        private final transient Executor callbackExecutor;
+        private final transient SlowConsumerPolicy slowConsumerPolicy;
+        private final transient PushMetrics metrics;
+        private final boolean clustered;
+        private final transient MessageConsumer<String> remoteWriter;
+        private transient volatile SessionBinding binding;
+        // accessed only on the socket context
+        private transient int pendingLookups;
+        private transient List<Runnable> writableTasks;
         private boolean closed;
-
-        PushSocketImpl(SockJSSocket socket) {
+        private volatile boolean throttled;
+        private transient volatile boolean lost;
+
+        PushSocketImpl(
+                SockJSSocket socket,
+                Executor callbackExecutor,
+                SlowConsumerPolicy slowConsumerPolicy,
+                PushMetrics metrics,
+                boolean clustered) {
             socketUUID = socket.writeHandlerID();
             remoteAddress = socket.remoteAddress().toString();
+            context = Vertx.currentContext();
+            this.callbackExecutor = callbackExecutor;
+            this.slowConsumerPolicy = slowConsumerPolicy;
+            this.metrics = metrics;
+            this.clustered = clustered;
+            // connections living in sessions handled by other nodes write to
+            // the socket through this consumer, that acknowledges delivery
+            remoteWriter = clustered
+                    ? vertx().eventBus().consumer(sendAddress(socketUUID), this::onRemoteWrite)
+                    : null;
+        }
+
+        private void onRemoteWrite(Message<String> message) {
+            sendLocal(message.body()).whenComplete((unused, error) -> {
+                if (error == null) {
+                    message.reply(null);
+                } else {
+                    message.fail(500, error.getMessage());
+                }
+            });
+        }
+
+        /**
+         * Runs a callback for this socket off the event loop, on a worker or
+         * virtual thread. Callbacks of the same socket, and thus of the UI
+         * bound to it, are executed in order, one at a time. Writes to the
+         * socket are marshalled back to the socket context.
+         * <p>
+         * Sockets without an executor, restored from a serialized session,
+         * run the callback on the calling thread. Callback failures are
+         * logged; if the executor does not accept the callback, for example
+         * because the service is being destroyed, it is not executed at all.
+         *
+         * @return a future completed when the callback has been executed,
+         *         exceptionally if it failed or has been rejected.
+         */
+        CompletableFuture<Void> dispatch(Runnable callback) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            Runnable task = () -> {
+                try {
+                    callback.run();
+                    future.complete(null);
+                } catch (RuntimeException ex) {
+                    logger.error("Error running push callback for socket {}", socketUUID, ex);
+                    future.completeExceptionally(ex);
+                }
+            };
+            if (callbackExecutor == null) {
+                task.run();
+                return future;
+            }
+            try {
+                callbackExecutor.execute(task);
+            } catch (RejectedExecutionException ex) {
+                logger.debug("Push callback for socket {} rejected", socketUUID, ex);
+                future.completeExceptionally(ex);
+            }
+            return future;
+        }
+
+        /**
+         * Gets the session binding to use for an incoming message, if it is
+         * still valid and no session lookup is in progress for previous
+         * messages.
+         */
+        SessionBinding binding() {
+            SessionBinding current = binding;
+            if (current == null || pendingLookups > 0) {
+                return null;
+            }
+            if (!current.isValid(System.currentTimeMillis())) {
+                binding = null;
+                return null;
+            }
+            return current;
+        }
+
+        void bind(SessionBinding binding) {
+            this.binding = binding;
+        }
+
+        void lookupStarted() {
+            pendingLookups++;
+        }
+
+        void lookupCompleted() {
+            pendingLookups--;
         }
 
         @Override
@@ -546,15 +881,136 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
 
         @Override
         public CompletionStage<?> send(String message) {
+            if (isRemote()) {
+                return sendRemote(message);
+            }
+            return sendLocal(message);
+        }
+
+        private CompletableFuture<Boolean> sendLocal(String message) {
             return runCommand(socket -> {
+                if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT && socket.writeQueueFull()) {
+                    logger.debug("Closing push connection {}, client is not consuming messages", socketUUID);
+                    metrics().slowConsumerDisconnected();
+                    // not flagged as closed, so that the connection is handled
+                    // as lost and the client reconnects
+                    socket.close();
+                    throw new IllegalStateException("Push socket write queue is full: " + socketUUID);
+                }
                 socket.write(Buffer.buffer(message));
                 logger.debug("Message sent {}", message);
+                if (slowConsumerPolicy != SlowConsumerPolicy.NONE && socket.writeQueueFull()) {
+                    throttle(socket);
+                }
                 return Boolean.TRUE;
             });
         }
 
+        /*
+         * Sends the message to the node the socket is bound to. If the owning
+         * node cannot deliver it, because the socket has been disconnected or
+         * the node has left the cluster, the socket is considered lost.
+         */
+        private CompletableFuture<Boolean> sendRemote(String message) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            vertx().eventBus().request(sendAddress(socketUUID), message).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    logger.debug("Message sent to remote socket {}: {}", socketUUID, message);
+                    future.complete(Boolean.TRUE);
+                } else {
+                    if (isDeliveryFailure(ar.cause())) {
+                        logger.debug("Remote socket {} is no longer connected", socketUUID, ar.cause());
+                        lost = true;
+                    }
+                    future.completeExceptionally(ar.cause());
+                }
+            });
+            return future;
+        }
+
+        private static boolean isDeliveryFailure(Throwable error) {
+            if (error instanceof ReplyException) {
+                ReplyFailure failure = ((ReplyException) error).failureType();
+                return failure == ReplyFailure.NO_HANDLERS || failure == ReplyFailure.RECIPIENT_FAILURE;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isThrottled() {
+            return slowConsumerPolicy == SlowConsumerPolicy.COALESCE && throttled;
+        }
+
+        @Override
+        public void whenWritable(Runnable task) {
+            synchronized (this) {
+                if (throttled) {
+                    if (writableTasks == null) {
+                        writableTasks = new ArrayList<>();
+                    }
+                    writableTasks.add(task);
+                    return;
+                }
+            }
+            task.run();
+        }
+
+        /**
+         * Releases throttling state, discards pending tasks and stops
+         * accepting writes from other nodes, when the socket has been
+         * disconnected.
+         */
+        void release() {
+            if (remoteWriter != null) {
+                remoteWriter.unregister();
+            }
+            synchronized (this) {
+                writableTasks = null;
+                if (!throttled) {
+                    return;
+                }
+                throttled = false;
+            }
+            metrics().socketDrained();
+        }
+
+        // runs on the socket context
+        private void throttle(SockJSSocket socket) {
+            synchronized (this) {
+                if (throttled) {
+                    return;
+                }
+                throttled = true;
+            }
+            metrics().socketThrottled();
+            logger.debug("Push connection {} throttled, write queue is full", socketUUID);
+            socket.drainHandler(unused -> drained());
+        }
+
+        private void drained() {
+            List<Runnable> tasks;
+            synchronized (this) {
+                if (!throttled) {
+                    return;
+                }
+                throttled = false;
+                tasks = writableTasks;
+                writableTasks = null;
+            }
+            metrics().socketDrained();
+            logger.debug("Push connection {} drained", socketUUID);
+            if (tasks != null) {
+                tasks.forEach(Runnable::run);
+            }
+        }
+
         @Override
         public CompletionStage<Boolean> close() {
+            if (isRemote()) {
+                vertx().eventBus().publish(CLOSE_SOCKET_ADDRESS, socketUUID);
+                closed = true;
+                return CompletableFuture.completedFuture(Boolean.TRUE);
+            }
             return runCommand(socket -> {
                 socket.close();
                 closed = true;
@@ -564,7 +1020,14 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
 
         @Override
         public boolean isConnected() {
-            return tryGetSocket() != null && !closed;
+            // sockets on other nodes are assumed to be connected until a
+            // message cannot be delivered by the owning node
+            return !closed && !lost && (clustered || tryGetSocket() != null);
+        }
+
+        @Override
+        public void schedule(long delay, Runnable task) {
+            vertx().setTimer(delay, timerId -> task.run());
         }
 
         @Override
@@ -573,15 +1036,46 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         }
 
         private SockJSSocket tryGetSocket() {
-            Vertx vertx = Vertx.currentContext().owner();
-            return SockJSPushHandler.socketsMap(vertx).get(socketUUID);
+            return SockJSPushHandler.socketsMap(vertx()).get(socketUUID);
+        }
+
+        private boolean isRemote() {
+            return clustered && tryGetSocket() == null;
+        }
+
+        // socket commands may be sent from threads not bound to a Vert.x
+        // context, for example virtual threads, or by a socket deserialized
+        // with the session on another node
+        private Context context() {
+            if (context != null) {
+                return context;
+            }
+            Context current = Vertx.currentContext();
+            return current != null ? current : vertx().getOrCreateContext();
+        }
+
+        private Vertx vertx() {
+            if (context != null) {
+                return context.owner();
+            }
+            Context current = Vertx.currentContext();
+            if (current != null) {
+                return current.owner();
+            }
+            return ((VertxVaadinService) VaadinService.getCurrent()).getVertx();
+        }
+
+        private PushMetrics metrics() {
+            // metrics are not available for sockets restored from a
+            // serialized session
+            return metrics != null ? metrics : DETACHED_METRICS;
         }
 
         private <T> CompletableFuture<T> runCommand(Function<SockJSSocket, T> action) {
             CompletableFuture<T> future = new CompletableFuture<>();
             SockJSSocket socket = tryGetSocket();
             if (socket != null) {
-                Vertx.currentContext().runOnContext(v -> {
+                context().runOnContext(v -> {
                     try {
                         logger.trace("Running socket command");
                         action.apply(socket);
@@ -598,15 +1092,134 @@ public class SockJSPushHandler implements Handler<RoutingContext> {
         }
     }
 
+    /**
+     * Vaadin session and UI resolved for the messages of a push socket.
+     * <p>
+     * The binding is reused, skipping the session store, until the HTTP
+     * session is invalidated or regenerated. It is also dropped after half
+     * of the session timeout, so that the next message goes through the
+     * session handler again and refreshes the session in the store.
+     * <p>
+     * Messages handled with the binding are executed one at a time, so they
+     * share a single routing context and Vaadin request, whose attributes are
+     * reset for every message. Since they do not go through the session
+     * handler, the HTTP session is written back to the store by the push
+     * handler; a failed write drops the binding.
+     */
+    static final class SessionBinding {
+        private final Session httpSession;
+        private final String sessionId;
+        private final VaadinSession vaadinSession;
+        private final UI ui;
+        private final long expiresAt;
+        private volatile boolean invalidated;
+        private SockJSRoutingContext frameContext;
+        private VertxVaadinRequest frameRequest;
+        private boolean writing;
+        private boolean pendingWrite;
+
+        SessionBinding(Session httpSession, VaadinSession vaadinSession, UI ui) {
+            this.httpSession = httpSession;
+            this.sessionId = httpSession.id();
+            this.vaadinSession = vaadinSession;
+            this.ui = ui;
+            this.expiresAt = System.currentTimeMillis() + Math.max(0, httpSession.timeout() / 2);
+        }
+
+        boolean isValid(long now) {
+            return now < expiresAt
+                    && !invalidated
+                    && !httpSession.isDestroyed()
+                    && !httpSession.isRegenerated()
+                    && sessionId.equals(httpSession.id());
+        }
+
+        /**
+         * Gets the bound UI, or {@literal null} if the Vaadin session has
+         * been closed or the UI detached without invalidating the HTTP
+         * session. Must be called with the Vaadin session locked.
+         */
+        UI ui() {
+            if (vaadinSession.getState() != VaadinSessionState.OPEN || vaadinSession.getUIById(ui.getUIId()) != ui) {
+                return null;
+            }
+            return ui;
+        }
+
+        /**
+         * Gets the routing context shared by the messages handled with this
+         * binding. Must be called on the socket context.
+         */
+        SockJSRoutingContext frameContext(RoutingContext source) {
+            if (frameContext == null) {
+                frameContext = new SockJSRoutingContext(source, httpSession);
+            }
+            return frameContext;
+        }
+
+        /**
+         * Gets the Vaadin request for the message being handled, clearing
+         * the attributes set by the previous one. Must be called by the
+         * message callback.
+         */
+        VertxVaadinRequest frameRequest(VertxVaadinService service) {
+            frameContext.reset();
+            if (frameRequest == null) {
+                frameRequest = new VertxVaadinRequest(service, frameContext);
+            }
+            return frameRequest;
+        }
+
+        /**
+         * Requests the HTTP session to be written back to the store.
+         *
+         * @return {@literal true} if the caller must start the write,
+         *         {@literal false} if a write is already in flight.
+         */
+        synchronized boolean writeRequested() {
+            if (writing) {
+                pendingWrite = true;
+                return false;
+            }
+            writing = true;
+            return true;
+        }
+
+        /**
+         * Records the completion of a write of the HTTP session.
+         *
+         * @return {@literal true} if another write has been requested in the
+         *         meantime and must be started by the caller.
+         */
+        synchronized boolean writeCompleted() {
+            if (pendingWrite) {
+                pendingWrite = false;
+                return true;
+            }
+            writing = false;
+            return false;
+        }
+
+        void invalidate() {
+            invalidated = true;
+        }
+    }
+
     private static class PushEvent {
         private final Buffer message;
         private final RoutingContext routingContext;
         private final PushSocket socket;
+        private final SessionBinding binding;
 
         PushEvent(PushSocket socket, RoutingContext routingContext, Buffer message) {
+            this(socket, routingContext, message, null);
+        }
+
+        PushEvent(PushSocket socket, RoutingContext routingContext, Buffer message, SessionBinding binding) {
             this.message = message;
             this.routingContext = routingContext;
             this.socket = socket;
+            this.binding = binding;
         }
 
         PushSocket socket() {
@@ -623,12 +1236,38 @@ class SockJSRoutingContext implements RoutingContextInternal {
 
     private final RoutingContext decoratedContext;
     private final List<Handler<Void>> headersEndHandlers = new ArrayList<>();
-    private final Handler<RoutingContext> action;
+    private final Function<RoutingContext, CompletionStage<?>> action;
+    // request attributes are scoped to a single message
+    private final Map<String, Object> data;
     private Session session;
 
-    SockJSRoutingContext(RoutingContext source, Handler<RoutingContext> action) {
+    /**
+     * Creates a context that runs the given action once the session handler
+     * has resolved the HTTP session. The session is written back to the
+     * store after the stage returned by the action completes.
+     */
+    SockJSRoutingContext(RoutingContext source, Function<RoutingContext, CompletionStage<?>> action) {
         decoratedContext = source;
         this.action = action;
+        this.data = new HashMap<>(source.data());
+    }
+
+    /**
+     * Creates a context for a message handled with the HTTP session already
+     * bound to the socket, without going through the session handler.
+     */
+    SockJSRoutingContext(RoutingContext source, Session session) {
+        this(source, rc -> CompletableFuture.completedFuture(null));
+        this.session = session;
+    }
+
+    /**
+     * Clears the request attributes set while handling the previous message,
+     * when the context is reused for a new one.
+     */
+    void reset() {
+        data.clear();
+        data.putAll(decoratedContext.data());
     }
 
     @Override
@@ -654,12 +1293,24 @@ class SockJSRoutingContext implements RoutingContextInternal {
     @Override
     public void next() {
         // make sure the next handler run on the correct context
-        vertx().runOnContext(future -> {
-            action.handle(this);
-            headersEndHandlers.forEach(h -> h.handle(null));
+        vertx().runOnContext(unused -> {
+            Context context = Vertx.currentContext();
+            CompletionStage<?> completion;
+            try {
+                completion = action.apply(this);
+            } catch (RuntimeException ex) {
+                completion = CompletableFuture.failedFuture(ex);
+            }
+            // actions may be dispatched to other threads, the session must
+            // be flushed only once they are done with it
+            completion.whenComplete((result, error) -> context.runOnContext(v -> flush()));
         });
     }
 
+    private void flush() {
+        headersEndHandlers.forEach(h -> h.handle(null));
+    }
+
     @Override
     public int addHeadersEndHandler(Handler<Void> handler) {
         headersEndHandlers.add(handler);
@@ -698,7 +1349,7 @@ class SockJSRoutingContext implements RoutingContextInternal {
 
     @Override
     public Map<String, Object> data() {
-        return decoratedContext.data();
+        return data;
     }
 
     @Override
@@ -734,18 +1385,21 @@ class SockJSRoutingContext implements RoutingContextInternal {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(String key) {
-        return decoratedContext.get(key);
+        return (T) data.get(key);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(String key, T defaultValue) {
-        return decoratedContext.get(key, defaultValue);
+        return (T) data.getOrDefault(key, defaultValue);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T remove(String key) {
-        return decoratedContext.remove(key);
+        return (T) data.remove(key);
     }
 
     @Override
@@ -800,7 +1454,8 @@ class SockJSRoutingContext implements RoutingContextInternal {
 
     @Override
     public RoutingContext put(String key, Object obj) {
-        return decoratedContext.put(key, obj);
+        data.put(key, obj);
+        return this;
     }
 
     @Override
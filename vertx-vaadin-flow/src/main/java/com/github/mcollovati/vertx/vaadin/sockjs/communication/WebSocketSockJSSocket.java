@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.handler.sockjs.SockJSSocket;
+
+/**
+ * Exposes a plain {@link ServerWebSocket} as a {@link SockJSSocket}, so that
+ * push connections established without SockJS share the same handling.
+ * <p>
+ * Messages are sent as single WebSocket frames, without SockJS framing and
+ * escaping; binary frames avoid decoding the UTF-8 payload into a string
+ * before writing it. When a {@link PushDeflater} is given, messages are
+ * compressed with a context kept for the whole connection and always sent
+ * as binary frames; otherwise compression is up to the WebSocket
+ * permessage-deflate extension, according to the HTTP server options.
+ * <p>
+ * As for SockJS sockets, a local write handler is registered on the event
+ * bus, and the connection is kept alive by periodic
+ * ping frames.
+ */
+class WebSocketSockJSSocket implements SockJSSocket {
+
+    private final Vertx vertx;
+    private final ServerWebSocket webSocket;
+    private final RoutingContext routingContext;
+    private final boolean binaryFrames;
+    private final String writeHandlerID;
+    private final MessageConsumer<Buffer> writeHandler;
+    private final long heartbeatTimerId;
+    private final PushDeflater deflater;
+    private Handler<Void> closeHandler;
+
+    WebSocketSockJSSocket(
+            Vertx vertx,
+            ServerWebSocket webSocket,
+            RoutingContext routingContext,
+            boolean binaryFrames,
+            long heartbeatInterval,
+            PushDeflater deflater) {
+        this.vertx = vertx;
+        this.deflater = deflater;
+        this.webSocket = webSocket;
+        this.routingContext = routingContext;
+        this.binaryFrames = binaryFrames;
+        this.writeHandlerID = "vaadin-push-ws-" + UUID.randomUUID();
+        writeHandler = vertx.eventBus().<Buffer>localConsumer(writeHandlerID, message -> write(message.body()));
+        heartbeatTimerId = heartbeatInterval > 0
+                ? vertx.setPeriodic(heartbeatInterval, timerId -> webSocket.writePing(Buffer.buffer()))
+                : -1;
+        webSocket.closeHandler(unused -> {
+            release();
+            if (closeHandler != null) {
+                closeHandler.handle(null);
+            }
+        });
+    }
+
+    private void release() {
+        writeHandler.unregister();
+        if (heartbeatTimerId >= 0) {
+            vertx.cancelTimer(heartbeatTimerId);
+        }
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public SockJSSocket exceptionHandler(Handler<Throwable> handler) {
+        webSocket.exceptionHandler(handler);
+        return this;
+    }
+
+    @Override
+    public SockJSSocket handler(Handler<Buffer> handler) {
+        webSocket.handler(handler);
+        return this;
+    }
+
+    @Override
+    public SockJSSocket pause() {
+        webSocket.pause();
+        return this;
+    }
+
+    @Override
+    public SockJSSocket resume() {
+        webSocket.resume();
+        return this;
+    }
+
+    @Override
+    public SockJSSocket fetch(long amount) {
+        webSocket.fetch(amount);
+        return this;
+    }
+
+    @Override
+    public SockJSSocket endHandler(Handler<Void> endHandler) {
+        webSocket.endHandler(endHandler);
+        return this;
+    }
+
+    @Override
+    public SockJSSocket closeHandler(Handler<Void> closeHandler) {
+        this.closeHandler = closeHandler;
+        return this;
+    }
+
+    @Override
+    public Future<Void> write(Buffer data) {
+        if (deflater != null) {
+            Buffer compressed;
+            try {
+                compressed = deflater.compress(data);
+            } catch (IllegalStateException ex) {
+                return Future.failedFuture(ex);
+            }
+            return webSocket.writeBinaryMessage(compressed);
+        }
+        return binaryFrames
+                ? webSocket.writeBinaryMessage(data)
+                : webSocket.writeTextMessage(data.toString(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Future<Void> write(String data) {
+        if (deflater != null) {
+            return write(Buffer.buffer(data));
+        }
+        return binaryFrames
+                ? webSocket.writeBinaryMessage(Buffer.buffer(data))
+                : webSocket.writeTextMessage(data);
+    }
+
+    @Override
+    public void write(String data, Handler<AsyncResult<Void>> handler) {
+        write(data).onComplete(handler);
+    }
+
+    @Override
+    public void write(Buffer data, Handler<AsyncResult<Void>> handler) {
+        write(data).onComplete(handler);
+    }
+
+    @Override
+    public SockJSSocket setWriteQueueMaxSize(int maxSize) {
+        webSocket.setWriteQueueMaxSize(maxSize);
+        return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+        return webSocket.writeQueueFull();
+    }
+
+    @Override
+    public SockJSSocket drainHandler(Handler<Void> handler) {
+        webSocket.drainHandler(handler);
+        return this;
+    }
+
+    @Override
+    public String writeHandlerID() {
+        return writeHandlerID;
+    }
+
+    @Override
+    public Future<Void> end() {
+        return webSocket.close();
+    }
+
+    @Override
+    public void end(Handler<AsyncResult<Void>> handler) {
+        end().onComplete(handler);
+    }
+
+    @Override
+    public Future<Void> end(Buffer data) {
+        return write(data).compose(unused -> end());
+    }
+
+    @Override
+    public void end(Buffer data, Handler<AsyncResult<Void>> handler) {
+        end(data).onComplete(handler);
+    }
+
+    @Override
+    public void close() {
+        webSocket.close();
+    }
+
+    @Override
+    public void close(int statusCode, String reason) {
+        webSocket.close((short) statusCode, reason);
+    }
+
+    @Override
+    public SocketAddress remoteAddress() {
+        return webSocket.remoteAddress();
+    }
+
+    @Override
+    public SocketAddress localAddress() {
+        return webSocket.localAddress();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return webSocket.headers();
+    }
+
+    @Override
+    public String uri() {
+        return webSocket.uri();
+    }
+
+    @Override
+    public RoutingContext routingContext() {
+        return routingContext;
+    }
+
+    @Override
+    public Session webSession() {
+        return routingContext.session();
+    }
+
+    @Override
+    public User webUser() {
+        return routingContext.user();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SerializationCodec} based on Java serialization that replaces the
+ * descriptors of registered classes with a numeric identifier.
+ * <p>
+ * Java serialization writes the full class descriptor (class name, serial
+ * version UID and the name and type of every field) the first time a class is
+ * encountered in a stream, and every session attribute is written to its own
+ * stream. For large object graphs, such as a {@link com.vaadin.flow.server.VaadinSession},
+ * building and parsing descriptors accounts for a relevant share of the
+ * serialized size and of the time spent. Registered classes are instead written
+ * as an identifier followed by the serial version UID, and the reader uses the
+ * local class descriptor.
+ * <p>
+ * Object identity and cyclic references are preserved, as well as custom
+ * {@code writeObject}/{@code readObject} hooks; classes that are not
+ * registered are serialized as usual.
+ * <p>
+ * Identifiers are assigned in registration order, so all nodes sharing the
+ * session store must be configured with the same list of classes and run the
+ * same version of the registered classes. A serial version UID mismatch is
+ * reported as an {@link InvalidClassException}. Registered classes that cannot
+ * be loaded are ignored, but keep their identifier.
+ */
+public class CompactSerializationCodec implements SerializationCodec {
+
+    /**
+     * Classes registered by default, before any user provided registration.
+     * <p>
+     * The list can only be extended by appending new entries, otherwise data
+     * written by previous versions could not be read anymore.
+     */
+    static final List<String> DEFAULT_REGISTRATIONS = List.of(
+            "java.lang.Number",
+            "java.lang.Boolean",
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.lang.Double",
+            "java.lang.Float",
+            "java.lang.Short",
+            "java.lang.Byte",
+            "java.lang.Character",
+            "java.lang.Enum",
+            "java.util.ArrayList",
+            "java.util.LinkedList",
+            "java.util.HashMap",
+            "java.util.LinkedHashMap",
+            "java.util.HashSet",
+            "java.util.LinkedHashSet",
+            "java.util.TreeMap",
+            "java.util.TreeSet",
+            "java.util.Locale",
+            "java.util.Optional",
+            "java.util.UUID",
+            "java.util.concurrent.ConcurrentHashMap",
+            "java.util.concurrent.CopyOnWriteArrayList",
+            "java.util.concurrent.locks.ReentrantLock",
+            "java.util.concurrent.locks.ReentrantLock$Sync",
+            "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+            "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+            "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+            "com.vaadin.flow.server.VaadinSession",
+            "com.vaadin.flow.server.VaadinSessionState",
+            "com.vaadin.flow.server.WebBrowser",
+            "com.vaadin.flow.server.Attributes",
+            "com.vaadin.flow.component.UI",
+            "com.vaadin.flow.component.Component",
+            "com.vaadin.flow.component.internal.UIInternals",
+            "com.vaadin.flow.component.internal.ComponentMetaData",
+            "com.vaadin.flow.dom.Element",
+            "com.vaadin.flow.dom.Node",
+            "com.vaadin.flow.dom.impl.BasicElementStateProvider",
+            "com.vaadin.flow.internal.StateTree",
+            "com.vaadin.flow.internal.StateNode",
+            "com.vaadin.flow.internal.nodefeature.NodeFeature",
+            "com.vaadin.flow.internal.nodefeature.NodeMap",
+            "com.vaadin.flow.internal.nodefeature.NodeList",
+            "com.vaadin.flow.internal.nodefeature.ElementData",
+            "com.vaadin.flow.internal.nodefeature.ElementPropertyMap",
+            "com.vaadin.flow.internal.nodefeature.ElementAttributeMap",
+            "com.vaadin.flow.internal.nodefeature.ElementChildrenList",
+            "com.vaadin.flow.internal.nodefeature.ElementListenerMap",
+            "com.vaadin.flow.internal.nodefeature.ElementClassList",
+            "com.vaadin.flow.internal.nodefeature.ElementStylePropertyMap",
+            "com.vaadin.flow.internal.nodefeature.ComponentMapping",
+            "com.vaadin.flow.internal.nodefeature.VirtualChildrenList",
+            "com.vaadin.flow.internal.nodefeature.ClientCallableHandlers",
+            "com.vaadin.flow.internal.nodefeature.PushConfigurationMap",
+            "com.vaadin.flow.internal.nodefeature.LoadingIndicatorConfigurationMap",
+            "com.vaadin.flow.internal.nodefeature.ReconnectDialogConfigurationMap",
+            "com.vaadin.flow.internal.nodefeature.PollConfigurationMap");
+
+    private static final int UNREGISTERED = 0;
+    private static final int REGISTERED = 1;
+
+    private final List<String> classNames;
+    private final Map<String, Integer> classIds;
+    private final AtomicReferenceArray<ObjectStreamClass> descriptors;
+
+    /**
+     * Creates a new codec with the default class registrations.
+     */
+    public CompactSerializationCodec() {
+        this(List.of());
+    }
+
+    /**
+     * Creates a new codec registering the given classes in addition to the
+     * default ones.
+     *
+     * @param registeredClasses fully qualified names of the classes to register.
+     */
+    public CompactSerializationCodec(Collection<String> registeredClasses) {
+        Set<String> names = new LinkedHashSet<>(DEFAULT_REGISTRATIONS);
+        names.addAll(registeredClasses);
+        this.classNames = new ArrayList<>(names);
+        this.classIds = new HashMap<>();
+        for (int i = 0; i < classNames.size(); i++) {
+            classIds.put(classNames.get(i), i);
+        }
+        this.descriptors = new AtomicReferenceArray<>(classNames.size());
+    }
+
+    @Override
+    public void encode(Object object, OutputStream out) throws IOException {
+        ObjectOutputStream objectStream = new CompactObjectOutputStream(out);
+        objectStream.writeObject(object);
+        objectStream.flush();
+    }
+
+    @Override
+    public Object decode(InputStream in) throws IOException, ClassNotFoundException {
+        return new CompactObjectInputStream(in).readObject();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The identifier depends on the registered classes, since data can only
+     * be read with the same class registrations.
+     */
+    @Override
+    public int id() {
+        return (getClass().getName() + ":" + String.join(",", classNames)).hashCode();
+    }
+
+    /**
+     * Gets the identifier assigned to the given class.
+     *
+     * @param className fully qualified name of the class.
+     * @return the class identifier, or {@literal -1} if the class is not registered.
+     */
+    int classId(String className) {
+        return classIds.getOrDefault(className, -1);
+    }
+
+    private ObjectStreamClass descriptor(int id) throws IOException, ClassNotFoundException {
+        if (id < 0 || id >= classNames.size()) {
+            throw new StreamCorruptedException("Invalid registered class identifier " + id);
+        }
+        ObjectStreamClass descriptor = descriptors.get(id);
+        if (descriptor == null) {
+            descriptor = ObjectStreamClass.lookupAny(loadClass(classNames.get(id)));
+            descriptors.compareAndSet(id, null, descriptor);
+        }
+        return descriptor;
+    }
+
+    private static Class<?> loadClass(String className) throws ClassNotFoundException {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            try {
+                return Class.forName(className, false, contextClassLoader);
+            } catch (ClassNotFoundException ex) {
+                // fallback to the codec class loader
+            }
+        }
+        return Class.forName(className, false, CompactSerializationCodec.class.getClassLoader());
+    }
+
+    private final class CompactObjectOutputStream extends ObjectOutputStream {
+
+        CompactObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            int id = classId(desc.getName());
+            if (id >= 0) {
+                writeByte(REGISTERED);
+                writeInt(id);
+                writeLong(desc.getSerialVersionUID());
+            } else {
+                writeByte(UNREGISTERED);
+                super.writeClassDescriptor(desc);
+            }
+        }
+    }
+
+    private final class CompactObjectInputStream extends ObjectInputStream {
+
+        CompactObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            int type = readUnsignedByte();
+            if (type == REGISTERED) {
+                ObjectStreamClass desc = descriptor(readInt());
+                long serialVersionUID = readLong();
+                if (desc.getSerialVersionUID() != serialVersionUID) {
+                    throw new InvalidClassException(
+                            desc.getName(),
+                            "local class incompatible: stream classdesc serialVersionUID = " + serialVersionUID
+                                    + ", local class serialVersionUID = " + desc.getSerialVersionUID());
+                }
+                return desc;
+            } else if (type == UNREGISTERED) {
+                return super.readClassDescriptor();
+            }
+            throw new StreamCorruptedException("Invalid class descriptor type " + type);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            // descriptors of registered classes are local, so the class is already resolved
+            Class<?> clazz = desc.forClass();
+            if (clazz != null) {
+                return clazz;
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -25,9 +25,18 @@ package com.github.mcollovati.vertx.web.serialization;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.shareddata.impl.ClusterSerializable;
 
+/**
+ * Wraps a session attribute value that is not natively supported by the
+ * clustered session store, serializing it with a {@link SerializationCodec}.
+ * <p>
+ * A value read from a buffer is kept in serialized form until it is first
+ * accessed; until then, writing it again simply copies the serialized bytes.
+ */
 public class SerializableHolder implements ClusterSerializable {
 
     private transient Object object;
+    private transient SerializationCodec codec;
+    private transient Buffer serialized;
 
     public SerializableHolder() {}
 
@@ -35,21 +44,48 @@ public class SerializableHolder implements ClusterSerializable {
         this.object = object;
     }
 
+    public SerializableHolder(Object object, SerializationCodec codec) {
+        this.object = object;
+        this.codec = codec;
+    }
+
+    /**
+     * Sets the codec used to serialize the held object.
+     *
+     * @param codec the codec, or {@literal null} to use the default one.
+     */
+    public void setCodec(SerializationCodec codec) {
+        this.codec = codec;
+    }
+
     @Override
-    public void writeToBuffer(Buffer buffer) {
-        SerializationSupport.writeToBuffer(buffer, object);
+    public synchronized void writeToBuffer(Buffer buffer) {
+        if (serialized != null) {
+            buffer.appendBuffer(serialized);
+        } else {
+            SerializationSupport.writeToBuffer(
+                    buffer, object, codec != null ? codec : SerializationSupport.defaultCodec());
+        }
     }
 
     @Override
-    public int readFromBuffer(int pos, Buffer buffer) {
-        return SerializationSupport.readFromBuffer(pos, buffer, this::set);
+    public synchronized int readFromBuffer(int pos, Buffer buffer) {
+        // serialized data is prefixed by its size
+        int end = pos + 4 + buffer.getInt(pos);
+        serialized = buffer.getBuffer(pos, end);
+        object = null;
+        return end;
     }
 
     private void set(Object object) {
         this.object = object;
     }
 
-    public Object get() {
+    public synchronized Object get() {
+        if (serialized != null) {
+            SerializationSupport.readFromBuffer(0, serialized, this::set);
+            serialized = null;
+        }
         return object;
     }
 }
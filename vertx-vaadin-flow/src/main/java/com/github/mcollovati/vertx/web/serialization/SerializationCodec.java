@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Strategy used by {@link SerializationSupport} to turn session attributes
+ * into bytes and back.
+ * <p>
+ * Implementations must be thread safe, since the same instance is shared by
+ * all the sessions of the application, and must produce data that can be read
+ * by every node of the cluster. Streams are provided by
+ * {@link SerializationSupport} and write to, or read from, the target
+ * {@link io.vertx.core.buffer.Buffer} directly; implementations must not close
+ * them.
+ */
+public interface SerializationCodec {
+
+    /**
+     * Writes the given object to the output stream.
+     *
+     * @param object the object to serialize, may be {@literal null}.
+     * @param out    the stream to write to.
+     * @throws IOException if the object cannot be serialized.
+     */
+    void encode(Object object, OutputStream out) throws IOException;
+
+    /**
+     * Reads an object previously written by {@link #encode(Object, OutputStream)}.
+     *
+     * @param in the stream to read from.
+     * @return the deserialized object.
+     * @throws IOException            if the object cannot be deserialized.
+     * @throws ClassNotFoundException if a class of the serialized object graph cannot be found.
+     */
+    Object decode(InputStream in) throws IOException, ClassNotFoundException;
+
+    /**
+     * Gets the identifier written along with the data produced by this codec,
+     * so that it can be decoded by a codec with the same identifier.
+     * <p>
+     * Codecs producing different data, for example because of a different
+     * configuration, must have different identifiers.
+     *
+     * @return the codec identifier.
+     */
+    default int id() {
+        return getClass().getName().hashCode();
+    }
+}
@@ -22,30 +22,141 @@
  */
 package com.github.mcollovati.vertx.web.serialization;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import io.vertx.core.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Serializes session attributes into Vert.x buffers.
+ * <p>
+ * The actual serialization is delegated to a {@link SerializationCodec}.
+ * By default objects are written with plain Java serialization, producing
+ * the same data as previous versions. Session stores can opt in to a
+ * different codec; its data is then tagged with the codec identifier, so
+ * that it can be read by any node where a codec with the same identifier
+ * has been created.
+ * <p>
+ * Objects are written directly into the target buffer, prefixed by the size
+ * of the serialized data, and read back from the buffer without intermediate
+ * copies.
+ */
 public class SerializationSupport {
 
+    /**
+     * Name of the codec based on plain Java serialization.
+     */
+    public static final String JDK_CODEC = "jdk";
+
+    /**
+     * Name of the codec based on Java serialization with class registration.
+     */
+    public static final String COMPACT_CODEC = "compact";
+
     private static final Logger logger = LoggerFactory.getLogger(SerializationSupport.class);
 
+    // never starts Java serialization data, that begins with 0xACED
+    private static final short CODEC_TAG = 0x5643;
+    private static final int CODEC_HEADER_SIZE = 6;
+
+    private static final SerializationCodec DEFAULT_CODEC = new JdkSerializationCodec();
+    private static final Map<Integer, SerializationCodec> CODECS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the codec used when none is specified, based on plain Java
+     * serialization.
+     *
+     * @return the default codec.
+     */
+    public static SerializationCodec defaultCodec() {
+        return DEFAULT_CODEC;
+    }
+
+    /**
+     * Registers a codec, so that data written with it can be read on this
+     * node. Codecs created by {@link #createCodec(String, Collection)} or
+     * used to write data are registered automatically.
+     *
+     * @param codec the codec to register, not {@literal null}.
+     */
+    public static void registerCodec(SerializationCodec codec) {
+        Objects.requireNonNull(codec, "codec must not be null");
+        if (!isDefault(codec)) {
+            CODECS.putIfAbsent(codec.id(), codec);
+        }
+    }
+
+    /**
+     * Creates a codec given its name.
+     * <p>
+     * The name can be either {@link #JDK_CODEC}, {@link #COMPACT_CODEC} or the
+     * fully qualified name of a class implementing {@link SerializationCodec}
+     * with a public no-args constructor.
+     *
+     * @param name              the codec name.
+     * @param registeredClasses classes to register, if supported by the codec.
+     * @return a new codec instance.
+     * @throws IllegalArgumentException if the codec cannot be created.
+     */
+    public static SerializationCodec createCodec(String name, Collection<String> registeredClasses) {
+        SerializationCodec codec;
+        if (JDK_CODEC.equals(name)) {
+            return DEFAULT_CODEC;
+        } else if (COMPACT_CODEC.equals(name)) {
+            codec = new CompactSerializationCodec(registeredClasses);
+        } else {
+            codec = instantiateCodec(name);
+        }
+        registerCodec(codec);
+        return codec;
+    }
+
+    private static SerializationCodec instantiateCodec(String name) {
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = SerializationSupport.class.getClassLoader();
+            }
+            return Class.forName(name, true, classLoader)
+                    .asSubclass(SerializationCodec.class)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Cannot create serialization codec " + name, ex);
+        }
+    }
+
     public static void writeToBuffer(Buffer buffer, Object object) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ObjectOutputStream objectStream = new ObjectOutputStream(baos)) {
-            objectStream.writeObject(object);
-            objectStream.flush();
+        writeToBuffer(buffer, object, DEFAULT_CODEC);
+    }
+
+    /**
+     * Writes an object to the buffer with the given codec.
+     *
+     * @param buffer the target buffer.
+     * @param object the object to serialize.
+     * @param codec  the codec to use, not {@literal null}.
+     */
+    public static void writeToBuffer(Buffer buffer, Object object, SerializationCodec codec) {
+        int sizePos = buffer.length();
+        buffer.appendInt(0);
+        if (!isDefault(codec)) {
+            registerCodec(codec);
+            buffer.appendShort(CODEC_TAG).appendInt(codec.id());
+        }
+        try (OutputStream out = new BufferOutputStream(buffer)) {
+            codec.encode(object, out);
         } catch (Exception ex) {
             logger.error("Error serializing object of type {}", object.getClass(), ex);
         }
-        buffer.appendInt(baos.size());
-        buffer.appendBytes(baos.toByteArray());
+        buffer.setInt(sizePos, buffer.length() - sizePos - 4);
     }
 
     @SuppressWarnings("unchecked")
@@ -53,12 +164,93 @@ public class SerializationSupport {
         int size = buffer.getInt(pos);
         pos += 4;
         int end = pos + size;
-        try (ObjectInputStream is = new ObjectInputStream(new ByteArrayInputStream(buffer.getBytes(pos, end)))) {
-            Object object = is.readObject();
+        SerializationCodec codec = DEFAULT_CODEC;
+        if (size >= CODEC_HEADER_SIZE && buffer.getShort(pos) == CODEC_TAG) {
+            int codecId = buffer.getInt(pos + 2);
+            codec = CODECS.get(codecId);
+            if (codec == null) {
+                logger.error("Cannot deserialize object, no serialization codec registered with id {}", codecId);
+                return end;
+            }
+            pos += CODEC_HEADER_SIZE;
+        }
+        try (InputStream is = new BufferInputStream(buffer, pos, end)) {
+            Object object = codec.decode(is);
             objectConsumer.accept((T) object);
         } catch (Exception ex) {
             logger.error("Error deserializing object", ex);
         }
         return end;
     }
+
+    private static boolean isDefault(SerializationCodec codec) {
+        return codec.getClass() == JdkSerializationCodec.class;
+    }
+
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final Buffer buffer;
+
+        private BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final Buffer buffer;
+        private final int end;
+        private int pos;
+
+        private BufferInputStream(Buffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            if (pos >= end) {
+                return -1;
+            }
+            return buffer.getByte(pos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (pos >= end) {
+                return -1;
+            }
+            int count = Math.min(len, end - pos);
+            buffer.getBytes(pos, pos + count, b, off);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, end - pos));
+            pos += (int) count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return end - pos;
+        }
+    }
 }
@@ -23,7 +23,6 @@
 package com.github.mcollovati.vertx.web.sstore;
 
 import java.util.Objects;
-import java.util.Set;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
@@ -35,22 +34,25 @@ import io.vertx.ext.web.Session;
 import io.vertx.ext.web.sstore.LocalSessionStore;
 import io.vertx.ext.web.sstore.impl.LocalSessionStoreImpl;
 
-class ExtendedLocalSessionStoreImpl implements ExtendedLocalSessionStore {
+class ExtendedLocalSessionStoreImpl implements ExtendedLocalSessionStore, Handler<Long> {
 
+    private final Vertx vertx;
+    private final long reaperInterval;
     private final LocalMap<String, Session> localMap;
     private final LocalSessionStore sessionsStore;
+    private final SessionExpiryIndex expiryIndex = new SessionExpiryIndex();
     private Handler<AsyncResult<String>> expirationHandler = x -> {};
+    private long timerID = -1;
+    private boolean closed;
 
     public ExtendedLocalSessionStoreImpl(Vertx vertx, String sessionMapName, long reaperInterval) {
+        this.vertx = vertx;
+        this.reaperInterval = reaperInterval;
         this.localMap = vertx.sharedData().getLocalMap(sessionMapName);
-        this.sessionsStore = new LocalSessionStoreImpl() {
-            @Override
-            public synchronized void handle(Long tid) {
-                notifyExpiredSessions(() -> super.handle(tid));
-            }
-        };
-        this.sessionsStore.init(
-                vertx, new JsonObject().put("mapName", sessionMapName).put("reaperInterval", reaperInterval));
+        this.sessionsStore = new LocalSessionStoreImpl();
+        // expired sessions are reaped by this store, using the expiry index
+        this.sessionsStore.init(vertx, new JsonObject().put("mapName", sessionMapName).put("reaperInterval", 0L));
+        this.setTimer();
     }
 
     @Override
@@ -81,45 +83,51 @@ class ExtendedLocalSessionStoreImpl implements ExtendedLocalSessionStore {
 
     @Override
     public ExtendedSessionStore get(String id, Handler<AsyncResult<Session>> resultHandler) {
-        sessionsStore.get(id, resultHandler);
+        get(id).onComplete(resultHandler);
         return this;
     }
 
     @Override
     public Future<Session> get(String cookieValue) {
-        return sessionsStore.get(cookieValue);
+        return sessionsStore.get(cookieValue).onSuccess(session -> {
+            if (session != null) {
+                expiryIndex.touch(session);
+            }
+        });
     }
 
     @Override
     public ExtendedSessionStore delete(String id, Handler<AsyncResult<Void>> resultHandler) {
-        sessionsStore.delete(id, resultHandler);
+        delete(id).onComplete(resultHandler);
         return this;
     }
 
     @Override
     public Future<Void> delete(String cookieValue) {
+        expiryIndex.remove(cookieValue);
         return sessionsStore.delete(cookieValue);
     }
 
     @Override
     public ExtendedSessionStore put(Session session, Handler<AsyncResult<Void>> resultHandler) {
-        sessionsStore.put(session, resultHandler);
+        put(session).onComplete(resultHandler);
         return this;
     }
 
     @Override
     public Future<Void> put(Session session) {
-        return sessionsStore.put(session);
+        return sessionsStore.put(session).onSuccess(unused -> expiryIndex.touch(session));
     }
 
     @Override
     public ExtendedSessionStore clear(Handler<AsyncResult<Void>> resultHandler) {
-        sessionsStore.clear(resultHandler);
+        clear().onComplete(resultHandler);
         return this;
     }
 
     @Override
     public Future<Void> clear() {
+        expiryIndex.clear();
         return sessionsStore.clear();
     }
 
@@ -135,15 +143,41 @@ class ExtendedLocalSessionStoreImpl implements ExtendedLocalSessionStore {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
         sessionsStore.close();
+        if (timerID != -1) {
+            vertx.cancelTimer(timerID);
+        }
+        closed = true;
+    }
+
+    @Override
+    public void handle(Long tid) {
+        long now = System.currentTimeMillis();
+        for (String id : expiryIndex.pollDue(now)) {
+            Session session = localMap.get(id);
+            if (session == null) {
+                continue;
+            }
+            if (SessionExpiryIndex.isExpired(session, now)) {
+                if (localMap.removeIfPresent(id, session)) {
+                    onSessionExpired(id);
+                }
+            } else {
+                expiryIndex.touch(session);
+            }
+        }
+        synchronized (this) {
+            if (!closed) {
+                setTimer();
+            }
+        }
     }
 
-    private void notifyExpiredSessions(Runnable reaper) {
-        Set<String> before = localMap.keySet();
-        reaper.run();
-        before.removeAll(localMap.keySet());
-        before.forEach(this::onSessionExpired);
+    private void setTimer() {
+        if (reaperInterval != 0) {
+            timerID = vertx.setTimer(reaperInterval, this);
+        }
     }
 
     protected void onSessionExpired(String sessionId) {
@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.ext.web.Session;
+
+/**
+ * Local copy of the sessions used by the current node, backed by a
+ * {@link LocalMap} and optionally bounded in size.
+ * <p>
+ * Every entry carries the version stamp of the session data it holds, so
+ * that invalidation requests referring to older data can be ignored. When
+ * the maximum size is exceeded, the least recently used sessions are evicted;
+ * they remain available in the clustered store.
+ * <p>
+ * Entries also track when they were last known to be up to date; an entry
+ * not validated for longer than the maximum staleness should be checked
+ * against the clustered store, since an invalidation request may have been
+ * lost.
+ */
+final class NearCache {
+
+    private final LocalMap<String, Session> localMap;
+    private final int maxSize;
+    private final long maxStaleness;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Creates a new near cache whose entries never become stale.
+     *
+     * @param localMap the map that holds the sessions.
+     * @param maxSize  the maximum number of cached sessions, {@literal 0} for no limit.
+     */
+    NearCache(LocalMap<String, Session> localMap, int maxSize) {
+        this(localMap, maxSize, 0);
+    }
+
+    /**
+     * Creates a new near cache.
+     *
+     * @param localMap     the map that holds the sessions.
+     * @param maxSize      the maximum number of cached sessions, {@literal 0} for no limit.
+     * @param maxStaleness the time, in ms, after which an entry should be validated
+     *                     again, {@literal 0} for no limit.
+     */
+    NearCache(LocalMap<String, Session> localMap, int maxSize, long maxStaleness) {
+        this.localMap = localMap;
+        this.maxSize = maxSize;
+        this.maxStaleness = maxStaleness;
+    }
+
+    synchronized Session get(String id) {
+        Session session = localMap.get(id);
+        if (session == null) {
+            entries.remove(id);
+        } else if (entries.get(id) == null) {
+            // entry added to the shared map by another store instance
+            entries.put(id, new Entry(-1L));
+        }
+        return session;
+    }
+
+    /**
+     * Checks if a cached session has not been validated for longer than the maximum staleness.
+     *
+     * @param id  the session id.
+     * @param now the current time, in ms.
+     * @return {@literal true} if the session should be validated against the clustered store.
+     */
+    synchronized boolean isStale(String id, long now) {
+        Entry entry = entries.get(id);
+        return maxStaleness > 0 && entry != null && now - entry.validatedAt > maxStaleness;
+    }
+
+    /**
+     * Adds or replaces a session.
+     *
+     * @param session the session.
+     * @param stamp   the version stamp of the session data.
+     * @return the ids of the sessions evicted to make room for the new entry.
+     */
+    synchronized List<String> put(Session session, long stamp) {
+        localMap.put(session.id(), session);
+        entries.put(session.id(), new Entry(stamp));
+        return evict();
+    }
+
+    /**
+     * Adds or replaces a session whose data has not been replicated yet,
+     * keeping the stamp of the cached entry.
+     *
+     * @param session the session.
+     * @return the ids of the sessions evicted to make room for the new entry.
+     */
+    synchronized List<String> update(Session session) {
+        Entry entry = entries.get(session.id());
+        localMap.put(session.id(), session);
+        entries.put(session.id(), new Entry(entry != null ? entry.stamp : -1L));
+        return evict();
+    }
+
+    /**
+     * Updates the stamp of a cached session, once its data has been replicated.
+     *
+     * @param session the replicated session.
+     * @param stamp   the version stamp of the replicated data.
+     */
+    synchronized void replicated(Session session, long stamp) {
+        if (localMap.get(session.id()) == session) {
+            entries.put(session.id(), new Entry(stamp));
+        }
+    }
+
+    /**
+     * Adds a session loaded from the clustered store, unless a copy is already cached.
+     *
+     * @param session the session.
+     * @param stamp   the version stamp of the session data.
+     * @param evicted list filled with the ids of the sessions evicted to make room for the new entry.
+     * @return the cached session.
+     */
+    synchronized Session putIfAbsent(Session session, long stamp, List<String> evicted) {
+        Session current = localMap.putIfAbsent(session.id(), session);
+        if (current != null) {
+            return current;
+        }
+        entries.put(session.id(), new Entry(stamp));
+        evicted.addAll(evict());
+        return session;
+    }
+
+    /**
+     * Validates a cached session against the copy currently stored in the cluster.
+     * <p>
+     * The cached session is replaced if the stored data is newer, and removed
+     * if the session is no longer stored, unless it has never been replicated.
+     *
+     * @param cached the cached session.
+     * @param loaded the session loaded from the clustered store, {@literal null} if not found.
+     * @param stamp  the version stamp of the loaded session data.
+     * @return the up-to-date session, {@literal null} if it has been removed.
+     */
+    synchronized Session revalidate(Session cached, Session loaded, long stamp) {
+        String id = cached.id();
+        Session current = localMap.get(id);
+        Entry entry = entries.get(id);
+        if (current != cached || entry == null) {
+            // written or invalidated in the meantime
+            return current != null ? current : cached;
+        }
+        if (loaded == null) {
+            if (entry.stamp < 0) {
+                entries.put(id, new Entry(entry.stamp));
+                return cached;
+            }
+            remove(id);
+            return null;
+        }
+        if (stamp > entry.stamp) {
+            localMap.put(id, loaded);
+            entries.put(id, new Entry(stamp));
+            return loaded;
+        }
+        entries.put(id, new Entry(entry.stamp));
+        return cached;
+    }
+
+    synchronized void remove(String id) {
+        localMap.remove(id);
+        entries.remove(id);
+    }
+
+    /**
+     * Removes the session if the cached copy is older than the given stamp.
+     *
+     * @param id    the session id.
+     * @param stamp the version stamp of the session data written elsewhere.
+     * @return {@literal true} if the session was removed, otherwise {@literal false}.
+     */
+    synchronized boolean invalidate(String id, long stamp) {
+        Entry current = entries.get(id);
+        if (current != null && current.stamp >= stamp) {
+            return false;
+        }
+        entries.remove(id);
+        return localMap.remove(id) != null;
+    }
+
+    synchronized void clear() {
+        localMap.clear();
+        entries.clear();
+    }
+
+    int size() {
+        return localMap.size();
+    }
+
+    void close() {
+        localMap.close();
+    }
+
+    private List<String> evict() {
+        List<String> evicted = new ArrayList<>();
+        if (maxSize > 0 && entries.size() > maxSize) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                String id = iterator.next().getKey();
+                iterator.remove();
+                localMap.remove(id);
+                evicted.add(id);
+            }
+        }
+        return evicted;
+    }
+
+    private static final class Entry {
+        private final long stamp;
+        private final long validatedAt;
+
+        private Entry(long stamp) {
+            this.stamp = stamp;
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+}
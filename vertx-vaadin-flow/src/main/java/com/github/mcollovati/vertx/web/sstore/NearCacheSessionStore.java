@@ -23,7 +23,35 @@
 package com.github.mcollovati.vertx.web.sstore;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 
+/**
+ * A clustered session store that keeps a local copy of the sessions used by
+ * the current node.
+ * <p>
+ * By default, every write replicates the whole session to the cluster. With
+ * delta replication enabled, subsequent writes replicate only the attributes
+ * that have been put or removed, or whose value is not immutable, along with
+ * the session metadata; a full snapshot is still replicated periodically,
+ * based on the number of writes and on the time elapsed since the previous
+ * snapshot. A delta is written only if the stored one is the last delta
+ * written by the same node, otherwise a full snapshot is written instead.
+ * <p>
+ * Sessions found in the near cache are served without querying the cluster.
+ * Every write publishes an invalidation message on the event bus, carrying
+ * the version stamp of the written data, so that other nodes drop their
+ * outdated copies. Since invalidation messages may be lost, a cached session
+ * not validated for longer than a maximum staleness is compared with the
+ * copy stored in the cluster and replaced if that is newer. The near cache
+ * is bounded in size: least recently used sessions are evicted and reloaded
+ * from the cluster when needed.
+ * <p>
+ * With write-behind enabled, writes complete as soon as the near cache is
+ * updated; the session is serialized right away, but replication to the
+ * cluster happens asynchronously and multiple writes of the same session
+ * within a short window are coalesced into one. Failed writes are retried,
+ * and closing the store waits for pending writes to be flushed.
+ */
 public interface NearCacheSessionStore extends ExtendedSessionStore {
     /**
      * The default name used for the session map
@@ -40,6 +68,56 @@ public interface NearCacheSessionStore extends ExtendedSessionStore {
      */
     long DEFAULT_REAPER_INTERVAL = 1000;
 
+    /**
+     * Default maximum number of delta writes, for a single session, between two full snapshots
+     */
+    int DEFAULT_FULL_SNAPSHOT_INTERVAL = 20;
+
+    /**
+     * Default maximum time, in ms, between two full snapshots of a session
+     */
+    long DEFAULT_FULL_SNAPSHOT_PERIOD = 30 * 1000; // 30 seconds
+
+    /**
+     * Default maximum number of sessions kept in the near cache, 0 means no limit
+     */
+    int DEFAULT_NEAR_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * Default time, in ms, after which a near cache entry is validated again against the cluster, 0 means never
+     */
+    long DEFAULT_NEAR_CACHE_MAX_STALENESS = 60 * 1000; // 1 minute
+
+    /**
+     * Default time, in ms, a write-behind session write waits to be coalesced with following ones
+     */
+    long DEFAULT_WRITE_BEHIND_DELAY = 100;
+
+    /**
+     * Default maximum number of sessions waiting to be written when write-behind is enabled
+     */
+    int DEFAULT_WRITE_BEHIND_MAX_PENDING = 10000;
+
+    /**
+     * Default maximum number of attempts to write a session when write-behind is enabled
+     */
+    int DEFAULT_WRITE_BEHIND_MAX_ATTEMPTS = 5;
+
+    /**
+     * Gets a snapshot of the write-behind metrics.
+     * <p>
+     * The returned object contains the number of {@code pending} and
+     * {@code inFlight} writes, the {@code queued}, {@code coalesced},
+     * {@code rejected}, {@code flushed}, {@code failed}, {@code retried} and {@code dropped} write
+     * counters, where dropped writes have been given up or rejected by a conflicting write,
+     * the age, in ms, of the oldest pending write ({@code oldestPendingAge})
+     * and the {@code lastLag} and {@code maxLag}, in ms, between a session
+     * write request and its replication to the cluster.
+     *
+     * @return the write-behind metrics, empty if write-behind is not enabled.
+     */
+    JsonObject writeBehindMetrics();
+
     /**
      * Create a session store
      *
@@ -123,4 +201,42 @@ public interface NearCacheSessionStore extends ExtendedSessionStore {
     static NearCacheSessionStore create(Vertx vertx, long retryTimeout, long reaperInterval) {
         return new NearCacheSessionStoreImpl(vertx, DEFAULT_SESSION_MAP_NAME, retryTimeout, reaperInterval);
     }
+
+    /**
+     * Create a session store.
+     *
+     * Supported options are:
+     * <ul>
+     *     <li>{@code mapName}: the session map name</li>
+     *     <li>{@code retryTimeout}: the store retry timeout, in ms</li>
+     *     <li>{@code reaperInterval}: how often, in ms, to check for expired sessions</li>
+     *     <li>{@code deltaReplication}: whether only changed attributes should be replicated,
+     *     defaults to {@literal false}</li>
+     *     <li>{@code fullSnapshotInterval}: maximum number of delta writes between two full snapshots</li>
+     *     <li>{@code fullSnapshotPeriod}: maximum time, in ms, between two full snapshots</li>
+     *     <li>{@code nearCacheMaxSize}: maximum number of sessions kept in the near cache;
+     *     least recently used sessions are evicted first, {@literal 0} means no limit</li>
+     *     <li>{@code nearCacheMaxStaleness}: time, in ms, after which a session found in the near cache
+     *     is validated again against the cluster, {@literal 0} means never</li>
+     *     <li>{@code writeBehind}: whether session writes should complete as soon as the near cache is
+     *     updated, replicating the session to the cluster asynchronously; defaults to {@literal false}</li>
+     *     <li>{@code writeBehindDelay}: time, in ms, a write waits to be coalesced with following
+     *     writes of the same session</li>
+     *     <li>{@code writeBehindMaxPending}: maximum number of sessions waiting to be written;
+     *     when exceeded, writes are performed synchronously</li>
+     *     <li>{@code writeBehindMaxAttempts}: maximum number of attempts to write a session; failed
+     *     writes are retried with an exponential backoff</li>
+     *     <li>{@code serializationCodec}: codec used to serialize session attributes, {@code jdk},
+     *     {@code compact} or a codec class name; defaults to {@code jdk}</li>
+     *     <li>{@code serializationRegisteredClasses}: classes registered by the {@code compact} codec,
+     *     in addition to the default ones</li>
+     * </ul>
+     *
+     * @param vertx   the Vert.x instance
+     * @param options the store options
+     * @return the session store
+     */
+    static NearCacheSessionStore create(Vertx vertx, JsonObject options) {
+        return new NearCacheSessionStoreImpl(vertx, options);
+    }
 }
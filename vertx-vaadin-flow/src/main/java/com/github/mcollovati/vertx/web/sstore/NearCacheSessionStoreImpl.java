@@ -22,35 +22,113 @@
  */
 package com.github.mcollovati.vertx.web.sstore;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.AsyncMap;
 import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
 import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.ClusteredSessionStore;
 import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.mcollovati.vertx.web.serialization.SerializableHolder;
+import com.github.mcollovati.vertx.web.serialization.SerializationCodec;
+import com.github.mcollovati.vertx.web.serialization.SerializationSupport;
 
 class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long> {
 
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheSessionStoreImpl.class);
+
+    private static final String NODE_ID_MAP = "vertx-vaadin.sessionStore.node";
+
     private final Vertx vertx;
+    private final String sessionMapName;
     private final long reaperInterval;
-    private final LocalMap<String, Session> localMap;
+    private final boolean deltaReplication;
+    private final int fullSnapshotInterval;
+    private final long fullSnapshotPeriod;
+    private final NearCache nearCache;
     private final ClusteredSessionStore clusteredSessionStore;
+    private final Map<String, ReplicationState> replicationStates = new ConcurrentHashMap<>();
+    private final SessionExpiryIndex expiryIndex = new SessionExpiryIndex();
+    private final String nodeId;
+    private final String invalidationAddress;
+    private final MessageConsumer<JsonObject> invalidationConsumer;
+    private final WriteBehindQueue writeBehindQueue;
+    private final SerializationCodec codec;
     private Handler<AsyncResult<String>> expirationHandler = x -> {};
+    private Future<AsyncMap<String, Session>> sessionMap;
+    private Future<AsyncMap<String, Object>> deltaMap;
     private long timerID = -1;
     private boolean closed;
 
     public NearCacheSessionStoreImpl(Vertx vertx, String sessionMapName, long retryTimeout, long reaperInterval) {
+        this(
+                vertx,
+                new JsonObject()
+                        .put("mapName", sessionMapName)
+                        .put("retryTimeout", retryTimeout)
+                        .put("reaperInterval", reaperInterval));
+    }
+
+    NearCacheSessionStoreImpl(Vertx vertx, JsonObject options) {
         this.vertx = vertx;
-        this.reaperInterval = reaperInterval;
-        this.clusteredSessionStore = ClusteredSessionStore.create(vertx, sessionMapName, retryTimeout);
-        this.localMap = vertx.sharedData().getLocalMap(sessionMapName);
+        this.sessionMapName = options.getString("mapName", DEFAULT_SESSION_MAP_NAME);
+        this.reaperInterval = options.getLong("reaperInterval", DEFAULT_REAPER_INTERVAL);
+        this.deltaReplication = options.getBoolean("deltaReplication", false);
+        this.fullSnapshotInterval = options.getInteger("fullSnapshotInterval", DEFAULT_FULL_SNAPSHOT_INTERVAL);
+        this.fullSnapshotPeriod = options.getLong("fullSnapshotPeriod", DEFAULT_FULL_SNAPSHOT_PERIOD);
+        this.codec = SerializationSupport.createCodec(
+                options.getString("serializationCodec", SerializationSupport.JDK_CODEC),
+                options.getJsonArray("serializationRegisteredClasses", new JsonArray()).stream()
+                        .filter(String.class::isInstance)
+                        .map(String.class::cast)
+                        .collect(Collectors.toList()));
+        this.clusteredSessionStore = ClusteredSessionStore.create(
+                vertx, sessionMapName, options.getLong("retryTimeout", DEFAULT_RETRY_TIMEOUT));
+        this.nearCache = new NearCache(
+                vertx.sharedData().getLocalMap(sessionMapName),
+                options.getInteger("nearCacheMaxSize", DEFAULT_NEAR_CACHE_MAX_SIZE),
+                options.getLong("nearCacheMaxStaleness", DEFAULT_NEAR_CACHE_MAX_STALENESS));
+        // stores of the same Vert.x instance share the near cache,
+        // so they must not invalidate each other entries
+        LocalMap<String, String> nodeIds = vertx.sharedData().getLocalMap(NODE_ID_MAP);
+        String newNodeId = UUID.randomUUID().toString();
+        String currentNodeId = nodeIds.putIfAbsent(NODE_ID_MAP, newNodeId);
+        this.nodeId = currentNodeId != null ? currentNodeId : newNodeId;
+        this.invalidationAddress = sessionMapName + ".invalidate";
+        this.invalidationConsumer = vertx.eventBus().consumer(invalidationAddress, this::onInvalidation);
+        if (options.getBoolean("writeBehind", false)) {
+            this.writeBehindQueue = new WriteBehindQueue(
+                    vertx,
+                    options.getLong("writeBehindDelay", DEFAULT_WRITE_BEHIND_DELAY),
+                    options.getInteger("writeBehindMaxPending", DEFAULT_WRITE_BEHIND_MAX_PENDING),
+                    options.getInteger("writeBehindMaxAttempts", DEFAULT_WRITE_BEHIND_MAX_ATTEMPTS),
+                    this::writeBehind);
+        } else {
+            this.writeBehindQueue = null;
+        }
         this.setTimer();
     }
 
@@ -86,15 +164,38 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
         return this;
     }
 
+    // The near cache is kept up to date by invalidation messages, so
+    // the clustered store is only queried for sessions not cached locally
+    // or not validated for longer than the maximum staleness
     @Override
     public Future<Session> get(String cookieValue) {
-        return clusteredSessionStore.get(cookieValue).map(session -> {
-            Session localSession = localMap.get(cookieValue);
-            if (localSession == null && session != null) {
-                localMap.put(cookieValue, session);
+        Session localSession = nearCache.get(cookieValue);
+        if (localSession != null) {
+            if (nearCache.isStale(cookieValue, System.currentTimeMillis())
+                    && (writeBehindQueue == null || !writeBehindQueue.isPending(cookieValue))) {
+                return revalidate(localSession);
             }
-            return localMap.get(cookieValue);
-        });
+            expiryIndex.touch(localSession);
+            return Future.succeededFuture(localSession);
+        }
+        Session unwritten = writeBehindQueue != null ? writeBehindQueue.pendingSession(cookieValue) : null;
+        if (unwritten != null) {
+            // evicted from the near cache before its write has been completed,
+            // the clustered store still holds older data
+            List<String> evicted = new ArrayList<>();
+            Session cached = nearCache.putIfAbsent(unwritten, -1L, evicted);
+            evicted(evicted);
+            expiryIndex.touch(cached);
+            return Future.succeededFuture(cached);
+        }
+        return clusteredSessionStore
+                .get(cookieValue)
+                .compose(this::loadSession)
+                .onSuccess(session -> {
+                    if (session != null) {
+                        expiryIndex.touch(session);
+                    }
+                });
     }
 
     @Override
@@ -105,7 +206,22 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
 
     @Override
     public Future<Void> delete(String cookieValue) {
-        return clusteredSessionStore.delete(cookieValue).onSuccess(unused -> localMap.remove(cookieValue));
+        if (writeBehindQueue != null) {
+            writeBehindQueue.remove(cookieValue);
+        }
+        replicationStates.remove(cookieValue);
+        expiryIndex.remove(cookieValue);
+        Future<Void> deleteDelta = deltaReplication
+                ? deltaMap().compose(map -> map.remove(cookieValue)
+                        .compose(old -> removeAttributes(map, cookieValue, old, null)))
+                : Future.succeededFuture();
+        return clusteredSessionStore
+                .delete(cookieValue)
+                .compose(unused -> deleteDelta)
+                .onSuccess(unused -> {
+                    nearCache.remove(cookieValue);
+                    publishInvalidation(cookieValue, Long.MAX_VALUE);
+                });
     }
 
     @Override
@@ -116,9 +232,17 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
 
     @Override
     public Future<Void> put(Session session) {
-        return clusteredSessionStore.put(session).transform(res -> {
-            localMap.put(session.id(), session);
+        if (writeBehindQueue != null && writeBehindQueue.offer(session, snapshot(session))) {
+            evicted(nearCache.update(session));
+            expiryIndex.touch(session);
+            return Future.succeededFuture();
+        }
+        return replicate(session).transform(res -> {
+            long stamp = res.succeeded() ? res.result() : -1L;
+            evicted(nearCache.put(session, stamp));
+            expiryIndex.touch(session);
             if (res.succeeded()) {
+                publishInvalidation(session.id(), stamp);
                 return Future.succeededFuture();
             } else {
                 return Future.failedFuture(res.cause());
@@ -134,7 +258,17 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
 
     @Override
     public Future<Void> clear() {
-        return clusteredSessionStore.clear().onSuccess(unused -> localMap.clear());
+        if (writeBehindQueue != null) {
+            writeBehindQueue.clear();
+        }
+        replicationStates.clear();
+        expiryIndex.clear();
+        Future<Void> clearDeltas =
+                deltaReplication ? deltaMap().compose(AsyncMap::clear) : Future.succeededFuture();
+        return clusteredSessionStore
+                .clear()
+                .compose(unused -> clearDeltas)
+                .onSuccess(unused -> nearCache.clear());
     }
 
     @Override
@@ -145,13 +279,24 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
 
     @Override
     public Future<Integer> size() {
-        return Future.succeededFuture(localMap.size());
+        return Future.succeededFuture(nearCache.size());
+    }
+
+    @Override
+    public JsonObject writeBehindMetrics() {
+        return writeBehindQueue != null ? writeBehindQueue.metrics() : new JsonObject();
     }
 
     @Override
     public synchronized void close() {
-        clusteredSessionStore.close();
-        localMap.close();
+        Future<Void> flushed =
+                writeBehindQueue != null ? writeBehindQueue.close() : Future.succeededFuture();
+        // pending writes still need the clustered and local maps
+        flushed.onComplete(unused -> {
+            clusteredSessionStore.close();
+            nearCache.close();
+        });
+        invalidationConsumer.unregister();
         if (timerID != -1) {
             vertx.cancelTimer(timerID);
         }
@@ -159,19 +304,23 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
     }
 
     @Override
-    public synchronized void handle(Long tid) {
+    public void handle(Long tid) {
         long now = System.currentTimeMillis();
-        Set<String> toRemove = new HashSet<>();
-        for (Session session : localMap.values()) {
-            if (now - session.lastAccessed() > session.timeout()) {
-                toRemove.add(session.id());
+        for (String id : expiryIndex.pollDue(now)) {
+            Session session = nearCache.get(id);
+            if (session == null) {
+                continue;
+            }
+            if (SessionExpiryIndex.isExpired(session, now)) {
+                delete(id, res -> expirationHandler.handle(res.map(x -> id)));
+            } else {
+                expiryIndex.touch(session);
             }
         }
-        for (String id : toRemove) {
-            delete(id, res -> expirationHandler.handle(res.map(x -> id)));
-        }
-        if (!closed) {
-            setTimer();
+        synchronized (this) {
+            if (!closed) {
+                setTimer();
+            }
         }
     }
 
@@ -180,4 +329,352 @@ class NearCacheSessionStoreImpl implements NearCacheSessionStore, Handler<Long>
             timerID = vertx.setTimer(reaperInterval, this);
         }
     }
+
+    private Future<Long> writeBehind(Session session, Session snapshot) {
+        alignVersion(snapshot, session);
+        return replicate(snapshot)
+                .onSuccess(stamp -> {
+                    alignVersion(session, snapshot);
+                    nearCache.replicated(session, stamp);
+                    publishInvalidation(session.id(), stamp);
+                })
+                .onFailure(err -> {
+                    if (err instanceof SessionConflictException) {
+                        // the session has been written elsewhere, the next
+                        // request loads the stored copy
+                        nearCache.remove(session.id());
+                        replicationStates.remove(session.id());
+                        logger.debug("Session {} written elsewhere, near cache entry invalidated", session.id());
+                        return;
+                    }
+                    ReplicationState state = replicationStates.get(session.id());
+                    if (state != null) {
+                        state.invalidate();
+                    }
+                });
+    }
+
+    // Write-behind replicates a copy of the session taken when the write is
+    // requested, so that serialization does not race with requests changing
+    // the session. Serialized attributes are not deserialized by the copy.
+    private Session snapshot(Session session) {
+        if (session.getClass() != SharedDataSessionImpl.class) {
+            return session;
+        }
+        useStoreCodec(session);
+        Buffer buffer = Buffer.buffer();
+        ((SharedDataSessionImpl) session).writeToBuffer(buffer);
+        SharedDataSessionImpl snapshot = new SharedDataSessionImpl();
+        snapshot.readFromBuffer(0, buffer);
+        return snapshot;
+    }
+
+    // The snapshot carries the session version of when it was taken, while
+    // the store expects the version of the last write, that may have been
+    // completed in the meantime; versions only increase, one step per write.
+    private static void alignVersion(Session target, Session source) {
+        if (target instanceof AbstractSession && source instanceof AbstractSession && target != source) {
+            AbstractSession session = (AbstractSession) target;
+            while (session.version() < ((AbstractSession) source).version()) {
+                session.incrementVersion();
+            }
+        }
+    }
+
+    private void evicted(List<String> sessionIds) {
+        sessionIds.forEach(replicationStates::remove);
+    }
+
+    private void publishInvalidation(String sessionId, long stamp) {
+        vertx.eventBus()
+                .publish(
+                        invalidationAddress,
+                        new JsonObject()
+                                .put("id", sessionId)
+                                .put("stamp", stamp)
+                                .put("origin", nodeId));
+    }
+
+    private void onInvalidation(Message<JsonObject> message) {
+        JsonObject body = message.body();
+        if (nodeId.equals(body.getString("origin"))) {
+            return;
+        }
+        String sessionId = body.getString("id");
+        if (nearCache.invalidate(sessionId, body.getLong("stamp"))) {
+            // a newer snapshot has been written elsewhere
+            replicationStates.remove(sessionId);
+            logger.debug("Session {} invalidated by a write on another node", sessionId);
+        }
+    }
+
+    private Future<Long> replicate(Session session) {
+        useStoreCodec(session);
+        if (!deltaReplication || !(session instanceof AbstractSession)) {
+            return clusteredSessionStore.put(session).map(unused -> stamp(session, 0));
+        }
+        long now = System.currentTimeMillis();
+        ReplicationState state = replicationStates.computeIfAbsent(session.id(), id -> new ReplicationState());
+        if (state.snapshotRequired(now, fullSnapshotInterval, fullSnapshotPeriod)) {
+            return writeSnapshot((AbstractSession) session, state, now);
+        }
+        return writeDelta(session, state).recover(err -> {
+            logger.debug("Cannot replicate delta of session {}, writing a full snapshot", session.id(), err);
+            return writeSnapshot((AbstractSession) session, state, now);
+        });
+    }
+
+    // Snapshots are stored with a time-to-live extended by the snapshot
+    // period, so that they outlive the session while it is kept alive by deltas.
+    // An empty delta is written along with the snapshot, so that deltas
+    // written by other nodes against the previous snapshot are rejected;
+    // attribute values replicated by the previous deltas are then removed.
+    private Future<Long> writeSnapshot(AbstractSession session, ReplicationState state, long now) {
+        Map<String, Object> data = ReplicationState.capture(session);
+        long ttl = replicationTTL(session);
+        return sessionMap()
+                .compose(map -> map.get(session.id()).compose(old -> {
+                    if (old != null && ((AbstractSession) old).version() != session.version()) {
+                        return Future.failedFuture(new SessionConflictException("Session version mismatch"));
+                    }
+                    session.incrementVersion();
+                    return map.put(session.id(), session, ttl);
+                }))
+                .compose(unused -> {
+                    if (!deltaReplication) {
+                        return Future.succeededFuture((SessionDelta) null);
+                    }
+                    SessionDelta marker =
+                            SessionDelta.empty(session.version(), session.lastAccessed(), session.timeout());
+                    return deltaMap()
+                            .compose(map -> map.get(session.id()).compose(previous -> map.put(session.id(), marker, ttl)
+                                    .compose(written -> removeAttributes(map, session.id(), previous, null))))
+                            .map(marker);
+                })
+                .onSuccess(marker -> state.snapshotWritten(data, session.version(), now, marker))
+                .onFailure(unused -> state.invalidate())
+                .map(unused -> stamp(session, 0));
+    }
+
+    // The delta replaces the stored one only if it is the last delta written
+    // by this node; otherwise the session has been written elsewhere, or a
+    // new snapshot has been taken, and the write falls back to a snapshot.
+    // Attribute values superseded by the new delta are removed once it has
+    // been stored.
+    @SuppressWarnings("rawtypes")
+    private Future<Long> writeDelta(Session session, ReplicationState state) {
+        Map<String, Object> changedValues = new HashMap<>();
+        SessionDelta expected;
+        SessionDelta delta;
+        synchronized (state) {
+            expected = state.lastDelta();
+            delta = state.delta(session, changedValues);
+        }
+        if (expected == null) {
+            return Future.failedFuture("Stored session delta is unknown");
+        }
+        long ttl = replicationTTL(session);
+        return deltaMap()
+                .compose(map -> {
+                    List<Future> writes = new ArrayList<>(changedValues.size());
+                    changedValues.forEach((name, value) -> writes.add(map.put(
+                            attributeKey(session.id(), delta.snapshotVersion(), delta.sequence(), name),
+                            replicable(value),
+                            ttl)));
+                    return CompositeFuture.all(writes)
+                            .compose(unused -> map.replaceIfPresent(session.id(), expected, delta, ttl))
+                            .compose(replaced -> replaced
+                                    ? removeAttributes(map, session.id(), expected, delta)
+                                    : Future.failedFuture(new SessionConflictException(
+                                            "Session delta has been replaced by another write")));
+                })
+                .map(unused -> ReplicationState.stamp(delta.snapshotVersion(), delta.sequence()))
+                .onFailure(unused -> state.invalidate());
+    }
+
+    // Removes the attribute values replicated by the previous delta that are
+    // not referenced by the current one, if any. Removal failures are ignored,
+    // values not removed expire along with the session.
+    @SuppressWarnings("rawtypes")
+    private Future<Void> removeAttributes(
+            AsyncMap<String, Object> map, String sessionId, Object previous, SessionDelta current) {
+        if (!(previous instanceof SessionDelta)) {
+            return Future.succeededFuture();
+        }
+        SessionDelta superseded = (SessionDelta) previous;
+        List<Future> removals = new ArrayList<>();
+        superseded.changed().forEach((name, sequence) -> {
+            if (current == null
+                    || current.snapshotVersion() != superseded.snapshotVersion()
+                    || !sequence.equals(current.changed().get(name))) {
+                removals.add(map.remove(attributeKey(sessionId, superseded.snapshotVersion(), sequence, name)));
+            }
+        });
+        return CompositeFuture.join(removals)
+                .<Void>mapEmpty()
+                .recover(err -> {
+                    logger.debug("Cannot remove superseded attribute values of session {}", sessionId, err);
+                    return Future.succeededFuture();
+                });
+    }
+
+    private Future<Session> loadSession(Session session) {
+        if (session == null) {
+            return Future.succeededFuture();
+        }
+        return loadedStamp(session).map(stamp -> {
+            if (stamp == null) {
+                return null;
+            }
+            List<String> evicted = new ArrayList<>();
+            Session cached = nearCache.putIfAbsent(session, stamp, evicted);
+            evicted(evicted);
+            return cached;
+        });
+    }
+
+    // A cached session may have missed an invalidation message, so it is
+    // compared with the stored copy; if the cluster cannot be reached,
+    // the cached session is served anyway.
+    private Future<Session> revalidate(Session cached) {
+        String id = cached.id();
+        return clusteredSessionStore
+                .get(id)
+                .compose(loaded -> loaded == null
+                        ? Future.succeededFuture(nearCache.revalidate(cached, null, -1L))
+                        : loadedStamp(loaded)
+                                .map(stamp -> nearCache.revalidate(
+                                        cached, stamp != null ? loaded : null, stamp != null ? stamp : -1L)))
+                .recover(err -> {
+                    logger.debug("Cannot validate cached session {} against the clustered store", id, err);
+                    return Future.succeededFuture(cached);
+                })
+                .map(session -> {
+                    if (session == null) {
+                        replicationStates.remove(id);
+                        expiryIndex.remove(id);
+                        return null;
+                    }
+                    if (session != cached) {
+                        logger.debug("Cached session {} replaced by a newer copy from the clustered store", id);
+                        replicationStates.remove(id);
+                    }
+                    expiryIndex.touch(session);
+                    return session;
+                });
+    }
+
+    // Applies the delta, if any, to the session loaded from the clustered store
+    // and returns the version stamp of its data, or null if the session is expired.
+    private Future<Long> loadedStamp(Session session) {
+        return applyDelta(session).map(delta -> {
+            if (delta == null) {
+                return null;
+            }
+            return delta.sequence() < 0
+                    ? stamp(session, 0)
+                    : ReplicationState.stamp(delta.snapshotVersion(), delta.sequence());
+        });
+    }
+
+    // Applies the delta, if any, to the session loaded from the clustered store.
+    // Returns the applied delta, a delta with negative sequence if there
+    // are no changes since the snapshot, or null if the session is expired.
+    @SuppressWarnings("rawtypes")
+    private Future<SessionDelta> applyDelta(Session session) {
+        SessionDelta noDelta = new SessionDelta(0, -1, 0, 0, Map.of(), List.of());
+        if (!deltaReplication || !(session instanceof AbstractSession)) {
+            return Future.succeededFuture(noDelta);
+        }
+        int version = ((AbstractSession) session).version();
+        return deltaMap().compose(map -> map.get(session.id()).compose(value -> {
+            long lastAccessed = session.lastAccessed();
+            SessionDelta delta = null;
+            if (value instanceof SessionDelta && ((SessionDelta) value).snapshotVersion() == version) {
+                delta = (SessionDelta) value;
+                lastAccessed = Math.max(lastAccessed, delta.lastAccessed());
+            }
+            if (System.currentTimeMillis() - lastAccessed > session.timeout()) {
+                return Future.succeededFuture();
+            }
+            if (delta == null) {
+                return Future.succeededFuture(noDelta);
+            }
+            SessionDelta sessionDelta = delta;
+            List<String> names = new ArrayList<>(delta.changed().keySet());
+            List<Future> reads = new ArrayList<>(names.size());
+            names.forEach(name -> reads.add(map.get(attributeKey(
+                    session.id(), version, sessionDelta.changed().get(name), name))));
+            return CompositeFuture.all(reads).map(result -> {
+                for (int i = 0; i < names.size(); i++) {
+                    Object attribute = result.resultAt(i);
+                    if (attribute != null) {
+                        session.put(names.get(i), attribute);
+                    } else {
+                        logger.debug(
+                                "Replicated value of attribute {} of session {} not found",
+                                names.get(i),
+                                session.id());
+                    }
+                }
+                sessionDelta.removed().forEach(session::remove);
+                return sessionDelta;
+            });
+        }));
+    }
+
+    private long replicationTTL(Session session) {
+        return session.timeout() + fullSnapshotPeriod;
+    }
+
+    private static long stamp(Session session, int sequence) {
+        if (session instanceof AbstractSession) {
+            return ReplicationState.stamp(((AbstractSession) session).version(), sequence);
+        }
+        return -1L;
+    }
+
+    private static String attributeKey(String sessionId, int snapshotVersion, int sequence, String name) {
+        return sessionId + "/" + snapshotVersion + "." + sequence + "/" + name;
+    }
+
+    // attributes are wrapped by ExtendedSession without knowing the store,
+    // the store codec is bound to them right before they are replicated
+    private void useStoreCodec(Session session) {
+        session.data().values().forEach(value -> {
+            if (value instanceof SerializableHolder) {
+                ((SerializableHolder) value).setCodec(codec);
+            }
+        });
+    }
+
+    private Object replicable(Object value) {
+        if (value instanceof SerializableHolder) {
+            ((SerializableHolder) value).setCodec(codec);
+            return value;
+        }
+        if (value == null
+                || value instanceof Number
+                || value instanceof Character
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof ClusterSerializable) {
+            return value;
+        }
+        return new SerializableHolder(value, codec);
+    }
+
+    private synchronized Future<AsyncMap<String, Session>> sessionMap() {
+        if (sessionMap == null) {
+            sessionMap = vertx.sharedData().getClusterWideMap(sessionMapName);
+        }
+        return sessionMap;
+    }
+
+    private synchronized Future<AsyncMap<String, Object>> deltaMap() {
+        if (deltaMap == null) {
+            deltaMap = vertx.sharedData().getClusterWideMap(sessionMapName + ".delta");
+        }
+        return deltaMap;
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.vertx.ext.web.Session;
+
+/**
+ * Tracks what has been replicated to the cluster for a single session, in
+ * order to compute the changes to ship on the next write.
+ * <p>
+ * Only immutable values, such as strings and boxed primitives, are compared
+ * with the replicated ones; any other attribute is considered changed on
+ * every write, since objects like {@code VaadinSession} are mutated in place
+ * and stored again as the same instance.
+ * <p>
+ * The state also keeps the last delta written to the cluster, that is
+ * expected to be found in the store when the next delta is written.
+ */
+final class ReplicationState {
+
+    private Map<String, Object> replicated = Collections.emptyMap();
+    private final Map<String, Integer> changedSinceSnapshot = new LinkedHashMap<>();
+    private final Set<String> removedSinceSnapshot = new LinkedHashSet<>();
+    private int snapshotVersion;
+    private long snapshotTime = -1;
+    private int writesSinceSnapshot;
+    private SessionDelta lastDelta;
+
+    /**
+     * Checks if a full snapshot of the session should be written instead of a delta.
+     *
+     * @param now                  current time, in ms.
+     * @param fullSnapshotInterval maximum number of delta writes between two snapshots.
+     * @param fullSnapshotPeriod   maximum time, in ms, between two snapshots.
+     * @return {@literal true} if a full snapshot is required, otherwise {@literal false}.
+     */
+    synchronized boolean snapshotRequired(long now, int fullSnapshotInterval, long fullSnapshotPeriod) {
+        return snapshotTime < 0
+                || writesSinceSnapshot >= fullSnapshotInterval
+                || now - snapshotTime >= fullSnapshotPeriod;
+    }
+
+    /**
+     * Captures the attributes of the session that are going to be written
+     * by a full snapshot.
+     *
+     * @param session the session.
+     * @return the session attributes.
+     */
+    static Map<String, Object> capture(Session session) {
+        return new HashMap<>(session.data());
+    }
+
+    /**
+     * Records that a full snapshot of the session has been replicated.
+     *
+     * @param data     the attributes written by the snapshot, as returned by {@link #capture(Session)}.
+     * @param version  the version of the replicated snapshot.
+     * @param now      the snapshot time, in ms.
+     * @param marker   the empty delta written along with the snapshot, or {@literal null} if none.
+     */
+    synchronized void snapshotWritten(Map<String, Object> data, int version, long now, SessionDelta marker) {
+        replicated = data;
+        snapshotVersion = version;
+        snapshotTime = now;
+        writesSinceSnapshot = 0;
+        lastDelta = marker;
+        changedSinceSnapshot.clear();
+        removedSinceSnapshot.clear();
+    }
+
+    /**
+     * Gets the last delta written to the cluster, that should still be
+     * stored if no other node has written the session since then.
+     *
+     * @return the last written delta, or {@literal null} if unknown.
+     */
+    synchronized SessionDelta lastDelta() {
+        return lastDelta;
+    }
+
+    /**
+     * Computes the changes of the session since the last write.
+     * <p>
+     * Changed attribute values are added to the given map; the returned delta
+     * accumulates all the changes since the last snapshot, along with the
+     * sequence number of the write that replicated each value.
+     *
+     * @param session       the session.
+     * @param changedValues map filled with the values of the attributes changed since the last write.
+     * @return the delta to apply to the last snapshot.
+     */
+    synchronized SessionDelta delta(Session session, Map<String, Object> changedValues) {
+        Map<String, Object> data = capture(session);
+        data.forEach((name, value) -> {
+            if (!replicated.containsKey(name) || !sameImmutableValue(replicated.get(name), value)) {
+                changedValues.put(name, value);
+            }
+        });
+        for (String name : replicated.keySet()) {
+            if (!data.containsKey(name)) {
+                changedSinceSnapshot.remove(name);
+                removedSinceSnapshot.add(name);
+            }
+        }
+        writesSinceSnapshot++;
+        for (String name : changedValues.keySet()) {
+            changedSinceSnapshot.put(name, writesSinceSnapshot);
+        }
+        removedSinceSnapshot.removeAll(changedValues.keySet());
+        replicated = data;
+        lastDelta = new SessionDelta(
+                snapshotVersion,
+                writesSinceSnapshot,
+                session.lastAccessed(),
+                session.timeout(),
+                changedSinceSnapshot,
+                removedSinceSnapshot);
+        return lastDelta;
+    }
+
+    /**
+     * Forces a full snapshot on next write, for example because the
+     * replication of a delta failed.
+     */
+    synchronized void invalidate() {
+        snapshotTime = -1;
+    }
+
+    /**
+     * Computes the version stamp of session data, given the snapshot version
+     * and the number of deltas applied to it.
+     * <p>
+     * Stamps increase with every write of the session, as long as the snapshot
+     * versions are checked on write.
+     *
+     * @param snapshotVersion the snapshot version.
+     * @param sequence        the number of deltas written after the snapshot.
+     * @return the version stamp.
+     */
+    static long stamp(int snapshotVersion, int sequence) {
+        return ((long) snapshotVersion << 32) | (sequence & 0xFFFFFFFFL);
+    }
+
+    // wrapped values are never compared, so that they are not deserialized
+    // just to compute the delta
+    private static boolean sameImmutableValue(Object replicated, Object current) {
+        return isImmutable(current) && current.equals(replicated);
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof Double
+                || value instanceof Float
+                || value instanceof Boolean
+                || value instanceof Character;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
+
+/**
+ * Changes applied to a session after its last full snapshot has been
+ * replicated to the cluster.
+ * <p>
+ * A delta references the version of the snapshot it applies to and holds the
+ * names of the attributes changed or removed since then, along with session
+ * metadata. Values of changed attributes are stored as separate cluster map
+ * entries, keyed by the sequence number of the write that replicated them, so
+ * that values written by a conflicting write never replace the ones
+ * referenced by the stored delta.
+ * <p>
+ * Deltas are compared by value, since they are replaced in the cluster only
+ * if the stored one is the delta expected by the writer.
+ * <p>
+ * This class is used internally by {@link NearCacheSessionStore}; it is public
+ * only to allow cluster managers to instantiate it.
+ */
+public final class SessionDelta implements ClusterSerializable {
+
+    private int snapshotVersion;
+    private int sequence;
+    private long lastAccessed;
+    private long timeout;
+    private Map<String, Integer> changed;
+    private Set<String> removed;
+
+    public SessionDelta() {
+        this.changed = Collections.emptyMap();
+        this.removed = Collections.emptySet();
+    }
+
+    SessionDelta(
+            int snapshotVersion,
+            int sequence,
+            long lastAccessed,
+            long timeout,
+            Map<String, Integer> changed,
+            Collection<String> removed) {
+        this.snapshotVersion = snapshotVersion;
+        this.sequence = sequence;
+        this.lastAccessed = lastAccessed;
+        this.timeout = timeout;
+        this.changed = new LinkedHashMap<>(changed);
+        this.removed = new LinkedHashSet<>(removed);
+    }
+
+    /**
+     * Creates the empty delta written along with a snapshot.
+     *
+     * @param snapshotVersion the version of the snapshot.
+     * @param lastAccessed    the session last access time.
+     * @param timeout         the session timeout.
+     * @return the empty delta.
+     */
+    static SessionDelta empty(int snapshotVersion, long lastAccessed, long timeout) {
+        return new SessionDelta(snapshotVersion, 0, lastAccessed, timeout, Map.of(), Set.of());
+    }
+
+    int snapshotVersion() {
+        return snapshotVersion;
+    }
+
+    /**
+     * Gets the number of deltas written since the snapshot, including this one.
+     *
+     * @return the delta sequence number.
+     */
+    int sequence() {
+        return sequence;
+    }
+
+    long lastAccessed() {
+        return lastAccessed;
+    }
+
+    long timeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the attributes changed since the snapshot, with the sequence
+     * number of the write that replicated their current value.
+     *
+     * @return the changed attributes.
+     */
+    Map<String, Integer> changed() {
+        return Collections.unmodifiableMap(changed);
+    }
+
+    Set<String> removed() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    @Override
+    public void writeToBuffer(Buffer buffer) {
+        buffer.appendInt(snapshotVersion);
+        buffer.appendInt(sequence);
+        buffer.appendLong(lastAccessed);
+        buffer.appendLong(timeout);
+        buffer.appendInt(changed.size());
+        changed.forEach((name, writeSequence) -> {
+            writeName(buffer, name);
+            buffer.appendInt(writeSequence);
+        });
+        buffer.appendInt(removed.size());
+        removed.forEach(name -> writeName(buffer, name));
+    }
+
+    @Override
+    public int readFromBuffer(int pos, Buffer buffer) {
+        snapshotVersion = buffer.getInt(pos);
+        sequence = buffer.getInt(pos + 4);
+        lastAccessed = buffer.getLong(pos + 8);
+        timeout = buffer.getLong(pos + 16);
+        pos += 24;
+        changed = new LinkedHashMap<>();
+        int count = buffer.getInt(pos);
+        pos += 4;
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt(pos);
+            String name = buffer.getString(pos + 4, pos + 4 + length, StandardCharsets.UTF_8.name());
+            pos += 4 + length;
+            changed.put(name, buffer.getInt(pos));
+            pos += 4;
+        }
+        removed = new LinkedHashSet<>();
+        count = buffer.getInt(pos);
+        pos += 4;
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt(pos);
+            removed.add(buffer.getString(pos + 4, pos + 4 + length, StandardCharsets.UTF_8.name()));
+            pos += 4 + length;
+        }
+        return pos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionDelta)) {
+            return false;
+        }
+        SessionDelta that = (SessionDelta) o;
+        return snapshotVersion == that.snapshotVersion
+                && sequence == that.sequence
+                && lastAccessed == that.lastAccessed
+                && timeout == that.timeout
+                && changed.equals(that.changed)
+                && removed.equals(that.removed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(snapshotVersion, sequence, lastAccessed, timeout);
+    }
+
+    private static void writeName(Buffer buffer, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.appendInt(bytes.length);
+        buffer.appendBytes(bytes);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import io.vertx.ext.web.Session;
+
+/**
+ * Index of sessions ordered by expiration time, used by session stores to
+ * find expired sessions without scanning all of them.
+ * <p>
+ * The index holds at most one entry per session: touching an already
+ * scheduled session is a constant time operation, and the actual expiration
+ * time is checked only when the scheduled entry becomes due. Sessions that
+ * have been accessed in the meantime are then rescheduled by the caller.
+ */
+final class SessionExpiryIndex {
+
+    private final PriorityQueue<Scheduled> queue = new PriorityQueue<>();
+    private final Map<String, Long> scheduled = new HashMap<>();
+
+    /**
+     * Ensures the session is scheduled for an expiration check no later than
+     * its current expiration time.
+     *
+     * @param session the session.
+     */
+    void touch(Session session) {
+        schedule(session.id(), expirationTime(session));
+    }
+
+    /**
+     * Schedules an expiration check for the given session.
+     *
+     * @param sessionId the session id.
+     * @param expiresAt the time, in ms, when the session should be checked.
+     */
+    synchronized void schedule(String sessionId, long expiresAt) {
+        Long current = scheduled.get(sessionId);
+        if (current == null || expiresAt < current) {
+            scheduled.put(sessionId, expiresAt);
+            queue.add(new Scheduled(sessionId, expiresAt));
+        }
+    }
+
+    /**
+     * Removes the given session from the index.
+     *
+     * @param sessionId the session id.
+     */
+    synchronized void remove(String sessionId) {
+        scheduled.remove(sessionId);
+    }
+
+    /**
+     * Removes all sessions from the index.
+     */
+    synchronized void clear() {
+        scheduled.clear();
+        queue.clear();
+    }
+
+    /**
+     * Gets the number of sessions in the index.
+     *
+     * @return the number of indexed sessions.
+     */
+    synchronized int size() {
+        return scheduled.size();
+    }
+
+    /**
+     * Removes from the index, and returns, the sessions whose scheduled
+     * check time is not after the given time.
+     * <p>
+     * Callers should verify that returned sessions are actually expired, and
+     * {@link #touch(Session)} the ones that are still alive.
+     *
+     * @param now the current time, in ms.
+     * @return the ids of the sessions to check.
+     */
+    synchronized List<String> pollDue(long now) {
+        List<String> due = new ArrayList<>();
+        Scheduled head;
+        while ((head = queue.peek()) != null && head.expiresAt <= now) {
+            queue.poll();
+            Long current = scheduled.get(head.sessionId);
+            // stale entries, superseded by an earlier schedule or removed sessions, are skipped
+            if (current != null && current == head.expiresAt) {
+                scheduled.remove(head.sessionId);
+                due.add(head.sessionId);
+            }
+        }
+        return due;
+    }
+
+    static boolean isExpired(Session session, long now) {
+        return now - session.lastAccessed() > session.timeout();
+    }
+
+    private static long expirationTime(Session session) {
+        return session.lastAccessed() + session.timeout() + 1;
+    }
+
+    private static final class Scheduled implements Comparable<Scheduled> {
+        private final String sessionId;
+        private final long expiresAt;
+
+        private Scheduled(String sessionId, long expiresAt) {
+            this.sessionId = sessionId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(Scheduled other) {
+            return Long.compare(expiresAt, other.expiresAt);
+        }
+    }
+}
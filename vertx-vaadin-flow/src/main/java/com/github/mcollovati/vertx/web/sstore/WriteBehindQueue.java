@@ -0,0 +1,369 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of session writes to be flushed asynchronously to the clustered store.
+ * <p>
+ * Every write carries a snapshot of the session, taken when the write is
+ * requested, so that the flush does not race with requests changing the
+ * session in the meantime. Writes are coalesced per session id: a session put
+ * again while it is still waiting in the queue replaces the queued snapshot,
+ * so only the latest state is written. Queued sessions are flushed once they
+ * have been waiting for at least the configured delay; writes of a session
+ * are never executed concurrently, a new write waits for the one in flight to
+ * complete. A failed write is queued again, unless a newer write of the same
+ * session is already waiting, and retried with an exponential backoff until
+ * the maximum number of attempts is reached. Writes rejected because of a
+ * {@link SessionConflictException} are never retried: the session has been
+ * written elsewhere, so the pending writes of the session are discarded too.
+ * <p>
+ * The queue is bounded: when it is full, {@link #offer(Session, Session)}
+ * refuses new sessions and the caller is expected to write them synchronously.
+ */
+final class WriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private static final long MAX_RETRY_DELAY = 30 * 1000;
+
+    private final Vertx vertx;
+    private final long delay;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final BiFunction<Session, Session, Future<?>> writer;
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private final Map<String, Pending> inFlight = new HashMap<>();
+    private final Set<String> discarded = new HashSet<>();
+    private final long timerID;
+    private long queued;
+    private long coalesced;
+    private long rejected;
+    private long flushed;
+    private long failed;
+    private long retried;
+    private long dropped;
+    private long lastLag;
+    private long maxLag;
+    private boolean closed;
+    private Promise<Void> closePromise;
+
+    /**
+     * Creates a new queue, with the default maximum number of write attempts.
+     *
+     * @param vertx      the Vert.x instance.
+     * @param delay      the time, in ms, a write waits in the queue to be coalesced with following ones.
+     * @param maxPending the maximum number of sessions waiting to be written.
+     * @param writer     function that writes a session snapshot to the clustered store,
+     *                   given the session and the snapshot.
+     */
+    WriteBehindQueue(Vertx vertx, long delay, int maxPending, BiFunction<Session, Session, Future<?>> writer) {
+        this(vertx, delay, maxPending, NearCacheSessionStore.DEFAULT_WRITE_BEHIND_MAX_ATTEMPTS, writer);
+    }
+
+    /**
+     * Creates a new queue.
+     *
+     * @param vertx       the Vert.x instance.
+     * @param delay       the time, in ms, a write waits in the queue to be coalesced with following ones.
+     * @param maxPending  the maximum number of sessions waiting to be written.
+     * @param maxAttempts the maximum number of attempts to write a session snapshot.
+     * @param writer      function that writes a session snapshot to the clustered store,
+     *                    given the session and the snapshot.
+     */
+    WriteBehindQueue(
+            Vertx vertx,
+            long delay,
+            int maxPending,
+            int maxAttempts,
+            BiFunction<Session, Session, Future<?>> writer) {
+        this.vertx = vertx;
+        this.delay = delay;
+        this.maxPending = maxPending;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.writer = writer;
+        this.timerID = vertx.setPeriodic(Math.max(delay, 1), tid -> flush(false));
+    }
+
+    /**
+     * Enqueues the session for writing.
+     *
+     * @param session  the session to write.
+     * @param snapshot the copy of the session to write.
+     * @return {@literal true} if the write has been enqueued, {@literal false} if the queue is full or closed.
+     */
+    synchronized boolean offer(Session session, Session snapshot) {
+        if (closed) {
+            return false;
+        }
+        Pending current = pending.get(session.id());
+        if (current != null) {
+            current.session = session;
+            current.snapshot = snapshot;
+            coalesced++;
+            return true;
+        }
+        if (pending.size() >= maxPending) {
+            rejected++;
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        pending.put(session.id(), new Pending(session, snapshot, now + delay, now, 0));
+        queued++;
+        return true;
+    }
+
+    /**
+     * Discards the pending write of a session, for example because it has been deleted.
+     * A write already in flight is not retried if it fails.
+     *
+     * @param sessionId the session id.
+     */
+    synchronized void remove(String sessionId) {
+        pending.remove(sessionId);
+        if (inFlight.containsKey(sessionId)) {
+            discarded.add(sessionId);
+        }
+    }
+
+    /**
+     * Checks if a write of the session is waiting in the queue or in flight.
+     *
+     * @param sessionId the session id.
+     * @return {@literal true} if the session has not been written yet, otherwise {@literal false}.
+     */
+    synchronized boolean isPending(String sessionId) {
+        return pending.containsKey(sessionId) || inFlight.containsKey(sessionId);
+    }
+
+    /**
+     * Gets the session whose write is waiting in the queue or in flight,
+     * that is newer than the copy in the clustered store.
+     *
+     * @param sessionId the session id.
+     * @return the session not written yet, or {@literal null} if there are no writes of the session.
+     */
+    synchronized Session pendingSession(String sessionId) {
+        Pending write = pending.get(sessionId);
+        if (write == null && !discarded.contains(sessionId)) {
+            write = inFlight.get(sessionId);
+        }
+        return write != null ? write.session : null;
+    }
+
+    /**
+     * Discards all pending writes.
+     */
+    synchronized void clear() {
+        pending.clear();
+        discarded.addAll(inFlight.keySet());
+    }
+
+    /**
+     * Stops the periodic flush and writes all pending sessions.
+     * <p>
+     * Writes failing after the queue has been closed are not retried.
+     *
+     * @return a future completed when all pending and in flight writes are completed.
+     */
+    Future<Void> close() {
+        vertx.cancelTimer(timerID);
+        synchronized (this) {
+            if (closePromise != null) {
+                return closePromise.future();
+            }
+            closed = true;
+            closePromise = Promise.promise();
+        }
+        flush(true);
+        synchronized (this) {
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                closePromise.tryComplete();
+            }
+            return closePromise.future();
+        }
+    }
+
+    /**
+     * Gets a snapshot of the queue metrics.
+     * <p>
+     * Lag is the time, in ms, elapsed between the first enqueue of a session
+     * and the completion of its write to the clustered store.
+     *
+     * @return the queue metrics.
+     */
+    synchronized JsonObject metrics() {
+        long now = System.currentTimeMillis();
+        long oldestPendingAge = pending.values().stream()
+                .mapToLong(p -> now - p.requestedAt)
+                .max()
+                .orElse(0);
+        return new JsonObject()
+                .put("pending", pending.size())
+                .put("inFlight", inFlight.size())
+                .put("queued", queued)
+                .put("coalesced", coalesced)
+                .put("rejected", rejected)
+                .put("flushed", flushed)
+                .put("failed", failed)
+                .put("retried", retried)
+                .put("dropped", dropped)
+                .put("oldestPendingAge", oldestPendingAge)
+                .put("lastLag", lastLag)
+                .put("maxLag", maxLag);
+    }
+
+    private void flush(boolean all) {
+        for (Pending write : takeDue(all)) {
+            write(write);
+        }
+    }
+
+    private void write(Pending write) {
+        Future<?> result;
+        try {
+            result = writer.apply(write.session, write.snapshot);
+        } catch (RuntimeException ex) {
+            result = Future.failedFuture(ex);
+        }
+        result.onComplete(res -> {
+            if (res.failed()) {
+                logger.warn("Cannot write session {} to the clustered store", write.session.id(), res.cause());
+            }
+            Pending next = completed(write, res.cause());
+            if (next != null) {
+                write(next);
+            }
+        });
+    }
+
+    private synchronized List<Pending> takeDue(boolean all) {
+        long now = System.currentTimeMillis();
+        List<Pending> due = new ArrayList<>();
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Pending write = iterator.next();
+            if (!all && write.dueAt > now) {
+                // first writes are in insertion order, so the following ones are not due either;
+                // retries wait for their backoff and may be followed by due writes
+                if (write.attempts == 0) {
+                    break;
+                }
+                continue;
+            }
+            if (inFlight.putIfAbsent(write.session.id(), write) == null) {
+                iterator.remove();
+                due.add(write);
+            }
+        }
+        return due;
+    }
+
+    // Returns the next write of the same session to be executed
+    // immediately, when the queue is being closed
+    private synchronized Pending completed(Pending write, Throwable failure) {
+        String sessionId = write.session.id();
+        inFlight.remove(sessionId);
+        boolean wasDiscarded = discarded.remove(sessionId);
+        long now = System.currentTimeMillis();
+        if (failure == null) {
+            flushed++;
+            lastLag = now - write.requestedAt;
+            maxLag = Math.max(maxLag, lastLag);
+        } else if (failure instanceof SessionConflictException) {
+            failed++;
+            // newer writes of the session are based on the same outdated data
+            pending.remove(sessionId);
+            dropped++;
+        } else {
+            failed++;
+            int attempts = write.attempts + 1;
+            if (!closed && !wasDiscarded && !pending.containsKey(sessionId)) {
+                if (attempts < maxAttempts) {
+                    pending.put(
+                            sessionId,
+                            new Pending(
+                                    write.session,
+                                    write.snapshot,
+                                    now + retryDelay(attempts),
+                                    write.requestedAt,
+                                    attempts));
+                    retried++;
+                } else {
+                    logger.error("Giving up writing session {} after {} attempts", sessionId, attempts);
+                    dropped++;
+                }
+            }
+        }
+        if (!closed) {
+            return null;
+        }
+        Pending next = pending.remove(sessionId);
+        if (next != null) {
+            inFlight.put(sessionId, next);
+        } else if (pending.isEmpty() && inFlight.isEmpty()) {
+            closePromise.tryComplete();
+        }
+        return next;
+    }
+
+    // the first retry waits for the queue delay, doubled at every further attempt
+    private long retryDelay(int attempts) {
+        long base = Math.max(delay, 1);
+        return Math.min(base << Math.min(attempts - 1, 20), Math.max(MAX_RETRY_DELAY, base));
+    }
+
+    private static final class Pending {
+        private Session session;
+        private Session snapshot;
+        private final long dueAt;
+        private final long requestedAt;
+        private final int attempts;
+
+        private Pending(Session session, Session snapshot, long dueAt, long requestedAt, int attempts) {
+            this.session = session;
+            this.snapshot = snapshot;
+            this.dueAt = dueAt;
+            this.requestedAt = requestedAt;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class KeyedSerialExecutorTest {
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(8);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void execute_sameKey_tasksRunInOrderOneAtATime() throws InterruptedException {
+        KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 1000);
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            assertThat(executor.execute("session", () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        executed.add(task);
+                        running.decrementAndGet();
+                        done.countDown();
+                    }))
+                    .isTrue();
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning).hasValue(1);
+        assertThat(executed).hasSize(100).isSorted();
+    }
+
+    @Test
+    public void execute_differentKeys_tasksRunConcurrently() throws InterruptedException {
+        KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 10);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute("first", () -> awaitRelease(started, release));
+        executor.execute("second", () -> awaitRelease(started, release));
+
+        try {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void execute_tooManyPendingTasks_taskRejectedOnlyForKey() throws InterruptedException {
+        KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertThat(executor.execute("busy", () -> awaitRelease(started, release)))
+                .isTrue();
+        assertThat(executor.execute("busy", done::countDown)).isTrue();
+        assertThat(executor.execute("busy", done::countDown)).isFalse();
+        assertThat(executor.pending("busy")).isEqualTo(2);
+        assertThat(executor.execute("other", done::countDown)).isTrue();
+
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void execute_allTasksCompleted_keyStateDiscarded() throws InterruptedException {
+        KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 10);
+        CountDownLatch done = new CountDownLatch(2);
+
+        executor.execute("session", () -> {
+            throw new IllegalStateException("expected");
+        });
+        executor.execute("session", done::countDown);
+        executor.execute("session", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.pending("session") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.pending("session")).isZero();
+    }
+
+    @Test
+    public void constructor_invalidMaxPending_throws() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new KeyedSerialExecutor<String>(pool, 0));
+    }
+
+    private static void awaitRelease(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+public class ReadStreamInputStreamTest {
+
+    private ReadStream<Buffer> stream;
+    private final AtomicReference<Handler<Buffer>> dataHandler = new AtomicReference<>();
+    private final AtomicReference<Handler<Void>> endHandler = new AtomicReference<>();
+    private final AtomicReference<Handler<Throwable>> exceptionHandler = new AtomicReference<>();
+    private final Deque<Object> emitted = new ArrayDeque<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        stream = Mockito.mock(ReadStream.class);
+        Mockito.doAnswer(i -> {
+                    dataHandler.set(i.getArgument(0));
+                    return stream;
+                })
+                .when(stream)
+                .handler(any());
+        Mockito.doAnswer(i -> {
+                    endHandler.set(i.getArgument(0));
+                    return stream;
+                })
+                .when(stream)
+                .endHandler(any());
+        Mockito.doAnswer(i -> {
+                    exceptionHandler.set(i.getArgument(0));
+                    return stream;
+                })
+                .when(stream)
+                .exceptionHandler(any());
+        // emits one item for each fetch, as a paused stream would do
+        Mockito.doAnswer(i -> {
+                    fetches.incrementAndGet();
+                    Object next = emitted.poll();
+                    if (next instanceof Buffer) {
+                        dataHandler.get().handle((Buffer) next);
+                    } else if (next instanceof Throwable) {
+                        exceptionHandler.get().handle((Throwable) next);
+                    } else if (next != null) {
+                        endHandler.get().handle(null);
+                    }
+                    return stream;
+                })
+                .when(stream)
+                .fetch(anyLong());
+    }
+
+    @Test
+    public void read_dataFetchedOneChunkAtATime() throws IOException {
+        emitted.add(Buffer.buffer("0123"));
+        emitted.add(Buffer.buffer("4567"));
+        emitted.add(Buffer.buffer("89"));
+        emitted.add("END");
+
+        try (InputStream in = new ReadStreamInputStream(stream)) {
+            Mockito.verify(stream).pause();
+            assertThat(fetches).hasValue(0);
+
+            byte[] chunk = new byte[10];
+            assertThat(in.read(chunk, 0, 10)).isEqualTo(4);
+            assertThat(fetches).hasValue(1);
+            assertThat(in.available()).isZero();
+
+            assertThat(in.read()).isEqualTo('4');
+            assertThat(in.available()).isEqualTo(3);
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("56789");
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void read_streamFailed_throws() throws IOException {
+        emitted.add(Buffer.buffer("01"));
+        emitted.add(new IllegalStateException("Connection closed"));
+
+        try (InputStream in = new ReadStreamInputStream(stream)) {
+            assertThat(in.read(new byte[2])).isEqualTo(2);
+            assertThatExceptionOfType(IOException.class)
+                    .isThrownBy(in::read)
+                    .withCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void close_notEnded_remainingDataDiscarded() throws IOException {
+        emitted.add(Buffer.buffer("0123"));
+        emitted.add("END");
+
+        InputStream in = new ReadStreamInputStream(stream);
+        assertThat(in.read()).isEqualTo('0');
+        in.close();
+
+        Mockito.verify(stream).resume();
+        assertThatExceptionOfType(IOException.class).isThrownBy(in::read);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.support;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.WriteStream;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+
+public class WriteStreamOutputStreamTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void write_dataSentInBoundedChunks() throws IOException {
+        WriteStream<Buffer> stream = Mockito.mock(WriteStream.class);
+        List<Buffer> chunks = new ArrayList<>();
+        Mockito.doAnswer(i -> {
+                    chunks.add(i.getArgument(0, Buffer.class));
+                    return null;
+                })
+                .when(stream)
+                .write(any(Buffer.class));
+
+        try (WriteStreamOutputStream out = new WriteStreamOutputStream(stream, 4)) {
+            out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+            out.write('A');
+        }
+
+        assertThat(chunks).extracting(Buffer::toString).containsExactly("0123", "4567", "89A");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void write_writeQueueFull_waitsForDrain() throws Exception {
+        WriteStream<Buffer> stream = Mockito.mock(WriteStream.class);
+        AtomicBoolean queueFull = new AtomicBoolean(true);
+        AtomicReference<Handler<Void>> drainHandler = new AtomicReference<>();
+        Buffer output = Buffer.buffer();
+        Mockito.when(stream.writeQueueFull()).thenAnswer(i -> queueFull.get());
+        Mockito.doAnswer(i -> {
+                    drainHandler.set(i.getArgument(0));
+                    return stream;
+                })
+                .when(stream)
+                .drainHandler(any());
+        Mockito.doAnswer(i -> {
+                    output.appendBuffer(i.getArgument(0, Buffer.class));
+                    return null;
+                })
+                .when(stream)
+                .write(any(Buffer.class));
+
+        WriteStreamOutputStream out = new WriteStreamOutputStream(stream, 4);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                out.write("0123".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(writer).isNotDone();
+        assertThat(output.length()).isZero();
+
+        queueFull.set(false);
+        drainHandler.get().handle(null);
+        writer.get(5, TimeUnit.SECONDS);
+        assertThat(output.toString()).isEqualTo("0123");
+    }
+
+    @Test
+    public void write_responseClosedWhileQueueFull_throws() {
+        HttpServerResponse response = Mockito.mock(HttpServerResponse.class);
+        Mockito.when(response.writeQueueFull()).thenReturn(true);
+        Mockito.when(response.closed()).thenReturn(true);
+
+        WriteStreamOutputStream out = new WriteStreamOutputStream(response, 4);
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> out.write("0123".getBytes(StandardCharsets.UTF_8)));
+        Mockito.verify(response, Mockito.never()).write(any(Buffer.class));
+    }
+}
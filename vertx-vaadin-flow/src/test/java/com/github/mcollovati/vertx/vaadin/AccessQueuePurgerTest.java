@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.vaadin.flow.server.VaadinSession;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AccessQueuePurgerTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<VaadinSession> purged = new ArrayList<>();
+
+    @Test
+    public void schedule_purgeAlreadyScheduled_requestDeduplicated() {
+        AccessQueuePurger purger = new AccessQueuePurger(tasks::add, purged::add);
+        VaadinSession session = mock(VaadinSession.class);
+
+        purger.schedule(session);
+        purger.schedule(session);
+
+        assertThat(tasks).hasSize(1);
+        assertThat(purged).isEmpty();
+        tasks.get(0).run();
+        assertThat(purged).containsExactly(session);
+
+        JsonObject metrics = purger.metrics();
+        assertThat(metrics.getLong("requested")).isEqualTo(2);
+        assertThat(metrics.getLong("deduplicated")).isEqualTo(1);
+        assertThat(metrics.getLong("executed")).isEqualTo(1);
+        assertThat(metrics.getInteger("scheduled")).isZero();
+        assertThat(metrics.getLong("eventLoopBlockedTime")).isZero();
+    }
+
+    @Test
+    public void schedule_differentSessions_purgesScheduledIndependently() {
+        AccessQueuePurger purger = new AccessQueuePurger(tasks::add, purged::add);
+        VaadinSession first = mock(VaadinSession.class);
+        VaadinSession second = mock(VaadinSession.class);
+
+        purger.schedule(first);
+        purger.schedule(second);
+        tasks.forEach(Runnable::run);
+
+        assertThat(purged).containsExactly(first, second);
+    }
+
+    @Test
+    public void schedule_requestedWhilePurging_newPurgeScheduled() {
+        VaadinSession session = mock(VaadinSession.class);
+        AccessQueuePurger[] purger = new AccessQueuePurger[1];
+        purger[0] = new AccessQueuePurger(tasks::add, s -> {
+            if (purged.add(s) && purged.size() == 1) {
+                purger[0].schedule(s);
+            }
+        });
+
+        purger[0].schedule(session);
+        tasks.get(0).run();
+
+        assertThat(tasks).hasSize(2);
+        tasks.get(1).run();
+        assertThat(purged).containsExactly(session, session);
+    }
+
+    @Test
+    public void schedule_purgeFails_sessionCanBeScheduledAgain() {
+        VaadinSession session = mock(VaadinSession.class);
+        AccessQueuePurger purger = new AccessQueuePurger(tasks::add, s -> {
+            throw new IllegalStateException("expected");
+        });
+
+        purger.schedule(session);
+        tasks.get(0).run();
+        purger.schedule(session);
+
+        assertThat(tasks).hasSize(2);
+        assertThat(purger.metrics().getLong("failed")).isEqualTo(1);
+    }
+
+    @Test
+    public void schedule_executorRejectsTask_purgeRunOnCallingThread() {
+        VaadinSession session = mock(VaadinSession.class);
+        AccessQueuePurger purger = new AccessQueuePurger(
+                task -> {
+                    throw new RejectedExecutionException("expected");
+                },
+                purged::add);
+
+        purger.schedule(session);
+
+        assertThat(purged).containsExactly(session);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.mcollovati.vertx.support.VirtualThreads;
+
+/**
+ * Compares the Vert.x worker pool and virtual threads as executors of
+ * blocking Vaadin requests at high concurrency.
+ * <p>
+ * Each benchmark thread acts as a client sending one request at a time. A
+ * simulated request holds the lock of one of a few sessions for a short CPU
+ * bound section, and waits for a blocking operation (for example a clustered
+ * session store access) outside of it. Sample time mode reports the latency
+ * percentiles (p99 included) together with the number of requests per second.
+ * <p>
+ * The virtual threads mode requires a JVM supporting them. Not executed by the
+ * test suite; run the {@code main} method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class RequestExecutionBenchmark {
+
+    private static final int SESSIONS = 64;
+
+    @Param({"worker", "virtual"})
+    public String mode;
+
+    @Param({"2"})
+    public long blockingMillis;
+
+    private Vertx vertx;
+    private ExecutorService virtualThreads;
+    private final ReentrantLock[] sessionLocks = new ReentrantLock[SESSIONS];
+
+    @Setup
+    public void setUp() {
+        vertx = Vertx.vertx();
+        if ("virtual".equals(mode)) {
+            virtualThreads = VirtualThreads.newExecutor()
+                    .orElseThrow(() -> new IllegalStateException("Virtual threads not supported"));
+        }
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+        vertx.close();
+    }
+
+    @Benchmark
+    public Object request() {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (virtualThreads != null) {
+            virtualThreads.execute(() -> result.complete(handleRequest()));
+        } else {
+            vertx.executeBlocking(
+                    promise -> promise.complete(handleRequest()), false, ar -> result.complete(ar.result()));
+        }
+        return result.join();
+    }
+
+    private Object handleRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ReentrantLock lock = sessionLocks[random.nextInt(SESSIONS)];
+        long checksum;
+        lock.lock();
+        try {
+            checksum = 0;
+            for (int i = 0; i < 10_000; i++) {
+                checksum += random.nextInt();
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Thread.sleep(blockingMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(RequestExecutionBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
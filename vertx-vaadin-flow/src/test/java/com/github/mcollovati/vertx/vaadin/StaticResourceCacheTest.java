@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StaticResourceCacheTest {
+
+    @Test
+    public void put_sizeExceeded_leastRecentlyUsedEntriesEvicted() {
+        StaticResourceCache cache = new StaticResourceCache(30, 30);
+        cache.put("/a.js", resource(10));
+        cache.put("/b.js", resource(10));
+        cache.put("/c.js", resource(10));
+
+        // access a.js so that b.js becomes the eldest entry
+        assertThat(cache.get("/a.js")).isNotNull();
+        cache.put("/d.js", resource(10));
+
+        assertThat(cache.get("/b.js")).isNull();
+        assertThat(cache.get("/a.js")).isNotNull();
+        assertThat(cache.get("/c.js")).isNotNull();
+        assertThat(cache.get("/d.js")).isNotNull();
+        assertThat(cache.size()).isEqualTo(30);
+    }
+
+    @Test
+    public void put_entryTooLarge_notCached() {
+        StaticResourceCache cache = new StaticResourceCache(100, 20);
+        assertThat(cache.put("/big.js", resource(21))).isFalse();
+        assertThat(cache.get("/big.js")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void put_compressedVariants_countedInWeight() {
+        StaticResourceCache cache = new StaticResourceCache(100, 100);
+        cache.put(
+                "/a.js",
+                new StaticResourceCache.CachedResource(
+                        Buffer.buffer(new byte[20]),
+                        Buffer.buffer(new byte[5]),
+                        Buffer.buffer(new byte[8]),
+                        0,
+                        "text/javascript"));
+        assertThat(cache.size()).isEqualTo(33);
+    }
+
+    @Test
+    public void put_replaceEntry_sizeUpdated() {
+        StaticResourceCache cache = new StaticResourceCache(100, 100);
+        cache.put("/a.js", resource(20));
+        cache.put("/a.js", resource(10));
+        assertThat(cache.size()).isEqualTo(10);
+    }
+
+    private static StaticResourceCache.CachedResource resource(int size) {
+        return new StaticResourceCache.CachedResource(Buffer.buffer(new byte[size]), null, null, 0, null);
+    }
+}
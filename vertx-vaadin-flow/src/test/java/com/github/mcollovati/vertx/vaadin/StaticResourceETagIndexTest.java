@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StaticResourceETagIndexTest {
+
+    @Test
+    public void computeETag_sameContent_sameTag() {
+        byte[] content = "body { color: red; }".getBytes(StandardCharsets.UTF_8);
+        String etag = StaticResourceETagIndex.computeETag(content);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(StaticResourceETagIndex.computeETag(content.clone())).isEqualTo(etag);
+        assertThat(StaticResourceETagIndex.computeETag("body { color: blue; }".getBytes(StandardCharsets.UTF_8)))
+                .isNotEqualTo(etag);
+    }
+
+    @Test
+    public void findMatch_listOfTags_matchingTagReturned() {
+        assertThat(StaticResourceETagIndex.findMatch("\"a\", \"b\"", "\"b\"")).isEqualTo("\"b\"");
+        assertThat(StaticResourceETagIndex.findMatch("W/\"a\"", "\"a\"")).isEqualTo("\"a\"");
+        assertThat(StaticResourceETagIndex.findMatch("*", null, "\"gz\"")).isEqualTo("\"gz\"");
+        assertThat(StaticResourceETagIndex.findMatch("\"a\"", "\"b\"", null)).isNull();
+    }
+
+    @Test
+    public void get_resourceUrlMatchesIndexedResource_tagReturned() throws MalformedURLException {
+        StaticResourceETagIndex index = new StaticResourceETagIndex(Map.of(
+                "/VAADIN/build/app.js",
+                List.of(new StaticResourceETagIndex.Entry("META-INF/VAADIN/webapp/VAADIN/build/app.js", "\"x\""))));
+
+        assertThat(index.get(
+                        "/VAADIN/build/app.js",
+                        new URL("jar:file:/app.jar!/META-INF/VAADIN/webapp/VAADIN/build/app.js")))
+                .isEqualTo("\"x\"");
+        assertThat(index.get("/VAADIN/build/app.js", new URL("file:/tmp/VAADIN/build/app.js")))
+                .isNull();
+        assertThat(index.get("/VAADIN/build/other.js", new URL("file:/tmp/VAADIN/build/other.js")))
+                .isNull();
+    }
+
+    @Test
+    public void get_sameResourceWithDifferentContents_noTag() throws MalformedURLException {
+        StaticResourceETagIndex index = new StaticResourceETagIndex(Map.of(
+                "/img/logo.png",
+                List.of(
+                        new StaticResourceETagIndex.Entry("META-INF/resources/img/logo.png", "\"a\""),
+                        new StaticResourceETagIndex.Entry("META-INF/resources/img/logo.png", "\"b\""))));
+
+        assertThat(index.get("/img/logo.png", new URL("jar:file:/lib.jar!/META-INF/resources/img/logo.png")))
+                .isNull();
+    }
+}
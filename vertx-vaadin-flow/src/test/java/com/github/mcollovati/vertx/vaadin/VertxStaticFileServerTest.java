@@ -42,6 +42,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -56,6 +57,7 @@ import com.vaadin.flow.internal.CurrentInstance;
 import com.vaadin.flow.server.HttpStatusCode;
 import com.vaadin.flow.server.Mode;
 import com.vaadin.flow.server.VaadinService;
+import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerRequest;
@@ -209,6 +211,12 @@ public class VertxStaticFileServerTest implements Serializable {
                 })
                 .when(response)
                 .write(anyString(), anyString());
+        Mockito.doAnswer(i -> {
+                    responseOutput.appendBytes(Files.readAllBytes(Path.of(i.getArgument(0, String.class))));
+                    return response;
+                })
+                .when(response)
+                .sendFile(anyString(), any(Handler.class));
 
         configuration = Mockito.mock(DeploymentConfiguration.class);
         Mockito.when(configuration.isProductionMode()).thenReturn(true);
@@ -844,6 +852,167 @@ public class VertxStaticFileServerTest implements Serializable {
         Assert.assertArrayEquals(fileData, responseOutput.getBytes());
     }
 
+    @Test
+    public void serveStaticResource_fileSystemResource_sentWithSendFile() throws IOException {
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        File file = temporaryFolder.newFile("file.js");
+        Files.write(file.toPath(), fileData);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(file.toURI().toURL());
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Mockito.verify(response).sendFile(Mockito.eq(file.getAbsolutePath()), any(Handler.class));
+        Mockito.verify(response, Mockito.never()).write(any(Buffer.class));
+        Mockito.verify(routingContext, Mockito.never()).end();
+        Assert.assertArrayEquals(fileData, responseOutput.getBytes());
+    }
+
+    @Test
+    public void serveStaticResource_resourceCacheEnabled_resourceResolvedOnlyOnce() throws IOException {
+        Mockito.when(configuration.getStringProperty(VertxStaticFileServer.PROPERTY_RESOURCE_CACHE_SIZE, null))
+                .thenReturn("1048576");
+        fileServer = new OverrideableStaticFileServer(vaadinService, configuration);
+        Mockito.doAnswer(i -> {
+                    responseOutput.appendBuffer(i.getArgument(0, Buffer.class));
+                    return null;
+                })
+                .when(routingContext)
+                .end(any(Buffer.class));
+
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData));
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertArrayEquals(fileData, responseOutput.getBytes());
+
+        responseOutput = Buffer.buffer();
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertArrayEquals(fileData, responseOutput.getBytes());
+        Mockito.verify(vaadinService, Mockito.times(1)).getStaticResource("/some/file.js");
+    }
+
+    @Test
+    public void serveStaticResource_resourceCacheEnabled_browserHasLatest_notModified() throws IOException {
+        Mockito.when(configuration.getStringProperty(VertxStaticFileServer.PROPERTY_RESOURCE_CACHE_SIZE, null))
+                .thenReturn("1048576");
+        fileServer = new OverrideableStaticFileServer(vaadinService, configuration);
+
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData));
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+
+        fileServer.overrideBrowserHasNewestVersion = true;
+        responseOutput = Buffer.buffer();
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertEquals(0, responseOutput.length());
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, responseCode.get());
+    }
+
+    @Test
+    public void serveStaticResource_resourceCacheEnabled_lastModifiedWritten() throws IOException {
+        Mockito.when(configuration.getStringProperty(VertxStaticFileServer.PROPERTY_RESOURCE_CACHE_SIZE, null))
+                .thenReturn("1048576");
+        fileServer = new OverrideableStaticFileServer(vaadinService, configuration);
+
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData, 1000123456789L));
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+
+        dateHeaders.clear();
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertEquals(1000123456000L, (long) dateHeaders.get(HttpHeaders.LAST_MODIFIED.toString()));
+    }
+
+    @Test
+    public void serveStaticResource_resourceCacheEnabled_unknownLastModified_notWritten() throws IOException {
+        Mockito.when(configuration.getStringProperty(VertxStaticFileServer.PROPERTY_RESOURCE_CACHE_SIZE, null))
+                .thenReturn("1048576");
+        fileServer = new OverrideableStaticFileServer(vaadinService, configuration);
+
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        // URLConnection returns 0 if the modification time is not known
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData, 0));
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+
+        dateHeaders.clear();
+        responseOutput = Buffer.buffer();
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertFalse(dateHeaders.containsKey(HttpHeaders.LAST_MODIFIED.toString()));
+        Assert.assertNotEquals(HttpServletResponse.SC_NOT_MODIFIED, responseCode.get());
+    }
+
+    @Test
+    public void serveStaticResource_developmentMode_resourceCacheDisabled() throws IOException {
+        Mockito.when(configuration.isProductionMode()).thenReturn(false);
+        Mockito.when(configuration.getStringProperty(VertxStaticFileServer.PROPERTY_RESOURCE_CACHE_SIZE, null))
+                .thenReturn("1048576");
+        fileServer = new OverrideableStaticFileServer(vaadinService, configuration);
+
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenAnswer(i -> createFileURLWithDataAndLength("/some/file.js", fileData));
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Mockito.verify(vaadinService, Mockito.times(2)).getStaticResource("/some/file.js");
+    }
+
+    @Test
+    public void serveStaticResource_indexedResource_etagWritten() throws IOException {
+        fileServer.etagIndex(new StaticResourceETagIndex(
+                Map.of("/some/file.js", List.of(new StaticResourceETagIndex.Entry("some/file.js", "\"abc\"")))));
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData));
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertEquals("\"abc\"", headers.get(HttpHeaders.ETAG.toString()));
+        Assert.assertArrayEquals(fileData, responseOutput.getBytes());
+    }
+
+    @Test
+    public void serveStaticResource_ifNoneMatchSameETag_notModified() throws IOException {
+        fileServer.etagIndex(new StaticResourceETagIndex(
+                Map.of("/some/file.js", List.of(new StaticResourceETagIndex.Entry("some/file.js", "\"abc\"")))));
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData));
+        Mockito.when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"xyz\", \"abc\"");
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, responseCode.get());
+        Assert.assertEquals("\"abc\"", headers.get(HttpHeaders.ETAG.toString()));
+        Assert.assertEquals(0, responseOutput.length());
+    }
+
+    @Test
+    public void serveStaticResource_ifNoneMatchDifferentETag_ifModifiedSinceIgnored() throws IOException {
+        fileServer.etagIndex(new StaticResourceETagIndex(
+                Map.of("/some/file.js", List.of(new StaticResourceETagIndex.Entry("some/file.js", "\"abc\"")))));
+        fileServer.overrideBrowserHasNewestVersion = true;
+        setupRequestURI("", "/some/file.js");
+        byte[] fileData = "function() {eval('foo');};".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(vaadinService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js", fileData));
+        Mockito.when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"xyz\"");
+
+        Assert.assertTrue(fileServer.serveStaticResource(routingContext));
+        Assert.assertNotEquals(HttpServletResponse.SC_NOT_MODIFIED, responseCode.get());
+        Assert.assertArrayEquals(fileData, responseOutput.getBytes());
+    }
+
     @Test
     public void contextPath_serveStaticBundleBuildResource() throws IOException {
         String pathInfo = "/VAADIN/build/vaadin-bundle-1234.cache.js";
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Measures the throughput of the {@link VertxVaadinResponse} output path on
+ * UIDL-like JSON payloads, compared with the previous implementation that
+ * appended single bytes or decoded strings to a Vert.x {@link Buffer} and
+ * copied it on flush.
+ * <p>
+ * Not executed by the test suite; run the {@code main} method with the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VertxVaadinResponseBenchmark {
+
+    @Param({"16384", "131072", "524288"})
+    public int payloadSize;
+
+    private String payload;
+    private byte[] payloadBytes;
+    private RoutingContext routingContext;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(Blackhole blackhole) {
+        payload = uidlPayload(payloadSize);
+        payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        HttpServerResponse response = Mockito.mock(HttpServerResponse.class);
+        routingContext = Mockito.mock(RoutingContext.class);
+        Mockito.when(routingContext.response()).thenReturn(response);
+        Mockito.doAnswer(i -> {
+                    blackhole.consume(i.getArgument(0, Buffer.class).length());
+                    i.getArgument(1, Handler.class).handle(Future.succeededFuture());
+                    return null;
+                })
+                .when(response)
+                .end(any(Buffer.class), any(Handler.class));
+        Mockito.doAnswer(i -> {
+                    blackhole.consume(i.getArgument(0, Buffer.class).length());
+                    return null;
+                })
+                .when(response)
+                .end(any(Buffer.class));
+    }
+
+    @Benchmark
+    public void outputStream() throws IOException {
+        VertxVaadinResponse response = new VertxVaadinResponse(null, routingContext);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(payloadBytes);
+        }
+    }
+
+    @Benchmark
+    public void writer() {
+        VertxVaadinResponse response = new VertxVaadinResponse(null, routingContext);
+        try (PrintWriter writer = response.getWriter()) {
+            writer.write(payload);
+        }
+    }
+
+    @Benchmark
+    public void legacyOutputStream() {
+        // OutputStream overriding only write(int)
+        Buffer buffer = Buffer.buffer();
+        for (byte b : payloadBytes) {
+            buffer.appendByte(b);
+        }
+        routingContext.response().end(buffer);
+    }
+
+    @Benchmark
+    public void legacyWriter() {
+        // Writer copying chars to a new String, then encoding it into the buffer
+        Buffer buffer = Buffer.buffer();
+        char[] chars = payload.toCharArray();
+        buffer.appendString(new String(chars, 0, chars.length));
+        routingContext.response().end(buffer);
+    }
+
+    private static String uidlPayload(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size + 256);
+        builder.append("for(;;);[{\"syncId\":1,\"clientId\":1,\"changes\":[");
+        int node = 0;
+        while (builder.length() < size) {
+            if (node > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"node\":")
+                    .append(node++)
+                    .append(",\"type\":\"put\",\"key\":\"text\",\"feat\":7,\"value\":\"Label ")
+                    .append(random.nextInt(100000))
+                    .append(" è€\"}");
+        }
+        builder.append("],\"constants\":{},\"timings\":[12,3]}]");
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(VertxVaadinResponseBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
@@ -24,6 +24,7 @@ package com.github.mcollovati.vertx.vaadin;
 
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -34,6 +35,8 @@ import com.pholser.junit.quickcheck.From;
 import com.pholser.junit.quickcheck.Property;
 import com.pholser.junit.quickcheck.generator.InRange;
 import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.MultiMap;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerResponse;
@@ -53,10 +56,12 @@ import com.github.mcollovati.vertx.utils.RandomStringGenerator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -124,10 +129,90 @@ public class VertxVaadinResponseUT {
         oos.close();
 
         ArgumentCaptor<Buffer> byteBufferCaptor = ArgumentCaptor.forClass(Buffer.class);
-        verify(httpServerResponse).end(byteBufferCaptor.capture());
+        verify(httpServerResponse).end(byteBufferCaptor.capture(), any());
         assertThat(byteBufferCaptor.getValue()).isEqualTo(Buffer.buffer(test.getBytes()));
     }
 
+    @Test
+    public void getStreamingOutputStreamShouldWriteBoundedChunks() throws Exception {
+        when(httpServerResponse.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap());
+        byte[] data = new byte[VertxVaadinResponse.STREAMING_CHUNK_SIZE * 2 + 10];
+        OutputStream oos = vaadinResponse.getStreamingOutputStream();
+        oos.write(data);
+        verify(httpServerResponse).setChunked(true);
+        verify(httpServerResponse, times(2)).write(any(Buffer.class));
+
+        oos.close();
+
+        ArgumentCaptor<Buffer> byteBufferCaptor = ArgumentCaptor.forClass(Buffer.class);
+        verify(httpServerResponse, times(3)).write(byteBufferCaptor.capture());
+        assertThat(byteBufferCaptor.getAllValues())
+                .extracting(Buffer::length)
+                .containsExactly(
+                        VertxVaadinResponse.STREAMING_CHUNK_SIZE, VertxVaadinResponse.STREAMING_CHUNK_SIZE, 10);
+        verify(httpServerResponse).end();
+    }
+
+    @Test
+    public void getStreamingOutputStreamCloseShouldNotWriteAfterAbort() throws Exception {
+        when(httpServerResponse.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap());
+        OutputStream oos = vaadinResponse.getStreamingOutputStream();
+        oos.write(new byte[10]);
+
+        vaadinResponse.abort();
+        oos.close();
+        vaadinResponse.end();
+
+        assertThat(vaadinResponse.isAborted()).isTrue();
+        verify(httpServerResponse).reset();
+        verify(httpServerResponse, Mockito.never()).write(any(Buffer.class));
+        verify(httpServerResponse, Mockito.never()).end();
+        verify(httpServerResponse, Mockito.never()).end(any(Buffer.class), any());
+    }
+
+    @Test
+    public void discardShouldReleaseContentNotWritten() throws Exception {
+        OutputStream oos = vaadinResponse.getOutputStream();
+        oos.write("partial content".getBytes());
+        ByteBuf content = vaadinResponse.pendingContent();
+        assertThat(content.refCnt()).isEqualTo(1);
+
+        // request handling failed before the response has been ended
+        vaadinResponse.discard();
+
+        assertThat(content.refCnt()).isZero();
+        assertThat(vaadinResponse.pendingContent()).isNull();
+        verify(httpServerResponse, Mockito.never()).write(any(Buffer.class), any());
+        verify(httpServerResponse, Mockito.never()).end(any(Buffer.class), any());
+    }
+
+    @Test
+    public void getOutputStreamShouldWriteByteArrays() throws Exception {
+        OutputStream oos = vaadinResponse.getOutputStream();
+        oos.write('<');
+        oos.write("A test string".getBytes(), 2, 4);
+        oos.write('>');
+        oos.close();
+
+        ArgumentCaptor<Buffer> byteBufferCaptor = ArgumentCaptor.forClass(Buffer.class);
+        verify(httpServerResponse).end(byteBufferCaptor.capture(), any());
+        assertThat(byteBufferCaptor.getValue().toString()).isEqualTo("<test>");
+    }
+
+    @Test
+    public void getWriterShouldEncodeUtf8() throws Exception {
+        String test = "caff\u00e8 \u20ac \ud83d\ude00!";
+        PrintWriter writer = vaadinResponse.getWriter();
+        // surrogate pair split across writes
+        writer.write(test, 0, 9);
+        writer.write(test.toCharArray(), 9, test.length() - 9);
+        writer.close();
+
+        ArgumentCaptor<Buffer> byteBufferCaptor = ArgumentCaptor.forClass(Buffer.class);
+        verify(httpServerResponse).end(byteBufferCaptor.capture(), any());
+        assertThat(byteBufferCaptor.getValue()).isEqualTo(Buffer.buffer(test.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Test
     public void getOutputStreamShouldFailIfGetWriterHasBeenCalled() throws Exception {
         vaadinResponse.getWriter();
@@ -146,8 +231,8 @@ public class VertxVaadinResponseUT {
         writer.close();
 
         ArgumentCaptor<Buffer> byteBufferCaptor = ArgumentCaptor.forClass(Buffer.class);
-        verify(httpServerResponse).write(byteBufferCaptor.capture());
-        verify(httpServerResponse).end(byteBufferCaptor.capture());
+        verify(httpServerResponse).write(byteBufferCaptor.capture(), any());
+        verify(httpServerResponse).end(byteBufferCaptor.capture(), any());
 
         assertThat(byteBufferCaptor.getAllValues())
                 .containsExactly(Buffer.buffer(test.getBytes()), Buffer.buffer(test.getBytes()));
@@ -25,6 +25,8 @@ package com.github.mcollovati.vertx.vaadin;
 import java.net.MalformedURLException;
 import java.net.URL;
 
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.core.net.impl.SocketAddressImpl;
@@ -78,6 +80,23 @@ public class VertxVaadinServiceUT {
         Assert.assertEquals("/foo", service.resolveResource("context://foo"));
     }
 
+    @Test
+    public void uploadExecutor_createdOnceAndClosedOnDestroy() {
+        Vertx vertx = service.getVertx();
+        WorkerExecutor worker = mock(WorkerExecutor.class);
+        when(vertx.createSharedWorkerExecutor(Mockito.anyString(), Mockito.anyInt()))
+                .thenReturn(worker);
+
+        WorkerExecutor executor = service.getUploadExecutor();
+        Assert.assertSame(worker, executor);
+        Assert.assertSame(executor, service.getUploadExecutor());
+        Mockito.verify(vertx).createSharedWorkerExecutor("vaadin.upload.worker", 1);
+        Mockito.verify(worker, Mockito.never()).close();
+
+        service.destroy();
+        Mockito.verify(worker).close();
+    }
+
     private String testLocation(String base, String contextPath, String pathInfo) throws Exception {
 
         RoutingContext routingContext = createRequest(base, contextPath, pathInfo);
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.communication;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.shared.Registration;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class PushBroadcasterTest {
+
+    private Vertx vertx;
+    private PushBroadcaster broadcaster;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        broadcaster = new PushBroadcaster(vertx);
+    }
+
+    @After
+    public void tearDown(TestContext context) {
+        broadcaster.close();
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test(timeout = 5000L)
+    public void broadcast_messageDeliveredToTopicSubscribers(TestContext context) {
+        Async async = context.async(2);
+        broadcaster.subscribe(mockUI(), "news", (String message) -> {
+            context.assertEquals("hello", message);
+            async.countDown();
+        });
+        broadcaster.subscribe(mockUI(), "news", (String message) -> {
+            context.assertEquals("hello", message);
+            async.countDown();
+        });
+        broadcaster.subscribe(mockUI(), "other", message -> context.fail("Unexpected message " + message));
+
+        broadcaster.broadcast("news", "hello");
+    }
+
+    @Test
+    public void subscribe_registrationRemoved_subscriptionDiscarded(TestContext context) {
+        Registration registration = broadcaster.subscribe(mockUI(), "news", message -> {});
+        context.assertEquals(1, broadcaster.subscriptions("news"));
+
+        registration.remove();
+
+        context.assertEquals(0, broadcaster.subscriptions("news"));
+    }
+
+    private static UI mockUI() {
+        UI ui = Mockito.mock(UI.class);
+        when(ui.access(any())).thenAnswer(invocation -> {
+            invocation.getArgument(0, Command.class).execute();
+            return null;
+        });
+        when(ui.addDetachListener(any())).thenReturn(() -> {});
+        return ui;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.StreamVariable;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+public class StreamReceiverHandlerTest {
+
+    @Test
+    public void uploadBufferSize_unknownLength_default() {
+        assertThat(StreamReceiverHandler.uploadBufferSize(-1)).isEqualTo(64 * 1024);
+    }
+
+    @Test
+    public void uploadBufferSize_boundedByContentLength() {
+        assertThat(StreamReceiverHandler.uploadBufferSize(0)).isEqualTo(8 * 1024);
+        assertThat(StreamReceiverHandler.uploadBufferSize(100)).isEqualTo(8 * 1024);
+        assertThat(StreamReceiverHandler.uploadBufferSize(1024 * 1024)).isEqualTo(64 * 1024);
+        assertThat(StreamReceiverHandler.uploadBufferSize(2L * 1024 * 1024 * 1024))
+                .isEqualTo(256 * 1024);
+    }
+
+    @Test
+    public void progressTracker_pendingEvent_updatesCoalesced() {
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        StreamVariable streamVariable = Mockito.mock(StreamVariable.class);
+        List<Command> accessed = new ArrayList<>();
+        Mockito.when(session.access(any())).thenAnswer(i -> {
+            accessed.add(i.getArgument(0));
+            return null;
+        });
+        StreamReceiverHandler.ProgressTracker tracker =
+                new StreamReceiverHandler.ProgressTracker(session, streamVariable, "file", "text/plain", 30, 0);
+
+        tracker.bytesReceived(10);
+        tracker.bytesReceived(10);
+        assertThat(accessed).hasSize(1);
+
+        accessed.get(0).execute();
+        ArgumentCaptor<StreamVariable.StreamingProgressEvent> event =
+                ArgumentCaptor.forClass(StreamVariable.StreamingProgressEvent.class);
+        Mockito.verify(streamVariable).onProgress(event.capture());
+        assertThat(event.getValue().getBytesReceived()).isEqualTo(20);
+
+        tracker.bytesReceived(10);
+        assertThat(accessed).hasSize(2);
+    }
+
+    @Test
+    public void progressTracker_closed_pendingEventDropped() {
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        StreamVariable streamVariable = Mockito.mock(StreamVariable.class);
+        List<Command> accessed = new ArrayList<>();
+        Mockito.when(session.access(any())).thenAnswer(i -> {
+            accessed.add(i.getArgument(0));
+            return null;
+        });
+        StreamReceiverHandler.ProgressTracker tracker =
+                new StreamReceiverHandler.ProgressTracker(session, streamVariable, "file", "text/plain", 30, 0);
+
+        tracker.bytesReceived(30);
+        assertThat(tracker.close().getBytesReceived()).isEqualTo(30);
+        accessed.get(0).execute();
+
+        Mockito.verify(streamVariable, Mockito.never()).onProgress(any());
+    }
+}
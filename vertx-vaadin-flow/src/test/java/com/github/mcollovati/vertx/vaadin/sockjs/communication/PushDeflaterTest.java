@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+public class PushDeflaterTest {
+
+    private static final String MESSAGE =
+            "for(;;);[{\"syncId\":%d,\"clientId\":%d,\"changes\":[{\"node\":12,\"type\":\"put\",\"key\":\"text\","
+                    + "\"feat\":1,\"value\":\"Update %d\"}],\"timings\":[120,3]}]";
+
+    @Test
+    public void compress_messagesInflatedWithSharedContext() throws DataFormatException {
+        PushMetrics metrics = new PushMetrics();
+        PushDeflater deflater = new PushDeflater(metrics);
+        Inflater inflater = new Inflater(true);
+
+        Buffer first = deflater.compress(Buffer.buffer(String.format(MESSAGE, 1, 1, 1)));
+        Buffer second = deflater.compress(Buffer.buffer(String.format(MESSAGE, 2, 2, 2)));
+
+        assertThat(inflate(inflater, first)).isEqualTo(String.format(MESSAGE, 1, 1, 1));
+        assertThat(inflate(inflater, second)).isEqualTo(String.format(MESSAGE, 2, 2, 2));
+        // repeated content is encoded as references to the previous message
+        assertThat(second.length()).isLessThan(first.length() / 2);
+
+        JsonObject json = metrics.toJson(0);
+        assertThat(json.getLong("compressedMessages")).isEqualTo(2);
+        assertThat(json.getLong("compressedBytes")).isEqualTo(first.length() + second.length());
+        assertThat(json.getLong("savedBytes")).isPositive();
+        deflater.end();
+    }
+
+    @Test
+    public void compress_afterEnd_throws() {
+        PushDeflater deflater = new PushDeflater(new PushMetrics());
+        deflater.end();
+
+        assertThatIllegalStateException().isThrownBy(() -> deflater.compress(Buffer.buffer("message")));
+    }
+
+    private static String inflate(Inflater inflater, Buffer frame) throws DataFormatException {
+        int length = frame.getInt(0);
+        inflater.setInput(frame.getBytes(4, frame.length()));
+        byte[] output = new byte[length];
+        int count = 0;
+        while (count < length) {
+            count += inflater.inflate(output, count, length - count);
+        }
+        return new String(output, StandardCharsets.UTF_8);
+    }
+}
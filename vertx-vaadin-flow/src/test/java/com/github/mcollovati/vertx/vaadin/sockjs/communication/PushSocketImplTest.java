@@ -0,0 +1,475 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.VaadinSessionState;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.auth.PRNG;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.handler.sockjs.SockJSSocket;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.github.mcollovati.vertx.support.SerialExecutor;
+import com.github.mcollovati.vertx.vaadin.VertxVaadinRequest;
+import com.github.mcollovati.vertx.vaadin.VertxVaadinService;
+import com.github.mcollovati.vertx.vaadin.sockjs.communication.SockJSPushHandler.PushSocketImpl;
+import com.github.mcollovati.vertx.vaadin.sockjs.communication.SockJSPushHandler.SessionBinding;
+
+import static io.vertx.ext.web.sstore.SessionStore.DEFAULT_SESSIONID_LENGTH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@RunWith(VertxUnitRunner.class)
+public class PushSocketImplTest {
+
+    private static final String SOCKET_ID = "socket-1";
+
+    @Rule
+    public RunTestOnContext rule = new RunTestOnContext();
+
+    private SockJSSocket sockJSSocket;
+    private PushMetrics metrics;
+    private final AtomicReference<Handler<Void>> drainHandler = new AtomicReference<>();
+
+    @Before
+    public void setUp() {
+        sockJSSocket = mock(SockJSSocket.class, withSettings().extraInterfaces(Shareable.class));
+        when(sockJSSocket.writeHandlerID()).thenReturn(SOCKET_ID);
+        when(sockJSSocket.remoteAddress()).thenReturn(SocketAddress.inetSocketAddress(1234, "127.0.0.1"));
+        when(sockJSSocket.writeQueueFull()).thenReturn(true);
+        doAnswer(invocation -> {
+                    drainHandler.set(invocation.getArgument(0));
+                    return sockJSSocket;
+                })
+                .when(sockJSSocket)
+                .drainHandler(any());
+        SockJSPushHandler.socketsMap(rule.vertx()).put(SOCKET_ID, sockJSSocket);
+        metrics = new PushMetrics();
+    }
+
+    @After
+    public void tearDown() {
+        SockJSPushHandler.socketsMap(rule.vertx()).remove(SOCKET_ID);
+    }
+
+    @Test
+    public void send_coalescePolicy_throttledUntilDrained(TestContext context) {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        AtomicInteger executed = new AtomicInteger();
+        Async async = context.async();
+
+        socket.send("message").whenComplete((unused, error) -> {
+            context.assertNull(error);
+            context.assertTrue(socket.isThrottled());
+            context.assertEquals(1L, metrics.toJson(1).getLong("throttledSockets"));
+            socket.whenWritable(executed::incrementAndGet);
+            socket.whenWritable(executed::incrementAndGet);
+            context.assertEquals(0, executed.get());
+
+            drainHandler.get().handle(null);
+            context.assertFalse(socket.isThrottled());
+            context.assertEquals(2, executed.get());
+            context.assertEquals(0L, metrics.toJson(1).getLong("throttledSockets"));
+
+            socket.whenWritable(executed::incrementAndGet);
+            context.assertEquals(3, executed.get());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void send_nonePolicy_neverThrottled(TestContext context) {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.NONE);
+        AtomicInteger executed = new AtomicInteger();
+        Async async = context.async();
+
+        socket.send("message").whenComplete((unused, error) -> {
+            context.assertNull(error);
+            context.assertFalse(socket.isThrottled());
+            socket.whenWritable(executed::incrementAndGet);
+            context.assertEquals(1, executed.get());
+            verify(sockJSSocket, never()).drainHandler(any());
+            context.assertEquals(0L, metrics.toJson(1).getLong("throttled"));
+            async.complete();
+        });
+    }
+
+    @Test
+    public void release_disconnectedSocket_pendingTasksDiscarded(TestContext context) {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        AtomicInteger executed = new AtomicInteger();
+        Async async = context.async();
+
+        socket.send("message").whenComplete((unused, error) -> {
+            context.assertNull(error);
+            socket.whenWritable(executed::incrementAndGet);
+
+            socket.release();
+            context.assertFalse(socket.isThrottled());
+            context.assertEquals(0L, metrics.toJson(0).getLong("throttledSockets"));
+
+            drainHandler.get().handle(null);
+            context.assertEquals(0, executed.get());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void remoteWrite_clusteredSocket_writtenAndAcknowledged(TestContext context) {
+        PushSocketImpl socket = new PushSocketImpl(sockJSSocket, null, SlowConsumerPolicy.NONE, metrics, true);
+        String address = SockJSPushHandler.sendAddress(SOCKET_ID);
+
+        rule.vertx().eventBus().request(address, "message").onComplete(context.asyncAssertSuccess(reply -> {
+            verify(sockJSSocket).write(Buffer.buffer("message"));
+            socket.release();
+            rule.vertx()
+                    .eventBus()
+                    .request(address, "message")
+                    .onComplete(context.asyncAssertFailure(error -> context.assertEquals(
+                            ReplyFailure.NO_HANDLERS, ((ReplyException) error).failureType())));
+        }));
+    }
+
+    @Test
+    public void remoteWrite_socketDisconnected_deliveryFailed(TestContext context) {
+        PushSocketImpl socket = new PushSocketImpl(sockJSSocket, null, SlowConsumerPolicy.NONE, metrics, true);
+        SockJSPushHandler.socketsMap(rule.vertx()).remove(SOCKET_ID);
+
+        rule.vertx()
+                .eventBus()
+                .request(SockJSPushHandler.sendAddress(SOCKET_ID), "message")
+                .onComplete(context.asyncAssertFailure(error -> {
+                    context.assertEquals(ReplyFailure.RECIPIENT_FAILURE, ((ReplyException) error).failureType());
+                    socket.release();
+                }));
+    }
+
+    @Test
+    public void send_remoteSocketAcknowledged_stillConnected(TestContext context) throws Exception {
+        PushSocketImpl socket = remoteSocket();
+        rule.vertx().eventBus().<String>consumer(SockJSPushHandler.sendAddress(SOCKET_ID), message -> {
+            context.assertEquals("message", message.body());
+            message.reply(null);
+        });
+
+        socket.send("message").whenComplete((unused, error) -> {
+            context.assertNull(error);
+            context.assertTrue(socket.isConnected());
+        }).whenComplete(asyncCompletion(context));
+    }
+
+    @Test
+    public void send_remoteSocketWithoutOwner_connectionLost(TestContext context) throws Exception {
+        PushSocketImpl socket = remoteSocket();
+        context.assertTrue(socket.isConnected());
+
+        socket.send("message").handle((unused, error) -> {
+            context.assertTrue(error instanceof ReplyException);
+            context.assertEquals(ReplyFailure.NO_HANDLERS, ((ReplyException) error).failureType());
+            context.assertFalse(socket.isConnected());
+            return null;
+        }).whenComplete(asyncCompletion(context));
+    }
+
+    @Test
+    public void send_remoteSocketOwnerFailure_connectionLost(TestContext context) throws Exception {
+        PushSocketImpl socket = remoteSocket();
+        rule.vertx()
+                .eventBus()
+                .<String>consumer(SockJSPushHandler.sendAddress(SOCKET_ID), message -> message.fail(500, "closed"));
+
+        socket.send("message").handle((unused, error) -> {
+            context.assertTrue(error instanceof ReplyException);
+            context.assertFalse(socket.isConnected());
+            return null;
+        }).whenComplete(asyncCompletion(context));
+    }
+
+    @Test
+    public void dispatch_completedAfterCallbackExecuted(TestContext context) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PushSocketImpl socket = new PushSocketImpl(
+                sockJSSocket, new SerialExecutor(executor), SlowConsumerPolicy.NONE, metrics, false);
+        AtomicBoolean executed = new AtomicBoolean();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> dispatched = socket.dispatch(() -> {
+            awaitUninterruptibly(release);
+            executed.set(true);
+        });
+
+        context.assertFalse(dispatched.isDone());
+        release.countDown();
+        dispatched.whenComplete((unused, error) -> {
+            context.assertNull(error);
+            context.assertTrue(executed.get());
+            executor.shutdown();
+        }).whenComplete(asyncCompletion(context));
+    }
+
+    @Test
+    public void dispatch_callbackFailed_completedExceptionally(TestContext context) {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.NONE);
+
+        CompletableFuture<Void> dispatched = socket.dispatch(() -> {
+            throw new IllegalStateException("failed");
+        });
+
+        context.assertTrue(dispatched.isCompletedExceptionally());
+    }
+
+    @Test
+    public void dispatch_executorShutDown_completedExceptionally(TestContext context) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        PushSocketImpl socket = new PushSocketImpl(
+                sockJSSocket, new SerialExecutor(executor), SlowConsumerPolicy.NONE, metrics, false);
+        AtomicBoolean executed = new AtomicBoolean();
+
+        CompletableFuture<Void> dispatched = socket.dispatch(() -> executed.set(true));
+
+        context.assertTrue(dispatched.isCompletedExceptionally());
+        context.assertFalse(executed.get());
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(dispatched::join)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void binding_lookupInProgress_notUsedUntilCompleted() {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        SessionBinding binding = binding(httpSession(30000));
+
+        socket.lookupStarted();
+        socket.bind(binding);
+        // messages received after one still looking up the session must take
+        // the same path, to be handled in order
+        assertThat(socket.binding()).isNull();
+        socket.lookupStarted();
+        socket.lookupCompleted();
+        assertThat(socket.binding()).isNull();
+
+        socket.lookupCompleted();
+        assertThat(socket.binding()).isSameAs(binding);
+    }
+
+    @Test
+    public void binding_httpSessionRegenerated_dropped() {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        Session httpSession = httpSession(30000);
+        socket.bind(binding(httpSession));
+
+        httpSession.regenerateId();
+
+        assertThat(socket.binding()).isNull();
+    }
+
+    @Test
+    public void binding_httpSessionDestroyed_dropped() {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        Session httpSession = httpSession(30000);
+        socket.bind(binding(httpSession));
+
+        httpSession.destroy();
+
+        assertThat(socket.binding()).isNull();
+    }
+
+    @Test
+    public void binding_halfSessionTimeoutElapsed_dropped() throws InterruptedException {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        socket.bind(binding(httpSession(40)));
+        assertThat(socket.binding()).isNotNull();
+
+        Thread.sleep(30);
+
+        assertThat(socket.binding()).isNull();
+        // dropped bindings are not restored
+        assertThat(socket.binding()).isNull();
+    }
+
+    @Test
+    public void binding_invalidated_dropped() {
+        PushSocketImpl socket = pushSocket(SlowConsumerPolicy.COALESCE);
+        SessionBinding binding = binding(httpSession(30000));
+        socket.bind(binding);
+
+        // for example because the session could not be written back
+        binding.invalidate();
+
+        assertThat(socket.binding()).isNull();
+    }
+
+    @Test
+    public void binding_writesRequestedWhileInFlight_coalesced() {
+        SessionBinding binding = binding(httpSession(30000));
+
+        assertThat(binding.writeRequested()).isTrue();
+        assertThat(binding.writeRequested()).isFalse();
+        assertThat(binding.writeRequested()).isFalse();
+
+        // a single write covers the changes requested in the meantime
+        assertThat(binding.writeCompleted()).isTrue();
+        assertThat(binding.writeCompleted()).isFalse();
+        assertThat(binding.writeRequested()).isTrue();
+    }
+
+    @Test
+    public void binding_frameContextReusedWithAttributesReset() {
+        SessionBinding binding = binding(httpSession(30000));
+        RoutingContext socketContext = mock(RoutingContext.class);
+        when(socketContext.data()).thenReturn(new HashMap<>());
+        VertxVaadinService service = mock(VertxVaadinService.class);
+
+        SockJSRoutingContext frameContext = binding.frameContext(socketContext);
+        VertxVaadinRequest request = binding.frameRequest(service);
+        request.setAttribute("attribute", "value");
+
+        assertThat(binding.frameContext(socketContext)).isSameAs(frameContext);
+        assertThat(binding.frameRequest(service)).isSameAs(request);
+        assertThat(request.getAttribute("attribute")).isNull();
+    }
+
+    @Test
+    public void binding_uiDetached_uiNotResolved() {
+        UI ui = ui();
+        VaadinSession vaadinSession = vaadinSession(ui);
+        SessionBinding binding = new SessionBinding(httpSession(30000), vaadinSession, ui);
+        assertThat(binding.ui()).isSameAs(ui);
+
+        when(vaadinSession.getUIById(ui.getUIId())).thenReturn(null);
+
+        assertThat(binding.ui()).isNull();
+    }
+
+    @Test
+    public void binding_vaadinSessionClosed_uiNotResolved() {
+        UI ui = ui();
+        VaadinSession vaadinSession = vaadinSession(ui);
+        SessionBinding binding = new SessionBinding(httpSession(30000), vaadinSession, ui);
+
+        when(vaadinSession.getState()).thenReturn(VaadinSessionState.CLOSING);
+
+        assertThat(binding.ui()).isNull();
+    }
+
+    private static SessionBinding binding(Session httpSession) {
+        UI ui = ui();
+        return new SessionBinding(httpSession, vaadinSession(ui), ui);
+    }
+
+    private Session httpSession(long timeout) {
+        return new SharedDataSessionImpl(new PRNG(rule.vertx()), timeout, DEFAULT_SESSIONID_LENGTH);
+    }
+
+    private static UI ui() {
+        UI ui = mock(UI.class);
+        when(ui.getUIId()).thenReturn(1);
+        return ui;
+    }
+
+    private static VaadinSession vaadinSession(UI ui) {
+        VaadinSession vaadinSession = mock(VaadinSession.class);
+        when(vaadinSession.getState()).thenReturn(VaadinSessionState.OPEN);
+        when(vaadinSession.getUIById(ui.getUIId())).thenReturn(ui);
+        return vaadinSession;
+    }
+
+    private PushSocketImpl pushSocket(SlowConsumerPolicy policy) {
+        return new PushSocketImpl(sockJSSocket, null, policy, metrics, false);
+    }
+
+    // a clustered socket restored from a session replicated by the node the
+    // SockJS socket is bound to
+    private PushSocketImpl remoteSocket() throws Exception {
+        PushSocketImpl owner = new PushSocketImpl(sockJSSocket, null, SlowConsumerPolicy.NONE, metrics, true);
+        owner.release();
+        SockJSPushHandler.socketsMap(rule.vertx()).remove(SOCKET_ID);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(owner);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (PushSocketImpl) in.readObject();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> BiConsumer<T, Throwable> asyncCompletion(TestContext context) {
+        Async async = context.async();
+        return (unused, error) -> {
+            if (error != null) {
+                context.fail(error);
+            } else {
+                async.complete();
+            }
+        };
+    }
+}
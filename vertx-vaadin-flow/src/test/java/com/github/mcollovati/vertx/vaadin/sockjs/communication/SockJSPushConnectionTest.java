@@ -0,0 +1,309 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.vaadin.flow.component.PushConfiguration;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.shared.communication.PushMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SockJSPushConnectionTest {
+
+    private static final int UI_ID = 1;
+
+    private UI ui;
+    private PushConfiguration pushConfiguration;
+    private TestPushSocket socket;
+
+    @Before
+    public void setUp() {
+        ui = mock(UI.class);
+        when(ui.getUIId()).thenReturn(UI_ID);
+        pushConfiguration = mock(PushConfiguration.class);
+        when(ui.getPushConfiguration()).thenReturn(pushConfiguration);
+        when(pushConfiguration.getPushMode()).thenReturn(PushMode.MANUAL);
+
+        VaadinSession session = mock(VaadinSession.class);
+        when(session.getUIById(UI_ID)).thenReturn(ui);
+        when(session.access(any())).thenAnswer(invocation -> {
+            invocation.<Command>getArgument(0).execute();
+            return CompletableFuture.completedFuture(null);
+        });
+        CurrentInstance.set(VaadinSession.class, session);
+        socket = new TestPushSocket();
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void push_noCoalescingWindow_sentImmediately() {
+        SockJSPushConnection connection = connection(0);
+
+        connection.push(true);
+        connection.push(true);
+
+        assertThat(socket.sent).containsExactly("async-1", "async-2");
+        assertThat(socket.scheduled).isEmpty();
+    }
+
+    @Test
+    public void push_withinCoalescingWindow_deferredAndSentOnceAtTheEnd() {
+        SockJSPushConnection connection = connection(1000);
+
+        connection.push(true);
+        connection.push(true);
+        connection.push(true);
+
+        assertThat(socket.sent).containsExactly("async-1");
+        assertThat(socket.scheduled).hasSize(1);
+        assertThat(socket.delays).allSatisfy(delay -> assertThat(delay).isBetween(1L, 1000L));
+
+        socket.runScheduled();
+
+        assertThat(socket.sent).containsExactly("async-1", "async-2");
+        assertThat(socket.scheduled).isEmpty();
+    }
+
+    @Test
+    public void push_automaticPushMode_flushLeavesPushToSessionUnlock() {
+        when(pushConfiguration.getPushMode()).thenReturn(PushMode.AUTOMATIC);
+        SockJSPushConnection connection = connection(1000);
+
+        connection.push(true);
+        connection.push(true);
+        socket.runScheduled();
+
+        // with automatic push, unlocking the session in access() pushes the
+        // pending changes, the window is closed so they are sent right away
+        assertThat(socket.sent).containsExactly("async-1");
+        connection.push(true);
+        assertThat(socket.sent).containsExactly("async-1", "async-2");
+    }
+
+    @Test
+    public void push_responseToClientRequest_neverDeferred() {
+        SockJSPushConnection connection = connection(1000);
+
+        connection.push(true);
+        connection.push(false);
+
+        assertThat(socket.sent).containsExactly("async-1", "response-2");
+        assertThat(socket.scheduled).isEmpty();
+    }
+
+    @Test
+    public void push_afterCoalescingWindow_sentImmediately() throws InterruptedException {
+        SockJSPushConnection connection = connection(20);
+
+        connection.push(true);
+        Thread.sleep(40);
+        connection.push(true);
+
+        assertThat(socket.sent).containsExactly("async-1", "async-2");
+        assertThat(socket.scheduled).isEmpty();
+    }
+
+    @Test
+    public void push_throttledSocket_deferredUntilDrained() {
+        SockJSPushConnection connection = connection(0);
+        socket.throttled = true;
+
+        connection.push(true);
+        connection.push(true);
+
+        assertThat(socket.sent).isEmpty();
+        assertThat(socket.writableTasks).hasSize(1);
+
+        socket.drain();
+
+        assertThat(socket.sent).containsExactly("async-1");
+        assertThat(socket.writableTasks).isEmpty();
+    }
+
+    @Test
+    public void push_throttledSocket_responseToClientRequestNotDeferred() {
+        SockJSPushConnection connection = connection(0);
+        socket.throttled = true;
+
+        connection.push(false);
+
+        assertThat(socket.sent).containsExactly("response-1");
+        assertThat(socket.writableTasks).isEmpty();
+    }
+
+    @Test
+    public void push_throttledSocketReplaced_pendingPushSentOnNewSocket() {
+        SockJSPushConnection connection = connection(0);
+        socket.throttled = true;
+        connection.push(true);
+        assertThat(socket.writableTasks).hasSize(1);
+
+        // the throttled socket is disconnected and pending tasks discarded
+        TestPushSocket oldSocket = socket;
+        oldSocket.close();
+        oldSocket.writableTasks.clear();
+        connection.connectionLost();
+        connection.push(true);
+        socket = new TestPushSocket();
+        connection.connect(socket);
+
+        assertThat(oldSocket.sent).isEmpty();
+        assertThat(socket.sent).containsExactly("async-1");
+    }
+
+    @Test
+    public void push_messageNotDelivered_connectionLost() {
+        SockJSPushConnection connection = connection(0);
+        socket.deliveryFailure = new IllegalStateException("socket gone");
+
+        connection.push(true);
+
+        assertThat(connection.isConnected()).isFalse();
+        assertThat(connection.getSocket()).isNull();
+
+        connection.push(true);
+        socket = new TestPushSocket();
+        connection.connect(socket);
+        assertThat(socket.sent).containsExactly("async-2");
+    }
+
+    @Test
+    public void push_messageNotDeliveredToConnectedSocket_connectionKept() {
+        SockJSPushConnection connection = connection(0);
+        socket.deliveryFailure = new IllegalStateException("write failed");
+        socket.connectedOnFailure = true;
+
+        connection.push(true);
+
+        assertThat(connection.isConnected()).isTrue();
+        assertThat(connection.getSocket()).isSameAs(socket);
+    }
+
+    private SockJSPushConnection connection(long coalescingWindow) {
+        SockJSPushConnection connection = new SockJSPushConnection(ui, coalescingWindow) {
+            private int messages;
+
+            @Override
+            String createMessage(UI ui, boolean async) {
+                return (async ? "async-" : "response-") + ++messages;
+            }
+        };
+        connection.connect(socket);
+        return connection;
+    }
+
+    private static class TestPushSocket implements PushSocket {
+
+        private final List<String> sent = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+        private final List<Runnable> scheduled = new ArrayList<>();
+        private final List<Runnable> writableTasks = new ArrayList<>();
+        private boolean throttled;
+        private boolean connected = true;
+        private RuntimeException deliveryFailure;
+        private boolean connectedOnFailure;
+
+        @Override
+        public String getUUID() {
+            return "socket";
+        }
+
+        @Override
+        public String remoteAddress() {
+            return "127.0.0.1";
+        }
+
+        @Override
+        public CompletionStage<?> send(String message) {
+            if (deliveryFailure != null) {
+                connected = connectedOnFailure;
+                return CompletableFuture.failedFuture(deliveryFailure);
+            }
+            sent.add(message);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletionStage<?> close() {
+            connected = false;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !connected;
+        }
+
+        @Override
+        public boolean isThrottled() {
+            return throttled;
+        }
+
+        @Override
+        public void whenWritable(Runnable task) {
+            writableTasks.add(task);
+        }
+
+        @Override
+        public void schedule(long delay, Runnable task) {
+            delays.add(delay);
+            scheduled.add(task);
+        }
+
+        private void runScheduled() {
+            List<Runnable> tasks = new ArrayList<>(scheduled);
+            scheduled.clear();
+            tasks.forEach(Runnable::run);
+        }
+
+        private void drain() {
+            throttled = false;
+            List<Runnable> tasks = new ArrayList<>(writableTasks);
+            writableTasks.clear();
+            tasks.forEach(Runnable::run);
+        }
+    }
+}
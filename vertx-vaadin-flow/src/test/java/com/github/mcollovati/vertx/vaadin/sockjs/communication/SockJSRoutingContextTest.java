@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.Session;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class SockJSRoutingContextTest {
+
+    @Rule
+    public RunTestOnContext rule = new RunTestOnContext();
+
+    private RoutingContext socketContext;
+    private Map<String, Object> socketData;
+    private Session session;
+
+    @Before
+    public void setUp() {
+        socketData = new HashMap<>();
+        socketData.put("upgrade", "value");
+        socketContext = mock(RoutingContext.class);
+        when(socketContext.data()).thenReturn(socketData);
+        when(socketContext.vertx()).thenReturn(rule.vertx());
+        session = mock(Session.class);
+    }
+
+    @Test
+    public void boundMessage_sessionAvailable() {
+        SockJSRoutingContext context = new SockJSRoutingContext(socketContext, session);
+
+        assertThat(context.session()).isSameAs(session);
+        assertThat(context.<String>get("upgrade")).isEqualTo("value");
+    }
+
+    @Test
+    public void attributes_scopedToSingleMessage() {
+        SockJSRoutingContext first = new SockJSRoutingContext(socketContext, session);
+        first.put("attribute", "first");
+        first.put("upgrade", "changed");
+
+        SockJSRoutingContext second = new SockJSRoutingContext(socketContext, session);
+
+        assertThat(second.<String>get("attribute")).isNull();
+        assertThat(second.<String>get("upgrade")).isEqualTo("value");
+        assertThat(second.data()).doesNotContainKey("attribute");
+        assertThat(socketData).containsOnly(Map.entry("upgrade", "value"));
+    }
+
+    @Test
+    public void reset_attributesOfPreviousMessageCleared() {
+        SockJSRoutingContext context = new SockJSRoutingContext(socketContext, session);
+        context.put("attribute", "first");
+        context.put("upgrade", "changed");
+
+        context.reset();
+
+        assertThat(context.<String>get("attribute")).isNull();
+        assertThat(context.<String>get("upgrade")).isEqualTo("value");
+        assertThat(context.session()).isSameAs(session);
+    }
+
+    @Test
+    public void attributes_removed() {
+        SockJSRoutingContext context = new SockJSRoutingContext(socketContext, session);
+        context.put("attribute", "value");
+
+        assertThat(context.<String>remove("attribute")).isEqualTo("value");
+        assertThat(context.<String>get("attribute", "default")).isEqualTo("default");
+        assertThat(context.<String>remove("upgrade")).isEqualTo("value");
+        assertThat(socketData).containsKey("upgrade");
+    }
+
+    @Test
+    public void next_sessionFlushedAfterActionCompleted(TestContext testContext) {
+        CompletableFuture<Void> dispatched = new CompletableFuture<>();
+        AtomicBoolean actionExecuted = new AtomicBoolean();
+        SockJSRoutingContext context = new SockJSRoutingContext(socketContext, rc -> {
+            actionExecuted.set(true);
+            return dispatched;
+        });
+        Context vertxContext = Vertx.currentContext();
+        Async flushed = testContext.async();
+        context.addHeadersEndHandler(unused -> {
+            testContext.assertTrue(dispatched.isDone());
+            testContext.assertEquals(vertxContext, Vertx.currentContext());
+            flushed.complete();
+        });
+
+        context.next();
+
+        rule.vertx().setTimer(20, timerId -> {
+            testContext.assertTrue(actionExecuted.get());
+            testContext.assertFalse(flushed.isCompleted());
+            // the action completes on a worker thread
+            new Thread(() -> dispatched.complete(null)).start();
+        });
+    }
+
+    @Test
+    public void next_actionFailed_sessionFlushed(TestContext testContext) {
+        SockJSRoutingContext context = new SockJSRoutingContext(
+                socketContext, rc -> CompletableFuture.failedFuture(new IllegalStateException("failed")));
+        Async flushed = testContext.async();
+        context.addHeadersEndHandler(unused -> flushed.complete());
+
+        context.next();
+    }
+
+    @Test
+    public void next_actionThrows_sessionFlushed(TestContext testContext) {
+        SockJSRoutingContext context = new SockJSRoutingContext(socketContext, rc -> {
+            throw new IllegalStateException("failed");
+        });
+        Async flushed = testContext.async();
+        context.addHeadersEndHandler(unused -> flushed.complete());
+
+        context.next();
+    }
+}
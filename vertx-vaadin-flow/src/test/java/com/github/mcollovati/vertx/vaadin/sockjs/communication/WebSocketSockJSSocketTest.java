@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.vaadin.sockjs.communication;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class WebSocketSockJSSocketTest {
+
+    private Vertx vertx;
+    private ServerWebSocket webSocket;
+    private final AtomicReference<Handler<Void>> webSocketCloseHandler = new AtomicReference<>();
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        webSocket = mock(ServerWebSocket.class);
+        when(webSocket.writeTextMessage(anyString())).thenReturn(Future.succeededFuture());
+        when(webSocket.writeBinaryMessage(any())).thenReturn(Future.succeededFuture());
+        when(webSocket.writePing(any())).thenReturn(Future.succeededFuture());
+        when(webSocket.close()).thenReturn(Future.succeededFuture());
+        doAnswer(invocation -> {
+                    webSocketCloseHandler.set(invocation.getArgument(0));
+                    return webSocket;
+                })
+                .when(webSocket)
+                .closeHandler(any());
+    }
+
+    @After
+    public void tearDown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void write_textFrames(TestContext context) {
+        WebSocketSockJSSocket socket = socket(false, 0, null);
+
+        socket.write(Buffer.buffer("buffer")).onComplete(context.asyncAssertSuccess());
+        socket.write("string").onComplete(context.asyncAssertSuccess());
+
+        verify(webSocket).writeTextMessage("buffer");
+        verify(webSocket).writeTextMessage("string");
+        verify(webSocket, never()).writeBinaryMessage(any());
+    }
+
+    @Test
+    public void write_binaryFrames(TestContext context) {
+        WebSocketSockJSSocket socket = socket(true, 0, null);
+
+        socket.write(Buffer.buffer("buffer")).onComplete(context.asyncAssertSuccess());
+        socket.write("string").onComplete(context.asyncAssertSuccess());
+
+        verify(webSocket).writeBinaryMessage(Buffer.buffer("buffer"));
+        verify(webSocket).writeBinaryMessage(Buffer.buffer("string"));
+        verify(webSocket, never()).writeTextMessage(anyString());
+    }
+
+    @Test
+    public void write_compressed_alwaysBinaryFrames(TestContext context) {
+        WebSocketSockJSSocket socket = socket(false, 0, new PushDeflater(new PushMetrics()));
+
+        socket.write("string").onComplete(context.asyncAssertSuccess());
+
+        verify(webSocket).writeBinaryMessage(any());
+        verify(webSocket, never()).writeTextMessage(anyString());
+    }
+
+    @Test
+    public void writeHandler_messagesWrittenToWebSocket(TestContext context) {
+        Async async = context.async();
+        when(webSocket.writeTextMessage("message")).thenAnswer(invocation -> {
+            async.complete();
+            return Future.succeededFuture();
+        });
+        WebSocketSockJSSocket socket = socket(false, 0, null);
+
+        vertx.eventBus().send(socket.writeHandlerID(), Buffer.buffer("message"));
+    }
+
+    @Test
+    public void close_writeHandlerUnregisteredAndCloseHandlerNotified(TestContext context) {
+        WebSocketSockJSSocket socket = socket(false, 0, null);
+        AtomicBoolean closed = new AtomicBoolean();
+        socket.closeHandler(unused -> closed.set(true));
+
+        webSocketCloseHandler.get().handle(null);
+
+        context.assertTrue(closed.get());
+        vertx.eventBus()
+                .request(socket.writeHandlerID(), Buffer.buffer("message"))
+                .onComplete(context.asyncAssertFailure(error -> context.assertEquals(
+                        ReplyFailure.NO_HANDLERS, ((ReplyException) error).failureType())));
+    }
+
+    @Test
+    public void close_deflaterReleased(TestContext context) {
+        WebSocketSockJSSocket socket = socket(false, 0, new PushDeflater(new PushMetrics()));
+
+        webSocketCloseHandler.get().handle(null);
+
+        socket.write("message").onComplete(context.asyncAssertFailure(error ->
+                context.assertTrue(error instanceof IllegalStateException)));
+        verify(webSocket, never()).writeBinaryMessage(any());
+    }
+
+    @Test
+    public void heartbeat_pingsSentUntilClosed(TestContext context) {
+        Async pings = context.async(2);
+        AtomicInteger sent = new AtomicInteger();
+        when(webSocket.writePing(any())).thenAnswer(invocation -> {
+            sent.incrementAndGet();
+            if (!pings.isCompleted()) {
+                pings.countDown();
+            }
+            return Future.succeededFuture();
+        });
+        socket(false, 10, null);
+        pings.await();
+
+        webSocketCloseHandler.get().handle(null);
+        int sentBeforeClose = sent.get();
+
+        Async async = context.async();
+        vertx.setTimer(100, timerId -> {
+            // a ping may be in flight while the timer is cancelled
+            context.assertTrue(sent.get() <= sentBeforeClose + 1);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void heartbeat_disabled_noPings(TestContext context) {
+        socket(false, 0, null);
+
+        Async async = context.async();
+        vertx.setTimer(50, timerId -> {
+            verify(webSocket, never()).writePing(any());
+            async.complete();
+        });
+    }
+
+    private WebSocketSockJSSocket socket(boolean binaryFrames, long heartbeatInterval, PushDeflater deflater) {
+        return new WebSocketSockJSSocket(
+                vertx, webSocket, mock(RoutingContext.class), binaryFrames, heartbeatInterval, deflater);
+    }
+}
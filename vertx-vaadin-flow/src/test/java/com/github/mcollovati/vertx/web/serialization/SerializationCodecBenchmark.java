@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.serialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.NativeButton;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import io.vertx.core.buffer.Buffer;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the serialization codecs on a session graph made of a
+ * {@link VaadinSession} and UIs with a component tree.
+ * <p>
+ * Not executed by the test suite; run the {@code main} method with the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationCodecBenchmark {
+
+    @Param({SerializationSupport.JDK_CODEC, SerializationSupport.COMPACT_CODEC})
+    public String codec;
+
+    @Param({"50", "500"})
+    public int componentsPerUI;
+
+    private SerializationCodec serializationCodec;
+    private Object sessionGraph;
+    private Buffer serialized;
+
+    @Setup
+    public void setUp() {
+        serializationCodec = SerializationSupport.createCodec(codec, List.of());
+        sessionGraph = createSessionGraph(3, componentsPerUI);
+        serialized = Buffer.buffer();
+        SerializationSupport.writeToBuffer(serialized, sessionGraph, serializationCodec);
+    }
+
+    @Benchmark
+    public Buffer serialize() {
+        Buffer buffer = Buffer.buffer(serialized.length());
+        SerializationSupport.writeToBuffer(buffer, sessionGraph, serializationCodec);
+        return buffer;
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole blackhole) {
+        SerializationSupport.readFromBuffer(0, serialized, blackhole::consume);
+    }
+
+    private static Object createSessionGraph(int uis, int componentsPerUI) {
+        List<Object> graph = new ArrayList<>();
+        VaadinSession session = new VaadinSession(Mockito.mock(VaadinService.class));
+        graph.add(session);
+        for (int i = 0; i < uis; i++) {
+            UI ui = new UI();
+            Div layout = new Div();
+            layout.setId("layout-" + i);
+            for (int j = 0; j < componentsPerUI; j++) {
+                Div row = new Div();
+                row.addClassName("row");
+                row.getStyle().set("padding", "4px");
+                Span label = new Span("Label " + j);
+                label.getElement().setAttribute("title", "Component " + j);
+                NativeButton button = new NativeButton("Action " + j, event -> label.setText("Clicked"));
+                row.add(label, button);
+                layout.add(row);
+            }
+            ui.add(layout);
+            graph.add(ui);
+        }
+        return graph;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(SerializationCodecBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SerializationSupportTest {
+
+    @Test
+    public void writeToBuffer_compactCodec_objectGraphRestored() {
+        assertRoundTrip(new CompactSerializationCodec());
+    }
+
+    @Test
+    public void writeToBuffer_jdkCodec_objectGraphRestored() {
+        assertRoundTrip(new JdkSerializationCodec());
+    }
+
+    @Test
+    public void writeToBuffer_defaultCodec_sameDataAsJavaSerialization() throws IOException {
+        Map<String, Object> value = sampleGraph();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(expected)) {
+            out.writeObject(value);
+        }
+
+        Buffer buffer = Buffer.buffer();
+        SerializationSupport.writeToBuffer(buffer, value);
+
+        assertThat(buffer.getInt(0)).isEqualTo(expected.size());
+        assertThat(buffer.getBytes(4, buffer.length())).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    public void readFromBuffer_codecSelectedByData() {
+        CompactSerializationCodec withNode = new CompactSerializationCodec(List.of(Node.class.getName()));
+        Map<String, Object> value = sampleGraph();
+        Buffer buffer = Buffer.buffer();
+        SerializationSupport.writeToBuffer(buffer, value, withNode);
+        SerializationSupport.writeToBuffer(buffer, value, new CompactSerializationCodec());
+        SerializationSupport.writeToBuffer(buffer, value);
+
+        List<Object> results = new ArrayList<>();
+        int pos = 0;
+        while (pos < buffer.length()) {
+            pos = SerializationSupport.readFromBuffer(pos, buffer, results::add);
+        }
+
+        assertThat(results).containsExactly(value, value, value);
+    }
+
+    @Test
+    public void readFromBuffer_unknownCodec_objectSkipped() {
+        SerializationCodec unknown = new JdkSerializationCodec() {
+            @Override
+            public int id() {
+                return 42;
+            }
+        };
+        Buffer buffer = Buffer.buffer();
+        SerializationSupport.writeToBuffer(buffer, "value", unknown);
+        // simulates data written by a codec not available on this node
+        buffer.setInt(6, 43);
+        SerializationSupport.writeToBuffer(buffer, "next");
+
+        List<Object> results = new ArrayList<>();
+        int pos = SerializationSupport.readFromBuffer(0, buffer, results::add);
+        pos = SerializationSupport.readFromBuffer(pos, buffer, results::add);
+
+        assertThat(pos).isEqualTo(buffer.length());
+        assertThat(results).containsExactly("next");
+    }
+
+    @Test
+    public void compactCodec_idDependsOnRegistrations() {
+        assertThat(new CompactSerializationCodec().id()).isEqualTo(new CompactSerializationCodec().id());
+        assertThat(new CompactSerializationCodec(List.of(Node.class.getName())).id())
+                .isNotEqualTo(new CompactSerializationCodec().id());
+    }
+
+    @Test
+    public void writeToBuffer_compactCodec_sharedReferencesPreserved() {
+        Node root = new Node("root");
+        Node child = new Node("child");
+        root.children.add(child);
+        root.children.add(child);
+        child.parent = root;
+
+        Node restored = roundTrip(root, new CompactSerializationCodec());
+
+        assertThat(restored.children).hasSize(2);
+        assertThat(restored.children.get(0)).isSameAs(restored.children.get(1));
+        assertThat(restored.children.get(0).parent).isSameAs(restored);
+    }
+
+    @Test
+    public void writeToBuffer_registeredClass_smallerThanJdkSerialization() {
+        Map<String, Object> value = sampleGraph();
+
+        Buffer jdk = Buffer.buffer();
+        SerializationSupport.writeToBuffer(jdk, value);
+
+        CompactSerializationCodec codec = new CompactSerializationCodec(List.of(Node.class.getName()));
+        Buffer compact = Buffer.buffer();
+        SerializationSupport.writeToBuffer(compact, value, codec);
+
+        assertThat(compact.length()).isLessThan(jdk.length());
+        assertThat((Object) roundTrip(value, codec)).isEqualTo(value);
+    }
+
+    @Test
+    public void readFromBuffer_multipleObjects_returnsEndPosition() {
+        Buffer buffer = Buffer.buffer().appendString("prefix");
+        SerializationSupport.writeToBuffer(buffer, "first");
+        SerializationSupport.writeToBuffer(buffer, 42L);
+
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        int pos = SerializationSupport.readFromBuffer(6, buffer, first::set);
+        pos = SerializationSupport.readFromBuffer(pos, buffer, second::set);
+
+        assertThat(pos).isEqualTo(buffer.length());
+        assertThat(first.get()).isEqualTo("first");
+        assertThat(second.get()).isEqualTo(42L);
+    }
+
+    @Test
+    public void serializableHolder_readFromBuffer_copiedUntilAccessed() {
+        Map<String, Object> value = sampleGraph();
+        Buffer buffer = Buffer.buffer().appendString("prefix");
+        new SerializableHolder(value, new CompactSerializationCodec()).writeToBuffer(buffer);
+
+        SerializableHolder read = new SerializableHolder();
+        assertThat(read.readFromBuffer(6, buffer)).isEqualTo(buffer.length());
+        Buffer copy = Buffer.buffer();
+        read.writeToBuffer(copy);
+        assertThat(copy).isEqualTo(buffer.getBuffer(6, buffer.length()));
+
+        SerializableHolder copied = new SerializableHolder();
+        copied.readFromBuffer(0, copy);
+        assertThat(copied.get()).isEqualTo(value);
+        assertThat(read.get()).isEqualTo(value).isNotSameAs(copied.get());
+    }
+
+    @Test
+    public void createCodec_byName() {
+        assertThat(SerializationSupport.createCodec(SerializationSupport.JDK_CODEC, List.of()))
+                .isSameAs(SerializationSupport.defaultCodec());
+        assertThat(SerializationSupport.createCodec(SerializationSupport.COMPACT_CODEC, List.of()))
+                .isInstanceOf(CompactSerializationCodec.class);
+        assertThat(SerializationSupport.createCodec(JdkSerializationCodec.class.getName(), List.of()))
+                .isInstanceOf(JdkSerializationCodec.class);
+    }
+
+    @Test
+    public void compactCodec_userRegistrationsFollowDefaults() {
+        CompactSerializationCodec codec = new CompactSerializationCodec(List.of(Node.class.getName()));
+        assertThat(codec.classId("java.util.HashMap"))
+                .isEqualTo(CompactSerializationCodec.DEFAULT_REGISTRATIONS.indexOf("java.util.HashMap"));
+        assertThat(codec.classId(Node.class.getName()))
+                .isEqualTo(CompactSerializationCodec.DEFAULT_REGISTRATIONS.size());
+        assertThat(codec.classId("not.registered.Type")).isEqualTo(-1);
+    }
+
+    private void assertRoundTrip(SerializationCodec codec) {
+        Map<String, Object> value = sampleGraph();
+        assertThat((Object) roundTrip(value, codec)).isEqualTo(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T value, SerializationCodec codec) {
+        Buffer buffer = Buffer.buffer();
+        SerializationSupport.writeToBuffer(buffer, value, codec);
+        AtomicReference<Object> result = new AtomicReference<>();
+        int end = SerializationSupport.readFromBuffer(0, buffer, result::set);
+        assertThat(end).isEqualTo(buffer.length());
+        return (T) result.get();
+    }
+
+    private static Map<String, Object> sampleGraph() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("string", "value");
+        value.put("number", 12);
+        value.put("list", new ArrayList<>(List.of(1L, 2L, 3L)));
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new Node("node" + i));
+        }
+        value.put("nodes", nodes);
+        return value;
+    }
+
+    private static class Node implements Serializable {
+        private final String name;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Node && name.equals(((Node) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
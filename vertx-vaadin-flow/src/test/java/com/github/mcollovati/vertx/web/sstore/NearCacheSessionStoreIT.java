@@ -23,6 +23,8 @@
 package com.github.mcollovati.vertx.web.sstore;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import io.vertx.core.AsyncResult;
@@ -31,6 +33,7 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.auth.PRNG;
 import io.vertx.ext.unit.Async;
@@ -38,6 +41,7 @@ import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.RunTestOnContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
 import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
@@ -193,6 +197,146 @@ public class NearCacheSessionStoreIT {
         }));
     }
 
+    @Test(timeout = 5000)
+    public void putShouldReplicateOnlyChangedAttributesAfterSnapshot(TestContext context) {
+        Vertx vertx = rule.vertx();
+        SessionStore sessionStore = NearCacheSessionStore.create(vertx, deltaOptions());
+        Session session = sessionStore.createSession(DEFAULT_TIMEOUT);
+        session.put("unchanged", "value");
+        session.put("counter", 1);
+
+        sessionStore.put(session, context.asyncAssertSuccess(v1 -> {
+            session.put("counter", 2);
+            ExtendedSession.adapt(session).put("added", new TestObject("added"));
+            sessionStore.put(session, context.asyncAssertSuccess(v2 -> {
+                doWithRemoteSession(
+                        context,
+                        session,
+                        context.asyncAssertSuccess(snapshot -> context.verify(unused -> {
+                            assertThat(snapshot.<Integer>get("counter")).isEqualTo(1);
+                            assertThat(snapshot.<Object>get("added")).isNull();
+                        })));
+                localMap.remove(session.id());
+                sessionStore.get(
+                        session.id(),
+                        context.asyncAssertSuccess(restored -> context.verify(unused -> {
+                            assertThat(restored).isNotSameAs(session);
+                            assertThat(restored.<String>get("unchanged")).isEqualTo("value");
+                            assertThat(restored.<Integer>get("counter")).isEqualTo(2);
+                            assertThat(ExtendedSession.adapt(restored).<TestObject>get("added"))
+                                    .isEqualTo(new TestObject("added"));
+                        })));
+            }));
+        }));
+    }
+
+    @Test(timeout = 5000)
+    public void putShouldReplicateAttributesMutatedInPlace(TestContext context) {
+        Vertx vertx = rule.vertx();
+        SessionStore sessionStore = NearCacheSessionStore.create(vertx, deltaOptions());
+        Session session = sessionStore.createSession(DEFAULT_TIMEOUT);
+        TestObject testObject = new TestObject("mutable");
+        ExtendedSession.adapt(session).put("mutable", testObject);
+
+        sessionStore.put(session, context.asyncAssertSuccess(v1 -> {
+            testObject.counter++;
+            sessionStore.put(session, context.asyncAssertSuccess(v2 -> {
+                localMap.remove(session.id());
+                sessionStore.get(
+                        session.id(),
+                        context.asyncAssertSuccess(restored -> context.verify(unused -> {
+                            assertThat(restored).isNotSameAs(session);
+                            assertThat(ExtendedSession.adapt(restored).<TestObject>get("mutable").counter)
+                                    .isEqualTo(1);
+                        })));
+            }));
+        }));
+    }
+
+    @Test(timeout = 5000)
+    public void putShouldWriteSnapshotIfStoredDeltaIsUnknown(TestContext context) {
+        Vertx vertx = rule.vertx();
+        SessionStore sessionStore = NearCacheSessionStore.create(vertx, deltaOptions());
+        Session session = sessionStore.createSession(DEFAULT_TIMEOUT);
+        session.put("counter", 1);
+
+        sessionStore.put(session, context.asyncAssertSuccess(v1 -> vertx.sharedData()
+                .<String, Object>getClusterWideMap(NearCacheSessionStore.DEFAULT_SESSION_MAP_NAME + ".delta")
+                .compose(deltas -> deltas.put(session.id(), new SessionDelta(
+                        ((AbstractSession) session).version(), 5, 0, DEFAULT_TIMEOUT, Map.of(), List.of())))
+                .onComplete(context.asyncAssertSuccess(v2 -> {
+                    session.put("counter", 2);
+                    sessionStore.put(
+                            session,
+                            context.asyncAssertSuccess(v3 -> doWithRemoteSession(
+                                    context,
+                                    session,
+                                    context.asyncAssertSuccess(snapshot -> context.verify(unused ->
+                                            assertThat(snapshot.<Integer>get("counter")).isEqualTo(2))))));
+                }))));
+    }
+
+    @Test(timeout = 5000)
+    public void getShouldReturnSessionEvictedWhileWriteIsPending(TestContext context) {
+        Vertx vertx = rule.vertx();
+        SessionStore sessionStore = NearCacheSessionStore.create(
+                vertx,
+                new JsonObject()
+                        .put("writeBehind", true)
+                        .put("writeBehindDelay", 60000)
+                        .put("nearCacheMaxSize", 1));
+        Session session = sessionStore.createSession(DEFAULT_TIMEOUT);
+        session.put("counter", 1);
+
+        sessionStore.put(session, context.asyncAssertSuccess(v1 -> {
+            Session other = sessionStore.createSession(DEFAULT_TIMEOUT);
+            sessionStore.put(other, context.asyncAssertSuccess(v2 -> {
+                // evicted by the other session, but not written yet
+                context.assertNull(localMap.get(session.id()));
+                doWithRemoteSession(context, session, context.asyncAssertSuccess(context::assertNull));
+                sessionStore.get(
+                        session.id(),
+                        context.asyncAssertSuccess(restored -> context.verify(unused -> {
+                            assertThat(restored).isSameAs(session);
+                            assertThat(restored.<Integer>get("counter")).isEqualTo(1);
+                        })));
+            }));
+        }));
+    }
+
+    @Test(timeout = 5000)
+    public void putShouldRemoveSupersededAttributeValues(TestContext context) {
+        Vertx vertx = rule.vertx();
+        SessionStore sessionStore = NearCacheSessionStore.create(vertx, deltaOptions());
+        Session session = sessionStore.createSession(DEFAULT_TIMEOUT);
+        session.put("counter", 1);
+        Future<AsyncMap<String, Object>> deltas = vertx.sharedData()
+                .getClusterWideMap(NearCacheSessionStore.DEFAULT_SESSION_MAP_NAME + ".delta");
+
+        sessionStore.put(session, context.asyncAssertSuccess(v1 -> {
+            String keyPrefix = session.id() + "/" + ((AbstractSession) session).version() + ".";
+            session.put("counter", 2);
+            sessionStore.put(session, context.asyncAssertSuccess(v2 -> {
+                session.put("counter", 3);
+                sessionStore.put(session, context.asyncAssertSuccess(v3 -> deltas.compose(map -> map.get(
+                                        keyPrefix + "1/counter")
+                                .compose(first -> map.get(keyPrefix + "2/counter")
+                                        .map(second -> {
+                                            context.assertNull(first);
+                                            context.assertEquals(3, second);
+                                            return map;
+                                        })))
+                        .compose(map -> sessionStore.delete(session.id()).compose(deleted -> map.get(
+                                keyPrefix + "2/counter")))
+                        .onComplete(context.asyncAssertSuccess(context::assertNull))));
+            }));
+        }));
+    }
+
+    private static JsonObject deltaOptions() {
+        return new JsonObject().put("deltaReplication", true);
+    }
+
     @Test(timeout = 5000)
     public void deleteShouldSucceedIfSessionDoesNotExist(TestContext context) {
         Vertx vertx = rule.vertx();
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.ArrayList;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTest {
+
+    private Vertx vertx;
+    private LocalMap<String, Session> localMap;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        localMap = vertx.sharedData().getLocalMap("near-cache-test");
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void put_maxSizeExceeded_leastRecentlyUsedEvicted() {
+        NearCache cache = new NearCache(localMap, 2);
+        cache.put(session("a"), 1);
+        cache.put(session("b"), 1);
+        assertThat(cache.get("a")).isNotNull();
+
+        assertThat(cache.put(session("c"), 1)).containsExactly("b");
+        assertThat(cache.get("b")).isNull();
+        assertThat(localMap.keySet()).containsExactlyInAnyOrder("a", "c");
+    }
+
+    @Test
+    public void put_unbounded_nothingEvicted() {
+        NearCache cache = new NearCache(localMap, 0);
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.put(session("s" + i), 1)).isEmpty();
+        }
+        assertThat(cache.size()).isEqualTo(100);
+    }
+
+    @Test
+    public void invalidate_olderStamp_ignored() {
+        NearCache cache = new NearCache(localMap, 0);
+        cache.put(session("a"), ReplicationState.stamp(2, 3));
+
+        assertThat(cache.invalidate("a", ReplicationState.stamp(2, 3))).isFalse();
+        assertThat(cache.invalidate("a", ReplicationState.stamp(1, 10))).isFalse();
+        assertThat(cache.get("a")).isNotNull();
+
+        assertThat(cache.invalidate("a", ReplicationState.stamp(2, 4))).isTrue();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    public void invalidate_untrackedEntry_removed() {
+        NearCache cache = new NearCache(localMap, 0);
+        localMap.put("a", session("a"));
+
+        assertThat(cache.invalidate("a", 0)).isTrue();
+        assertThat(localMap.get("a")).isNull();
+    }
+
+    @Test
+    public void putIfAbsent_alreadyCached_returnsCurrent() {
+        NearCache cache = new NearCache(localMap, 0);
+        Session current = session("a");
+        cache.put(current, 5);
+
+        Session loaded = session("a");
+        assertThat(cache.putIfAbsent(loaded, 4, new ArrayList<>())).isSameAs(current);
+        assertThat(cache.invalidate("a", 5)).isFalse();
+    }
+
+    @Test
+    public void isStale_notValidatedForMaxStaleness_true() {
+        NearCache cache = new NearCache(localMap, 0, 1000);
+        cache.put(session("a"), 1);
+        long now = System.currentTimeMillis();
+
+        assertThat(cache.isStale("a", now)).isFalse();
+        assertThat(cache.isStale("a", now + 5000)).isTrue();
+        assertThat(cache.isStale("b", now + 5000)).isFalse();
+        assertThat(new NearCache(localMap, 0).isStale("a", now + 5000)).isFalse();
+    }
+
+    @Test
+    public void revalidate_newerStoredCopy_replaced() {
+        NearCache cache = new NearCache(localMap, 0, 1000);
+        Session cached = session("a");
+        cache.put(cached, ReplicationState.stamp(1, 2));
+
+        Session loaded = session("a");
+        assertThat(cache.revalidate(cached, loaded, ReplicationState.stamp(2, 0))).isSameAs(loaded);
+        assertThat(cache.get("a")).isSameAs(loaded);
+        assertThat(cache.invalidate("a", ReplicationState.stamp(2, 0))).isFalse();
+    }
+
+    @Test
+    public void revalidate_sameStoredCopy_keptAndValidated() {
+        NearCache cache = new NearCache(localMap, 0, 1000);
+        Session cached = session("a");
+        cache.put(cached, ReplicationState.stamp(1, 2));
+
+        assertThat(cache.revalidate(cached, session("a"), ReplicationState.stamp(1, 2))).isSameAs(cached);
+        assertThat(cache.get("a")).isSameAs(cached);
+        assertThat(cache.isStale("a", System.currentTimeMillis() + 500)).isFalse();
+    }
+
+    @Test
+    public void revalidate_notStored_removedUnlessNeverReplicated() {
+        NearCache cache = new NearCache(localMap, 0, 1000);
+        Session replicated = session("a");
+        cache.put(replicated, ReplicationState.stamp(1, 0));
+        Session notReplicated = session("b");
+        cache.put(notReplicated, -1L);
+
+        assertThat(cache.revalidate(replicated, null, -1L)).isNull();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.revalidate(notReplicated, null, -1L)).isSameAs(notReplicated);
+        assertThat(cache.get("b")).isSameAs(notReplicated);
+    }
+
+    @Test
+    public void revalidate_replacedInTheMeantime_currentReturned() {
+        NearCache cache = new NearCache(localMap, 0, 1000);
+        Session cached = session("a");
+        cache.put(cached, ReplicationState.stamp(1, 0));
+        Session written = session("a");
+        cache.put(written, ReplicationState.stamp(1, 1));
+
+        assertThat(cache.revalidate(cached, session("a"), ReplicationState.stamp(2, 0))).isSameAs(written);
+        assertThat(cache.get("a")).isSameAs(written);
+    }
+
+    private static Session session(String id) {
+        // local map values must be shareable
+        Session session = Mockito.mock(Session.class, Mockito.withSettings().extraInterfaces(Shareable.class));
+        Mockito.when(session.id()).thenReturn(id);
+        return session;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.mcollovati.vertx.web.serialization.SerializableHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicationStateTest {
+
+    private final Map<String, Object> data = new HashMap<>();
+    private Session session;
+
+    @Before
+    public void setUp() {
+        session = Mockito.mock(Session.class);
+        Mockito.when(session.data()).thenReturn(data);
+        Mockito.when(session.timeout()).thenReturn(1000L);
+    }
+
+    @Test
+    public void snapshotRequired_noSnapshot_true() {
+        assertThat(new ReplicationState().snapshotRequired(0, 10, 1000)).isTrue();
+    }
+
+    @Test
+    public void snapshotRequired_intervalOrPeriodExceeded_true() {
+        ReplicationState state = new ReplicationState();
+        state.snapshotWritten(ReplicationState.capture(session), 1, 100, null);
+        assertThat(state.snapshotRequired(200, 2, 1000)).isFalse();
+        assertThat(state.snapshotRequired(1100, 2, 1000)).isTrue();
+
+        state.delta(session, new HashMap<>());
+        state.delta(session, new HashMap<>());
+        assertThat(state.snapshotRequired(200, 2, 1000)).isTrue();
+    }
+
+    @Test
+    public void delta_changedAndMutableAttributesReplicated() {
+        SerializableHolder big = new SerializableHolder(new Object());
+        data.put("big", big);
+        data.put("counter", 1);
+        data.put("text", new SerializableHolder("value"));
+        data.put("removed", "value");
+        ReplicationState state = new ReplicationState();
+        state.snapshotWritten(ReplicationState.capture(session), 3, 0, null);
+
+        data.put("counter", 2);
+        data.put("text", new SerializableHolder("value"));
+        data.remove("removed");
+        Map<String, Object> changed = new HashMap<>();
+        SessionDelta delta = state.delta(session, changed);
+
+        // wrapped values may be mutated in place and are never compared
+        assertThat(changed).containsOnlyKeys("big", "counter", "text");
+        assertThat(delta.snapshotVersion()).isEqualTo(3);
+        assertThat(delta.changed()).containsOnlyKeys("big", "counter", "text");
+        assertThat(delta.removed()).containsExactly("removed");
+    }
+
+    @Test
+    public void delta_mutableValuesNeverSkipped() {
+        Map<String, Object> mutable = new HashMap<>();
+        data.put("mutable", mutable);
+        ReplicationState state = new ReplicationState();
+        state.snapshotWritten(ReplicationState.capture(session), 1, 0, null);
+
+        mutable.put("key", "value");
+        Map<String, Object> changed = new HashMap<>();
+        state.delta(session, changed);
+        assertThat(changed).containsOnlyKeys("mutable");
+
+        changed.clear();
+        state.delta(session, changed);
+        assertThat(changed).containsOnlyKeys("mutable");
+    }
+
+    @Test
+    public void lastDelta_tracksLastWrittenDelta() {
+        data.put("a", 1);
+        ReplicationState state = new ReplicationState();
+        SessionDelta marker = SessionDelta.empty(4, 10, 1000);
+        state.snapshotWritten(ReplicationState.capture(session), 4, 0, marker);
+        assertThat(state.lastDelta()).isSameAs(marker);
+
+        data.put("a", 2);
+        SessionDelta delta = state.delta(session, new HashMap<>());
+        assertThat(state.lastDelta()).isSameAs(delta);
+        assertThat(delta.sequence()).isEqualTo(1);
+        assertThat(delta.changed()).containsEntry("a", 1);
+
+        state.snapshotWritten(ReplicationState.capture(session), 5, 0, null);
+        assertThat(state.lastDelta()).isNull();
+    }
+
+    @Test
+    public void sessionDelta_serializationRoundTrip() {
+        SessionDelta delta = new SessionDelta(2, 3, 100, 1000, Map.of("a", 1, "b", 3), List.of("c"));
+        Buffer buffer = Buffer.buffer("prefix");
+        delta.writeToBuffer(buffer);
+
+        SessionDelta restored = new SessionDelta();
+        int end = restored.readFromBuffer(6, buffer);
+
+        assertThat(end).isEqualTo(buffer.length());
+        assertThat(restored).isEqualTo(delta);
+        assertThat(restored.changed()).containsEntry("b", 3);
+        assertThat(restored.removed()).containsExactly("c");
+    }
+
+    @Test
+    public void delta_attributePutAgain_replicated() {
+        data.put("big", new SerializableHolder(new Object()));
+        data.put("text", "value");
+        ReplicationState state = new ReplicationState();
+        state.snapshotWritten(ReplicationState.capture(session), 1, 0, null);
+
+        data.put("big", new SerializableHolder(new Object()));
+        data.put("text", new String("value"));
+        Map<String, Object> changed = new HashMap<>();
+        state.delta(session, changed);
+
+        assertThat(changed).containsOnlyKeys("big");
+    }
+
+    @Test
+    public void delta_changesAccumulatedUntilSnapshot() {
+        data.put("a", 1);
+        data.put("b", 1);
+        ReplicationState state = new ReplicationState();
+        state.snapshotWritten(ReplicationState.capture(session), 1, 0, null);
+
+        data.put("a", 2);
+        state.delta(session, new HashMap<>());
+        data.remove("b");
+        Map<String, Object> changed = new HashMap<>();
+        SessionDelta delta = state.delta(session, changed);
+
+        assertThat(changed).isEmpty();
+        assertThat(delta.changed()).containsOnlyKeys("a").containsEntry("a", 1);
+        assertThat(delta.removed()).containsExactly("b");
+
+        state.snapshotWritten(ReplicationState.capture(session), 2, 10, null);
+        delta = state.delta(session, new HashMap<>());
+        assertThat(delta.snapshotVersion()).isEqualTo(2);
+        assertThat(delta.changed()).isEmpty();
+        assertThat(delta.removed()).isEmpty();
+    }
+}
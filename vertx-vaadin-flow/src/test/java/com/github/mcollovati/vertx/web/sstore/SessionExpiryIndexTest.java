@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import io.vertx.ext.web.Session;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SessionExpiryIndexTest {
+
+    private final SessionExpiryIndex index = new SessionExpiryIndex();
+
+    @Test
+    public void pollDue_onlyDueSessionsReturned() {
+        index.touch(session("a", 100, 50));
+        index.touch(session("b", 100, 500));
+
+        assertThat(index.pollDue(150)).isEmpty();
+        assertThat(index.pollDue(151)).containsExactly("a");
+        assertThat(index.pollDue(151)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.pollDue(1000)).containsExactly("b");
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void touch_alreadyScheduled_keepsSingleEntry() {
+        Session session = session("a", 100, 50);
+        index.touch(session);
+        Mockito.when(session.lastAccessed()).thenReturn(200L);
+        index.touch(session);
+
+        assertThat(index.size()).isEqualTo(1);
+        // the earliest schedule wins, caller verifies the actual expiration time
+        assertThat(index.pollDue(151)).containsExactly("a");
+        assertThat(SessionExpiryIndex.isExpired(session, 151)).isFalse();
+        index.touch(session);
+        assertThat(index.pollDue(251)).containsExactly("a");
+    }
+
+    @Test
+    public void schedule_earlierTime_supersedesPreviousEntry() {
+        index.schedule("a", 500);
+        index.schedule("a", 100);
+
+        assertThat(index.pollDue(100)).containsExactly("a");
+        assertThat(index.pollDue(500)).isEmpty();
+    }
+
+    @Test
+    public void remove_sessionNotReturned() {
+        index.touch(session("a", 100, 50));
+        index.remove("a");
+
+        assertThat(index.pollDue(1000)).isEmpty();
+    }
+
+    @Test
+    public void isExpired() {
+        Session session = session("a", 100, 50);
+        assertThat(SessionExpiryIndex.isExpired(session, 150)).isFalse();
+        assertThat(SessionExpiryIndex.isExpired(session, 151)).isTrue();
+    }
+
+    private static Session session(String id, long lastAccessed, long timeout) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.id()).thenReturn(id);
+        Mockito.when(session.lastAccessed()).thenReturn(lastAccessed);
+        Mockito.when(session.timeout()).thenReturn(timeout);
+        return session;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * The MIT License
+ * Copyright © 2024 Marco Collovati (mcollovati@gmail.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.mcollovati.vertx.web.sstore;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteBehindQueueTest {
+
+    private Vertx vertx;
+    private final List<Session> written = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void offer_sameSession_writesCoalesced() {
+        WriteBehindQueue queue = newQueue(60000, 10);
+        Session first = session("a");
+        Session second = session("a");
+        assertThat(offer(queue, first)).isTrue();
+        assertThat(offer(queue, session("b"))).isTrue();
+        assertThat(offer(queue, second)).isTrue();
+
+        queue.close();
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0)).isSameAs(second);
+        JsonObject metrics = queue.metrics();
+        assertThat(metrics.getLong("queued")).isEqualTo(2);
+        assertThat(metrics.getLong("coalesced")).isEqualTo(1);
+        assertThat(metrics.getLong("flushed")).isEqualTo(2);
+        assertThat(metrics.getInteger("pending")).isZero();
+    }
+
+    @Test
+    public void offer_snapshotWritten() {
+        WriteBehindQueue queue = newQueue(60000, 10);
+        Session snapshot = session("a");
+        queue.offer(session("a"), snapshot);
+
+        queue.close();
+
+        assertThat(written).containsExactly(snapshot);
+    }
+
+    @Test
+    public void offer_queueFull_rejected() {
+        WriteBehindQueue queue = newQueue(60000, 1);
+        assertThat(offer(queue, session("a"))).isTrue();
+        assertThat(offer(queue, session("a"))).isTrue();
+        assertThat(offer(queue, session("b"))).isFalse();
+
+        assertThat(queue.metrics().getLong("rejected")).isEqualTo(1);
+        queue.close();
+    }
+
+    @Test
+    public void offer_closed_rejected() {
+        WriteBehindQueue queue = newQueue(60000, 10);
+        queue.close();
+
+        assertThat(offer(queue, session("a"))).isFalse();
+    }
+
+    @Test
+    public void remove_pendingWriteDiscarded() {
+        WriteBehindQueue queue = newQueue(60000, 10);
+        offer(queue, session("a"));
+        queue.remove("a");
+
+        queue.close();
+
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    public void flush_dueWritesFlushedPeriodically() throws InterruptedException {
+        WriteBehindQueue queue = newQueue(10, 10);
+        offer(queue, session("a"));
+
+        awaitFlushed(queue, 1);
+
+        assertThat(written).hasSize(1);
+        assertThat(queue.metrics().getLong("lastLag")).isGreaterThanOrEqualTo(10);
+        queue.close();
+    }
+
+    @Test
+    public void flush_writeFailed_retried() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            return attempts.getAndIncrement() == 0
+                    ? Future.failedFuture("cluster unavailable")
+                    : Future.succeededFuture();
+        });
+        Session snapshot = session("a");
+        queue.offer(session("a"), snapshot);
+
+        awaitFlushed(queue, 1);
+
+        assertThat(written).containsExactly(snapshot, snapshot);
+        JsonObject metrics = queue.metrics();
+        assertThat(metrics.getLong("failed")).isEqualTo(1);
+        assertThat(metrics.getLong("retried")).isEqualTo(1);
+        queue.close();
+    }
+
+    @Test
+    public void flush_writeFailing_retriedWithBackoffUntilMaxAttempts() throws InterruptedException {
+        List<Long> attempts = new CopyOnWriteArrayList<>();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, 3, (session, snapshot) -> {
+            attempts.add(System.currentTimeMillis());
+            return Future.failedFuture("cluster unavailable");
+        });
+        offer(queue, session("a"));
+
+        awaitMetric(queue, "dropped", 1);
+
+        assertThat(attempts).hasSize(3);
+        assertThat(attempts.get(2) - attempts.get(1)).isGreaterThanOrEqualTo(20);
+        assertThat(queue.isPending("a")).isFalse();
+        JsonObject metrics = queue.metrics();
+        assertThat(metrics.getLong("failed")).isEqualTo(3);
+        assertThat(metrics.getLong("retried")).isEqualTo(2);
+        queue.close();
+    }
+
+    @Test
+    public void flush_conflict_notRetriedAndNewerWriteDiscarded() throws InterruptedException {
+        Promise<Void> result = Promise.promise();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            return result.future();
+        });
+        Session first = session("a");
+        offer(queue, first);
+        awaitWritten(1);
+        offer(queue, session("a"));
+
+        result.fail(new SessionConflictException("Session version mismatch"));
+
+        assertThat(queue.isPending("a")).isFalse();
+        JsonObject metrics = queue.metrics();
+        assertThat(metrics.getLong("retried")).isZero();
+        assertThat(metrics.getLong("dropped")).isEqualTo(1);
+        queue.close();
+        assertThat(written).containsExactly(first);
+    }
+
+    @Test
+    public void flush_writeFailedWithNewerWritePending_newerWritten() throws InterruptedException {
+        List<Promise<Void>> results = new CopyOnWriteArrayList<>();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            Promise<Void> promise = Promise.promise();
+            results.add(promise);
+            return promise.future();
+        });
+        Session first = session("a");
+        Session second = session("a");
+        queue.offer(first, first);
+        awaitWritten(1);
+        queue.offer(second, second);
+
+        results.get(0).fail("cluster unavailable");
+        awaitWritten(2);
+        results.get(1).complete();
+
+        assertThat(written).containsExactly(first, second);
+        assertThat(queue.metrics().getLong("retried")).isZero();
+        queue.close();
+    }
+
+    @Test
+    public void flush_removedWhileInFlight_notRetried() throws InterruptedException {
+        Promise<Void> result = Promise.promise();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            return result.future();
+        });
+        offer(queue, session("a"));
+        awaitWritten(1);
+
+        queue.remove("a");
+        result.fail("cluster unavailable");
+
+        assertThat(queue.isPending("a")).isFalse();
+        assertThat(queue.metrics().getLong("retried")).isZero();
+        queue.close();
+    }
+
+    @Test
+    public void pendingSession_queuedOrInFlight_returnedUntilWritten() throws InterruptedException {
+        Promise<Void> result = Promise.promise();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            return result.future();
+        });
+        Session session = session("a");
+        queue.offer(session, session("a"));
+        assertThat(queue.pendingSession("a")).isSameAs(session);
+
+        awaitWritten(1);
+        assertThat(queue.pendingSession("a")).isSameAs(session);
+
+        result.complete();
+        assertThat(queue.pendingSession("a")).isNull();
+        queue.close();
+    }
+
+    @Test
+    public void pendingSession_removedWhileInFlight_notReturned() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            return Promise.<Void>promise().future();
+        });
+        offer(queue, session("a"));
+        awaitWritten(1);
+
+        queue.remove("a");
+
+        assertThat(queue.pendingSession("a")).isNull();
+    }
+
+    @Test
+    public void flush_writeFailed_counted() {
+        WriteBehindQueue queue = new WriteBehindQueue(
+                vertx, 60000, 10, (session, snapshot) -> Future.failedFuture("cluster unavailable"));
+        offer(queue, session("a"));
+
+        queue.close();
+
+        assertThat(queue.metrics().getLong("failed")).isEqualTo(1);
+        assertThat(queue.metrics().getInteger("inFlight")).isZero();
+    }
+
+    @Test
+    public void close_waitsForInFlightAndPendingWrites() throws InterruptedException {
+        List<Promise<Void>> results = new CopyOnWriteArrayList<>();
+        WriteBehindQueue queue = new WriteBehindQueue(vertx, 10, 10, (session, snapshot) -> {
+            written.add(snapshot);
+            Promise<Void> promise = Promise.promise();
+            results.add(promise);
+            return promise.future();
+        });
+        Session first = session("a");
+        Session second = session("a");
+        queue.offer(first, first);
+        awaitWritten(1);
+        queue.offer(second, second);
+
+        Future<Void> closed = queue.close();
+        assertThat(closed.isComplete()).isFalse();
+
+        results.get(0).complete();
+        assertThat(written).containsExactly(first, second);
+        assertThat(closed.isComplete()).isFalse();
+
+        results.get(1).complete();
+        assertThat(closed.succeeded()).isTrue();
+    }
+
+    private WriteBehindQueue newQueue(long delay, int maxPending) {
+        return new WriteBehindQueue(vertx, delay, maxPending, (session, snapshot) -> {
+            written.add(snapshot);
+            return Future.succeededFuture();
+        });
+    }
+
+    private static boolean offer(WriteBehindQueue queue, Session session) {
+        return queue.offer(session, session);
+    }
+
+    private static void awaitFlushed(WriteBehindQueue queue, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.metrics().getLong("flushed") < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitMetric(WriteBehindQueue queue, String name, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.metrics().getLong(name) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queue.metrics().getLong(name)).isEqualTo(count);
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(written).hasSize(count);
+    }
+
+    private static Session session(String id) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.id()).thenReturn(id);
+        return session;
+    }
+}